@@ -0,0 +1,94 @@
+/**
+ * Measures n-gram annotation and scoring of every answer of a document
+ */
+package annotators;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import benchmarks.Corpus;
+
+/**
+ * Each operation annotates one of a batch of documents whose CASes are prepared before the
+ * iteration, so the score is the time of Corpus.batch documents.
+ *
+ * @author Soumya Batra
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = Corpus.batch)
+@Measurement(iterations = 10, batchSize = Corpus.batch)
+@Fork(1)
+public class NGramAnnotatorBenchmark {
+
+  @Param({ "10", "100", "1000" })
+  int answersPerQuestion;
+
+  @Param({ "5", "20" })
+  int tokensPerAnswer;
+
+  // Number of answers marked correct, each one adds 3 * tokensPerAnswer - 3 gold NGrams
+  @Param({ "1", "10" })
+  int goldAnswers;
+
+  String text;
+
+  // One CAS per operation of an iteration
+  JCas[] cases;
+
+  int next;
+
+  QAAnnotator qaAnnotator;
+
+  GoldAnswerToNGram goldAnnotator;
+
+  NGramAnnotator annotator;
+
+  @Setup(Level.Trial)
+  public void buildCorpus(BenchmarkParams params) throws Exception {
+    text = Corpus.document(answersPerQuestion, tokensPerAnswer, goldAnswers, 42L);
+    cases = Corpus.newJCases(Math.max(params.getWarmup().getBatchSize(), params.getMeasurement()
+            .getBatchSize()));
+    qaAnnotator = Corpus.initialize(new QAAnnotator(),
+            "/analysisEngineDescriptors/qa_annotator.xml");
+    goldAnnotator = Corpus.initialize(new GoldAnswerToNGram(),
+            "/analysisEngineDescriptors/gold_pipeline.xml");
+    annotator = Corpus.initialize(new NGramAnnotator(),
+            "/analysisEngineDescriptors/ngram_annotator.xml");
+  }
+
+  // Every operation starts from a CAS holding the Questions, Answers and gold NGrams
+  @Setup(Level.Iteration)
+  public void resetCases() throws Exception {
+    for (JCas jcas : cases) {
+      jcas.reset();
+      jcas.setDocumentText(text);
+      qaAnnotator.process(jcas);
+      goldAnnotator.process(jcas);
+    }
+    next = 0;
+  }
+
+  @Benchmark
+  public JCas process() throws Exception {
+    JCas jcas = cases[next++];
+    annotator.process(jcas);
+    return jcas;
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * Measures the question part of NGramAnnotator, the part that does not grow with the answers
+ */
+package annotators;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import benchmarks.Corpus;
+import edu.cmu.deiis.types.Answer;
+import edu.cmu.deiis.types.Question;
+
+/**
+ * Each operation takes one of a batch of documents prepared before the iteration and does what
+ * NGramAnnotator.process does before it reaches the first answer: the question NGrams, the gold
+ * lookups and the references of the pre-filter and cache. Subtracting the score from that of
+ * NGramAnnotatorBenchmark.process with the same parameters leaves the time of the answers.
+ *
+ * @author Soumya Batra
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = Corpus.batch)
+@Measurement(iterations = 10, batchSize = Corpus.batch)
+@Fork(1)
+public class NGramMatchBenchmark {
+
+  @Param({ "10", "100", "1000" })
+  int answersPerQuestion;
+
+  @Param({ "5", "20" })
+  int tokensPerAnswer;
+
+  // Number of answers marked correct, each one adds 3 * tokensPerAnswer - 3 gold NGrams
+  @Param({ "1", "10" })
+  int goldAnswers;
+
+  String text;
+
+  // One CAS per operation of an iteration
+  JCas[] cases;
+
+  int next;
+
+  QAAnnotator qaAnnotator;
+
+  GoldAnswerToNGram goldAnnotator;
+
+  NGramAnnotator annotator;
+
+  @Setup(Level.Trial)
+  public void buildCorpus(BenchmarkParams params) throws Exception {
+    text = Corpus.document(answersPerQuestion, tokensPerAnswer, goldAnswers, 42L);
+    cases = Corpus.newJCases(Math.max(params.getWarmup().getBatchSize(), params.getMeasurement()
+            .getBatchSize()));
+    qaAnnotator = Corpus.initialize(new QAAnnotator(),
+            "/analysisEngineDescriptors/qa_annotator.xml");
+    goldAnnotator = Corpus.initialize(new GoldAnswerToNGram(),
+            "/analysisEngineDescriptors/gold_pipeline.xml");
+    annotator = Corpus.initialize(new NGramAnnotator(),
+            "/analysisEngineDescriptors/ngram_annotator.xml");
+  }
+
+  // Every operation starts from a CAS holding the Questions, Answers and gold NGrams
+  @Setup(Level.Iteration)
+  public void resetCases() throws Exception {
+    for (JCas jcas : cases) {
+      jcas.reset();
+      jcas.setDocumentText(text);
+      qaAnnotator.process(jcas);
+      goldAnnotator.process(jcas);
+    }
+    next = 0;
+  }
+
+  @Benchmark
+  public JCas annotateQuestion() throws Exception {
+    JCas jcas = cases[next++];
+    annotator.beginDocument(jcas);
+    Question ques = (Question) jcas.getAnnotationIndex(Question.type).iterator().next();
+    annotator.annotateQuestion(ques, jcas.getAnnotationIndex(Answer.type));
+    return jcas;
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * Measures sentence splitting of a document into Question and Answer annotations
+ */
+package annotators;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.jcas.JCas;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import benchmarks.Corpus;
+
+/**
+ * Each operation annotates one of a batch of documents whose CASes are prepared before the
+ * iteration, so the score is the time of Corpus.batch documents.
+ *
+ * @author Soumya Batra
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = Corpus.batch)
+@Measurement(iterations = 10, batchSize = Corpus.batch)
+@Fork(1)
+public class QAAnnotatorBenchmark {
+
+  @Param({ "10", "100", "1000" })
+  int answersPerQuestion;
+
+  @Param({ "5", "20" })
+  int tokensPerAnswer;
+
+  String text;
+
+  // One CAS per operation of an iteration
+  JCas[] cases;
+
+  int next;
+
+  QAAnnotator annotator;
+
+  @Setup(Level.Trial)
+  public void buildCorpus(BenchmarkParams params) throws Exception {
+    text = Corpus.document(answersPerQuestion, tokensPerAnswer, answersPerQuestion / 2, 42L);
+    cases = Corpus.newJCases(Math.max(params.getWarmup().getBatchSize(), params.getMeasurement()
+            .getBatchSize()));
+    annotator = Corpus.initialize(new QAAnnotator(),
+            "/analysisEngineDescriptors/qa_annotator.xml");
+  }
+
+  // Every operation must start from a CAS holding only the document text
+  @Setup(Level.Iteration)
+  public void resetCases() {
+    for (JCas jcas : cases) {
+      jcas.reset();
+      jcas.setDocumentText(text);
+    }
+    next = 0;
+  }
+
+  @Benchmark
+  public JCas makeAnnotations() {
+    JCas jcas = cases[next++];
+    annotator.jcas = jcas;
+    annotator.input = text;
+    annotator.makeAnnotations();
+    return jcas;
+  }
+}
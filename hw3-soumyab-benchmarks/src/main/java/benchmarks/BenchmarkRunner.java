@@ -0,0 +1,34 @@
+/**
+ * Entry point of the benchmarks jar
+ */
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler always attached, so that every result reports the
+ * allocation rate (gc.alloc.rate.norm) next to the score. Any standard JMH command line
+ * option can still be given, e.g. <code>java -jar target/benchmarks.jar NGram -p
+ * answersPerQuestion=1000</code>.
+ * 
+ * @author Soumya Batra
+ *
+ */
+public class BenchmarkRunner {
+
+  // Runs every benchmark of the module when no pattern is given
+  private static final String allBenchmarks = "(annotators|cpeFiles)\\..*Benchmark";
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cmd = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd).addProfiler(
+            GCProfiler.class);
+    if (cmd.getIncludes().isEmpty())
+      options.include(allBenchmarks);
+    new Runner(options.build()).run();
+  }
+}
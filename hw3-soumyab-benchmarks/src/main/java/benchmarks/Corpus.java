@@ -0,0 +1,159 @@
+/**
+ * Builds the synthetic documents and JCases that the benchmarks run against
+ */
+package benchmarks;
+
+import java.net.URL;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.UimaContextAdmin;
+import org.apache.uima.analysis_component.AnalysisComponent;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ConfigurationManager;
+import org.apache.uima.resource.ResourceManager;
+import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
+import org.apache.uima.resource.metadata.FsIndexCollection;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.XMLInputSource;
+import org.cleartk.ne.type.NamedEntityMention;
+
+/**
+ * @author Soumya Batra
+ *
+ */
+public final class Corpus {
+
+  /**
+   * Documents of one measured operation of the benchmarks that add to the CAS. Each of them gets
+   * a fresh CAS, prepared before the iteration starts.
+   */
+  public static final int batch = 50;
+
+  // Type system holding our types plus the named entity and source document types
+  private static final String typeSystem = "/benchmarks/benchmark_types.xml";
+
+  // Keyed NGram and AnswerScore indexes the annotators and CASEvaluator look up
+  private static final String indexes = "/analysisEngineDescriptors/deiis_indexes.xml";
+
+  // Capitalized words are picked up as named entities by addNamedEntities
+  private static final String[] names = { "Booth", "Lincoln", "Grant", "Lee", "Davis", "Sherman",
+      "Washington", "Richmond", "Gettysburg", "Appomattox" };
+
+  private static final String[] words = { "shot", "was", "by", "assassinated", "the", "in",
+      "theatre", "president", "general", "surrendered", "to", "at", "army", "city", "captured",
+      "war", "battle", "won", "lost", "of" };
+
+  // Named entities are single capitalized words, the same shape CASEvaluator keeps
+  private static final Pattern entity = Pattern.compile("\\b[A-Z][a-z]+\\b");
+
+  private Corpus() {
+  }
+
+  /**
+   * Builds a document in the Q / A 0|1 input format. The first <code>goldAnswers</code> answers
+   * are marked correct, every answer has <code>tokensPerAnswer</code> words drawn from a fixed
+   * vocabulary, and the same seed always gives the same text.
+   */
+  public static String document(int answersPerQuestion, int tokensPerAnswer, int goldAnswers,
+          long seed) {
+    Random random = new Random(seed);
+    StringBuilder doc = new StringBuilder();
+
+    doc.append("Q ");
+    appendSentence(doc, random, Math.max(3, tokensPerAnswer / 2));
+    doc.append("?\n");
+
+    for (int i = 0; i < answersPerQuestion; i++) {
+      doc.append("A ").append(i < goldAnswers ? '1' : '0').append(' ');
+      appendSentence(doc, random, tokensPerAnswer);
+      doc.append(".\n");
+    }
+    return doc.toString();
+  }
+
+  // Alternates names and plain words so that every answer carries a few entities
+  private static void appendSentence(StringBuilder doc, Random random, int tokens) {
+    for (int i = 0; i < tokens; i++) {
+      if (i > 0)
+        doc.append(' ');
+      if (i % 3 == 0)
+        doc.append(names[random.nextInt(names.length)]);
+      else
+        doc.append(words[random.nextInt(words.length)]);
+    }
+  }
+
+  /**
+   * Creates an empty JCas over the full pipeline type system and indexes.
+   */
+  public static JCas newJCas() throws Exception {
+    URL url = Corpus.class.getResource(typeSystem);
+    TypeSystemDescription tsd = UIMAFramework.getXMLParser().parseTypeSystemDescription(
+            new XMLInputSource(url));
+    tsd.resolveImports();
+    FsIndexCollection fsIndexes = UIMAFramework.getXMLParser().parseFsIndexCollection(
+            new XMLInputSource(Corpus.class.getResource(indexes)));
+    fsIndexes.resolveImports();
+    CAS cas = CasCreationUtils.createCas(tsd, null, fsIndexes.getFsIndexes());
+    return cas.getJCas();
+  }
+
+  /**
+   * Creates <code>n</code> empty JCases, see {@link #newJCas()}.
+   */
+  public static JCas[] newJCases(int n) throws Exception {
+    JCas[] cases = new JCas[n];
+    for (int i = 0; i < n; i++) {
+      cases[i] = newJCas();
+    }
+    return cases;
+  }
+
+  /**
+   * Initializes an annotator made with <code>new</code> through a UimaContext built from its
+   * descriptor, the way the framework would, so that it sees the parameter settings of the
+   * descriptor and resolves its optional resources. <code>settings</code> are parameter name and
+   * value pairs that replace those of the descriptor.
+   */
+  public static <T extends AnalysisComponent> T initialize(T annotator, String descriptor,
+          Object... settings) throws Exception {
+    AnalysisEngineDescription desc = UIMAFramework.getXMLParser().parseAnalysisEngineDescription(
+            new XMLInputSource(Corpus.class.getResource(descriptor)));
+    ConfigurationParameterSettings parameters = desc.getMetaData()
+            .getConfigurationParameterSettings();
+    for (int i = 0; i + 1 < settings.length; i += 2) {
+      parameters.setParameterValue((String) settings[i], settings[i + 1]);
+    }
+
+    ResourceManager resources = UIMAFramework.newDefaultResourceManager();
+    ConfigurationManager configuration = UIMAFramework.newConfigurationManager();
+    UimaContextAdmin context = UIMAFramework.newUimaContext(UIMAFramework.getLogger(), resources,
+            configuration);
+    configuration.setSession(context.getSession());
+    configuration.createContext(context.getQualifiedContextName(), desc.getMetaData());
+    resources.initializeExternalResources(desc.getResourceManagerConfiguration(),
+            context.getQualifiedContextName(), null);
+    resources.resolveAndValidateResourceDependencies(desc.getExternalResourceDependencies(),
+            context.getQualifiedContextName());
+
+    annotator.initialize(context);
+    return annotator;
+  }
+
+  /**
+   * Stands in for the remote Stanford CoreNLP service by marking every capitalized word as a
+   * named entity mention.
+   */
+  public static void addNamedEntities(JCas jcas) {
+    Matcher m = entity.matcher(jcas.getDocumentText());
+    while (m.find()) {
+      new NamedEntityMention(jcas, m.start(), m.end()).addToIndexes();
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Measures ranking of the scored answers, including the named entity distance pass
+ */
+package cpeFiles;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.collection.CasConsumerDescription;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.util.XMLInputSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import annotators.GoldAnswerToNGram;
+import annotators.NGramAnnotator;
+import annotators.QAAnnotator;
+import benchmarks.Corpus;
+
+/**
+ * Each operation ranks one of a batch of documents whose CASes are scored before the iteration,
+ * so the score is the time of Corpus.batch documents.
+ *
+ * @author Soumya Batra
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = Corpus.batch)
+@Measurement(iterations = 10, batchSize = Corpus.batch)
+@Fork(1)
+public class CASEvaluatorBenchmark {
+
+  @Param({ "10", "100", "1000" })
+  int answersPerQuestion;
+
+  @Param({ "5", "20" })
+  int tokensPerAnswer;
+
+  @Param({ "1", "10" })
+  int goldAnswers;
+
+  String text;
+
+  // One CAS per operation of an iteration
+  JCas[] cases;
+
+  int next;
+
+  File outputDir;
+
+  File outputFile;
+
+  QAAnnotator qaAnnotator;
+
+  GoldAnswerToNGram goldAnnotator;
+
+  NGramAnnotator ngramAnnotator;
+
+  CASEvaluator evaluator;
+
+  @Setup(Level.Trial)
+  public void buildCorpus(BenchmarkParams params) throws Exception {
+    text = Corpus.document(answersPerQuestion, tokensPerAnswer, goldAnswers, 42L);
+    cases = Corpus.newJCases(Math.max(params.getWarmup().getBatchSize(), params.getMeasurement()
+            .getBatchSize()));
+    qaAnnotator = Corpus.initialize(new QAAnnotator(),
+            "/analysisEngineDescriptors/qa_annotator.xml");
+    goldAnnotator = Corpus.initialize(new GoldAnswerToNGram(),
+            "/analysisEngineDescriptors/gold_pipeline.xml");
+    ngramAnnotator = Corpus.initialize(new NGramAnnotator(),
+            "/analysisEngineDescriptors/ngram_annotator.xml");
+
+    outputDir = File.createTempFile("hw3-soumyab-bench", "");
+    outputDir.delete();
+    outputDir.mkdirs();
+    outputFile = new File(outputDir, "q000.txt");
+
+    // The consumer is built from its own descriptor so that initialize() sees its parameters
+    CasConsumerDescription desc = UIMAFramework.getXMLParser().parseCasConsumerDescription(
+            new XMLInputSource(getClass().getResource(
+                    "/cpeDescriptors/casConsumerDescriptor.xml")));
+    desc.getMetaData().getConfigurationParameterSettings()
+            .setParameterValue(CASEvaluator.PARAM_OUTPUTDIR, outputDir.getAbsolutePath());
+    evaluator = (CASEvaluator) UIMAFramework.produceCasConsumer(desc);
+  }
+
+  // rankAndWrite adds to the AnswerScores in place, so every operation gets a freshly scored CAS
+  @Setup(Level.Iteration)
+  public void scoreCases() throws Exception {
+    for (JCas jcas : cases) {
+      jcas.reset();
+      jcas.setDocumentText(text);
+      qaAnnotator.process(jcas);
+      goldAnnotator.process(jcas);
+      ngramAnnotator.process(jcas);
+      Corpus.addNamedEntities(jcas);
+    }
+    next = 0;
+  }
+
+  @TearDown(Level.Trial)
+  public void removeOutput() {
+    outputFile.delete();
+    outputDir.delete();
+  }
+
+  @Benchmark
+  public File rankAndWrite() throws Exception {
+    evaluator.rankAndWrite(cases[next++], outputFile, null);
+    return outputFile;
+  }
+}
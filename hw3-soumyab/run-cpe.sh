@@ -0,0 +1,55 @@
+#!/bin/sh
+#
+# Runs a CPE headless through tools.CpeRunner, with an AppCDS archive of the UIMA framework and
+# project classes so that short jobs spend less of their time starting up.
+#
+#   ./run-cpe.sh [--cpe file] [--input dir] [--output dir] [--threads n]
+#
+# The first run packages the project, writes the dependency class path to target/classpath.txt
+# and trains the archive with one run over src/main/resources/inputData. The project is packaged
+# again whenever a file under src/ or the pom is newer than the jar, and the archive is trained
+# again whenever the project jar or the class path is newer than it. Needs JDK 11 or later for
+# the archive; older JVMs run without it. Set JAVA_OPTS for extra JVM options, NOCDS=1 to run
+# without the archive, e.g. to compare timings. Resolved descriptors and the NER service metadata
+# are cached in target/descriptor-cache.
+
+cd "$(dirname "$0")" || exit 1
+
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+CDS_DIR=target/cds
+ARCHIVE=$CDS_DIR/hw3-soumyab.jsa
+CLASSLIST=$CDS_DIR/classes.lst
+MAIN=tools.CpeRunner
+CACHE="--descriptor-cache target/descriptor-cache"
+
+# Packages again whenever a source, resource or the pom changed since the jar was built
+JAR=$(ls target/hw3-soumyab-*.jar 2>/dev/null | head -n 1)
+if [ -z "$JAR" ] || [ ! -f target/classpath.txt ] \
+    || [ -n "$(find src pom.xml -newer "$JAR" 2>/dev/null | head -n 1)" ]; then
+  mvn -q -B package dependency:build-classpath -Dmdep.outputFile=target/classpath.txt || exit 1
+  JAR=$(ls target/hw3-soumyab-*.jar | head -n 1)
+fi
+
+# Class data sharing only archives classes loaded from jar files, so the project jar is used
+# rather than target/classes
+CP=$JAR:$(cat target/classpath.txt)
+
+MAJOR=$("$JAVA" -version 2>&1 | sed -n 's/.*version "\([0-9]*\)\.\{0,1\}\([0-9]*\).*/\1 \2/p' \
+  | awk '{ print ($1 == 1) ? $2 : $1 }')
+if [ -n "$NOCDS" ] || [ "${MAJOR:-0}" -lt 11 ]; then
+  exec "$JAVA" $JAVA_OPTS -cp "$CP" $MAIN $CACHE "$@"
+fi
+
+if [ ! -f "$ARCHIVE" ] || [ "$JAR" -nt "$ARCHIVE" ] || [ target/classpath.txt -nt "$ARCHIVE" ]; then
+  echo "Training class data sharing archive $ARCHIVE" >&2
+  mkdir -p $CDS_DIR
+  rm -f "$ARCHIVE"
+  # The training run loads every class a normal run needs; its exit status does not matter
+  "$JAVA" -Xshare:off -XX:DumpLoadedClassList=$CLASSLIST -cp "$CP" $MAIN \
+    $CACHE --input src/main/resources/inputData --output $CDS_DIR/output >/dev/null 2>&1
+  "$JAVA" -Xshare:dump -XX:SharedClassListFile=$CLASSLIST -XX:SharedArchiveFile="$ARCHIVE" \
+    -cp "$CP" >/dev/null || echo "Archive dump failed, running without it" >&2
+fi
+
+# -Xshare:auto falls back to loading classes normally if the archive does not match the JVM
+exec "$JAVA" -Xshare:auto -XX:SharedArchiveFile="$ARCHIVE" $JAVA_OPTS -cp "$CP" $MAIN $CACHE "$@"
@@ -3,12 +3,12 @@
  */
 package annotators;
 
-import java.util.Comparator;
 import java.util.Iterator;
-import java.util.PriorityQueue;
 
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.text.AnnotationIndex;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
@@ -23,23 +23,6 @@ import edu.cmu.deiis.types.Question;
  */
 public class AnswerEvaluator extends JCasAnnotator_ImplBase {
 
-  // Comparator class that compares scores of two AnswerScore objects
-  class CompareScore implements Comparator<AnswerScore> {
-    public int compare(AnswerScore a1, AnswerScore a2) {
-      // Returns -1 if score of first object is greater than that of second object
-      if (a1.getScore() > a2.getScore())
-        return -1;
-      else
-        return 1;
-    }
-  }
-
-  // Comparator object
-  Comparator<AnswerScore> scoreComparator = new CompareScore();
-
-  // Priority Queue to hold sorted AnswerScore objects
-  PriorityQueue<AnswerScore> answers = new PriorityQueue<AnswerScore>(10, scoreComparator);
-
   // We define global precision and total number of test cases to determine average precision
   double precision = 0.0;
 
@@ -51,11 +34,14 @@ public class AnswerEvaluator extends JCasAnnotator_ImplBase {
 
     // Using output from previous annotators as input
     AnnotationIndex<Annotation> questionIndex = document.getAnnotationIndex(Question.type);
-    AnnotationIndex<Annotation> answerScoreIndex = document.getAnnotationIndex(AnswerScore.type);
+    FSIndex<FeatureStructure> answerScoreIndex = document.getFSIndexRepository().getIndex(
+            NGramAnnotator.SCORE_INDEX);
+    if (answerScoreIndex == null)
+      throw new AnalysisEngineProcessException(new IllegalStateException("No "
+              + NGramAnnotator.SCORE_INDEX + " index in the CAS, import deiis_indexes.xml"));
 
-    // Create an Iterators for Questions and Answer Scores in the document
+    // Create an Iterator for Questions in the document
     Iterator<Annotation> questionIter = questionIndex.iterator();
-    Iterator<Annotation> answerScoreIter = answerScoreIndex.iterator();
 
     // Question, Answer and AnswerScore objects
     Question q = (Question) questionIter.next();
@@ -70,21 +56,17 @@ public class AnswerEvaluator extends JCasAnnotator_ImplBase {
     // Get document text as a String
     String input = document.getDocumentText();
 
-    // Iterating over all answers and assigning each to Priority Queue
-    while (answerScoreIter.hasNext()) {
-      as = (AnswerScore) answerScoreIter.next();
-      answers.add(as);
-      if (as.getAnswer().getIsCorrect())
+    // Counting the correct answers
+    for (FeatureStructure fs : answerScoreIndex) {
+      if (((AnswerScore) fs).getAnswer().getIsCorrect())
         // Total number of correct answers
         totCorrect++;
     }
 
-    // Setting Answer object as null so as to reuse it
-    as = null;
-
-    // Displaying required output to Console
+    // Displaying required output to Console, the index holds the answers by decreasing score
     System.out.println("Question:" + " " + input.substring(q.getBegin(), q.getEnd()));
-    while ((as = answers.poll()) != null) {
+    for (FeatureStructure fs : answerScoreIndex) {
+      as = (AnswerScore) fs;
       i++;
       a = as.getAnswer();
       if (a.getIsCorrect()) {
@@ -0,0 +1,72 @@
+/**
+ * Raw per order NGram overlaps of the answers of a question, the inputs of the n-gram score
+ */
+package annotators;
+
+/**
+ * NGramAnnotator folds the overlaps of an answer into one number, the sum over orders j of j *
+ * matched / total. This class keeps them apart, so that the order weights can be tuned offline
+ * without running the pipeline again. The question NGrams, plus the gold NGrams of the gold
+ * index or, with <code>gold</code>, of the correct answers, come from {@link ReferenceNGrams}, as
+ * in {@link ChunkedRanker}. Answers are scored together through an {@link InvertedScorer}.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class AnswerFeatures {
+
+  /**
+   * Number of NGram orders, and of matched and of total values per answer.
+   */
+  public static final int ORDERS = NGramHash.MAX_ORDER;
+
+  private final InvertedScorer scorer;
+
+  // Question and gold NGrams of the current question
+  private final ReferenceNGrams reference;
+
+  /**
+   * @param goldIndex
+   *          precompiled gold NGrams, used instead of those of addCorrect for the questions it
+   *          holds with the same correct answers; null for none
+   * @param idfTable
+   *          document frequencies weighting the NGrams, null for unit weights
+   */
+  public AnswerFeatures(GoldNGramIndex goldIndex, IdfTable idfTable) {
+    this.scorer = new InvertedScorer(idfTable);
+    this.reference = new ReferenceNGrams(goldIndex);
+  }
+
+  /**
+   * Starts a new question. Its NGrams are matched by every answer.
+   */
+  public void setQuestion(String question) {
+    scorer.clear();
+    reference.setQuestion(NGramHash.foldedTokens(question));
+  }
+
+  /**
+   * Adds the NGrams of a correct answer to the gold NGrams, unless the gold index holds the
+   * question with these correct answers or <code>gold</code> is false, as when GoldAnswerToNGram
+   * does not run. Correct answers are taken until overlaps is called.
+   */
+  public void addCorrect(String answer, boolean gold) {
+    reference.addCorrect(NGramHash.foldedTokens(answer), gold);
+  }
+
+  /**
+   * Adds the next answer of the question.
+   */
+  public void add(String answer) {
+    scorer.addAnswer(NGramHash.foldedTokens(answer));
+  }
+
+  /**
+   * Overlaps of the answers added since setQuestion, in the order they were added: for answer a,
+   * the matched NGram weight of order j at 2 * a * ORDERS + j - 1 and the total at (2 * a + 1) *
+   * ORDERS + j - 1. An order without any question or gold NGram counts as fully matched.
+   */
+  public double[] overlaps() {
+    return scorer.overlaps(reference.hashes(), reference.orders());
+  }
+}
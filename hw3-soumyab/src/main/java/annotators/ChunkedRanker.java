@@ -0,0 +1,202 @@
+/**
+ * Ranks the answers of one question in fixed size chunks, keeping only the best k in memory
+ */
+package annotators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The CAS of a document holds its whole text and a Token, NGram and AnswerScore annotation for
+ * every answer, so a question with millions of answers does not fit in the heap. This ranker gives
+ * the scores NGramAnnotator computes, ranked as CASEvaluator ranks them, without a CAS: the
+ * question and gold NGrams are fixed first ({@link ReferenceNGrams}), then the answers are added
+ * one at a time and scored through an {@link InvertedScorer} every <code>chunkSize</code> answers.
+ * Only the chunk being filled and the best answers so far are kept, so memory does not grow with
+ * the number of answers, only with the number of correct ones.
+ * <p>
+ * Usage, for every question: {@link #setQuestion}, then {@link #addCorrect} for every correct
+ * answer, then {@link #add} for every answer in document order, then {@link #finish}. The correct
+ * answers come first because they make the gold NGrams every answer is scored against, and
+ * because the ranks up to their number decide the precision and are always kept, as in the top-k
+ * mode of NGramAnnotator. Named entities are not used, as for degraded documents.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ChunkedRanker {
+
+  /**
+   * One answer of the ranking.
+   */
+  public static final class Ranked {
+    public final String text;
+
+    public final double score;
+
+    public final boolean correct;
+
+    // Position of the answer in the document, the last tie breaker
+    final long position;
+
+    Ranked(String text, double score, boolean correct, long position) {
+      this.text = text;
+      this.score = score;
+      this.correct = correct;
+      this.position = position;
+    }
+  }
+
+  // Number of first ranks kept besides those of the correct answers
+  private final int topK;
+
+  private final int chunkSize;
+
+  // Scores a chunk at a time, its arrays are reused from chunk to chunk
+  private final InvertedScorer scorer;
+
+  // Question NGrams and the gold NGrams of addCorrect, or of the gold index
+  private final ReferenceNGrams reference;
+
+  // Answers of the chunk being filled
+  private final ArrayList<String> chunk = new ArrayList<String>();
+
+  private final ArrayList<Boolean> chunkCorrect = new ArrayList<Boolean>();
+
+  // Best answers so far, worst first
+  private final PriorityQueue<Ranked> best = new PriorityQueue<Ranked>(64, worstFirst());
+
+  private int correct = 0;
+
+  private long answers = 0;
+
+  // Answers and chunks scored over all questions
+  long totalAnswers = 0;
+
+  long totalChunks = 0;
+
+  /**
+   * @param goldIndex
+   *          precompiled gold NGrams, used instead of those of addCorrect for the questions it
+   *          holds with the same correct answers; null for none
+   * @param idfTable
+   *          document frequencies weighting the NGrams, null for unit weights
+   */
+  public ChunkedRanker(GoldNGramIndex goldIndex, IdfTable idfTable, int topK, int chunkSize) {
+    this.topK = Math.max(1, topK);
+    this.chunkSize = Math.max(1, chunkSize);
+    this.scorer = new InvertedScorer(idfTable);
+    this.reference = new ReferenceNGrams(goldIndex);
+  }
+
+  /**
+   * Starts a new question. Its NGrams are matched by every answer.
+   */
+  public void setQuestion(String question) {
+    chunk.clear();
+    chunkCorrect.clear();
+    best.clear();
+    correct = 0;
+    answers = 0;
+    reference.setQuestion(NGramHash.foldedTokens(question));
+  }
+
+  /**
+   * Counts a correct answer and, unless the gold index holds the question with these correct
+   * answers, adds its NGrams to the gold NGrams. With <code>gold</code> false only the count is
+   * taken, as when GoldAnswerToNGram does not run. Correct answers are taken until the first chunk
+   * of the question is scored.
+   */
+  public void addCorrect(String answer, boolean gold) {
+    if (answer.trim().length() == 0)
+      return;
+    correct++;
+    reference.addCorrect(NGramHash.foldedTokens(answer), gold);
+  }
+
+  /**
+   * Adds the next answer of the question; every chunkSize answers the chunk is scored.
+   */
+  public void add(String answer, boolean isCorrect) {
+    // Empty answers are never scored
+    if (answer.trim().length() == 0)
+      return;
+    chunk.add(answer);
+    chunkCorrect.add(isCorrect);
+    if (chunk.size() >= chunkSize)
+      scoreChunk();
+  }
+
+  /**
+   * Scores the last chunk and returns the best max(k, correct answers) answers of the question in
+   * CASEvaluator order: by decreasing score, correct answers first among equal scores.
+   */
+  public List<Ranked> finish() {
+    scoreChunk();
+    List<Ranked> ranked = new ArrayList<Ranked>(best);
+    Collections.sort(ranked, Collections.reverseOrder(worstFirst()));
+    best.clear();
+    return ranked;
+  }
+
+  /**
+   * Number of correct answers of the question, the ranks the precision is taken at.
+   */
+  public int getCorrect() {
+    return correct;
+  }
+
+  /**
+   * Number of non-empty answers of the question.
+   */
+  public long getAnswers() {
+    return answers;
+  }
+
+  public String report() {
+    return String.format("Chunked ranking: %d answers in %d chunks of up to %d, top %d kept",
+            totalAnswers, totalChunks, chunkSize, topK);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private void scoreChunk() {
+    if (chunk.isEmpty())
+      return;
+    scorer.clear();
+    for (String answer : chunk) {
+      scorer.addAnswer(NGramHash.foldedTokens(answer));
+    }
+    double[] scores = scorer.score(reference.hashes(), reference.orders());
+
+    int k = Math.max(topK, correct);
+    for (int a = 0; a < scores.length; a++) {
+      double exact = Math.round(scores[a] / 6 * 100) / 100.0d;
+      best.add(new Ranked(chunk.get(a), exact, chunkCorrect.get(a), answers++));
+      if (best.size() > k)
+        best.poll();
+    }
+    totalAnswers += scores.length;
+    totalChunks++;
+    chunk.clear();
+    chunkCorrect.clear();
+  }
+
+  // Lower score first, then incorrect before correct, then later in the document first
+  private static Comparator<Ranked> worstFirst() {
+    return new Comparator<Ranked>() {
+      public int compare(Ranked a, Ranked b) {
+        if (a.score != b.score)
+          return Double.compare(a.score, b.score);
+        if (a.correct != b.correct)
+          return a.correct ? 1 : -1;
+        return (a.position > b.position) ? -1 : ((a.position < b.position) ? 1 : 0);
+      }
+    };
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Count-min sketch of NGram hashes kept in a ByteBuffer, on or off heap
+ */
+package annotators;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed size frequency table: memory is depth * width * 4 bytes no matter how many distinct
+ * NGrams are added, and estimates never undercount. Rows are addressed by double hashing of the
+ * two halves of the 64 bit NGram hash. Not thread safe for writes.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class CountMinSketch {
+
+  private final ByteBuffer counters;
+
+  // Byte position of the first counter in the buffer
+  private final int start;
+
+  private final int depth;
+
+  // Power of two, so that the column is a mask of the hash
+  private final int width;
+
+  /**
+   * A new, zeroed sketch in a direct (off heap) buffer.
+   */
+  public CountMinSketch(int depth, int width) {
+    this(ByteBuffer.allocateDirect(depth * width * 4), 0, depth, width);
+  }
+
+  /**
+   * A sketch over existing counters, e.g. a memory mapped file.
+   */
+  public CountMinSketch(ByteBuffer counters, int start, int depth, int width) {
+    if (Integer.bitCount(width) != 1)
+      throw new IllegalArgumentException("Width must be a power of two: " + width);
+    this.counters = counters;
+    this.start = start;
+    this.depth = depth;
+    this.width = width;
+  }
+
+  private int position(long hash, int row) {
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32) | 1;
+    return start + 4 * (row * width + ((h1 + row * h2) & (width - 1)));
+  }
+
+  public void add(long hash) {
+    for (int row = 0; row < depth; row++) {
+      int pos = position(hash, row);
+      counters.putInt(pos, counters.getInt(pos) + 1);
+    }
+  }
+
+  public int estimate(long hash) {
+    int min = Integer.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      min = Math.min(min, counters.getInt(position(hash, row)));
+    }
+    return min;
+  }
+
+  /**
+   * Adds the counters of a sketch of the same shape.
+   */
+  public void merge(CountMinSketch other) {
+    if ((other.depth != depth) || (other.width != width))
+      throw new IllegalArgumentException("Sketches differ in shape");
+    int n = depth * width;
+    for (int i = 0; i < n; i++) {
+      int pos = start + 4 * i;
+      counters.putInt(pos, counters.getInt(pos) + other.counters.getInt(other.start + 4 * i));
+    }
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  // Raw counters, row after row
+  ByteBuffer counters() {
+    return counters;
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Reads and updates the scoring deadline a document carries through the pipeline
+ */
+package annotators;
+
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import edu.cmu.deiis.types.ScoringDeadline;
+
+/**
+ * A document gets a ScoringDeadline annotation from DeadlineAnnotator, or from tools.ScoringDaemon
+ * with <code>--budget-millis</code>. The deadline is wall clock time, so it holds in remote
+ * services too. NGramAnnotator and CASEvaluator check it between answers and stop when it has
+ * passed: answers NGramAnnotator did not reach get no AnswerScore, and answers CASEvaluator did not
+ * reach keep their n-gram score without the named entity score. The annotation records that the
+ * ranking is partial and how many answers were scored. Documents without the annotation have no
+ * deadline.
+ *
+ * @author Soumya Batra
+ *
+ */
+public final class Deadline {
+
+  // Name of the annotator that sets deadlines
+  private static final String annotator = "DeadlineAnnotator";
+
+  private Deadline() {
+  }
+
+  /**
+   * Gives the document a deadline budgetMillis from now, unless it has one already.
+   */
+  public static void start(JCas jcas, long budgetMillis) {
+    if (get(jcas) != null)
+      return;
+    ScoringDeadline deadline = new ScoringDeadline(jcas, 0, jcas.getDocumentText().length());
+    deadline.setExpiresAt(System.currentTimeMillis() + budgetMillis);
+    deadline.setCasProcessorId(annotator);
+    deadline.setConfidence(1.0);
+    deadline.addToIndexes();
+  }
+
+  /**
+   * The deadline of the document, null if it has none.
+   */
+  public static ScoringDeadline get(JCas jcas) {
+    FSIterator<Annotation> it = jcas.getAnnotationIndex(ScoringDeadline.type).iterator();
+    return it.hasNext() ? (ScoringDeadline) it.next() : null;
+  }
+
+  /**
+   * System.currentTimeMillis() at which scoring of the document stops, Long.MAX_VALUE if never.
+   */
+  public static long expiresAt(JCas jcas) {
+    ScoringDeadline deadline = get(jcas);
+    return (deadline != null) ? deadline.getExpiresAt() : Long.MAX_VALUE;
+  }
+
+  /**
+   * Whether the deadline of the document has passed.
+   */
+  public static boolean hasExpired(JCas jcas) {
+    return System.currentTimeMillis() >= expiresAt(jcas);
+  }
+
+  /**
+   * Whether NGramAnnotator stopped before every answer was scored.
+   */
+  public static boolean isPartial(JCas jcas) {
+    ScoringDeadline deadline = get(jcas);
+    return (deadline != null) && deadline.getExpired();
+  }
+
+  // Records that scoring stopped at the deadline after the given number of answers
+  static void expire(JCas jcas, int scoredAnswers) {
+    ScoringDeadline deadline = get(jcas);
+    if (deadline != null) {
+      deadline.setExpired(true);
+      deadline.setScoredAnswers(scoredAnswers);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * Gives every document a deadline for its scoring
+ */
+package annotators;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+
+/**
+ * First CAS processor of hw3-soumyab-deadline-CPE.xml. Each document gets <code>BudgetMillis</code>
+ * from the moment it reaches this annotator; the NER client, NGramAnnotator and CASEvaluator stop
+ * when it runs out and leave a partial ranking instead of running into the CPE timeout. See
+ * {@link Deadline}.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class DeadlineAnnotator extends JCasAnnotator_ImplBase {
+
+  /**
+   * Milliseconds every document has for the rest of the pipeline.
+   */
+  public static final String PARAM_BUDGET_MILLIS = "BudgetMillis";
+
+  // Value of the BudgetMillis parameter
+  int budgetMillis = 1000;
+
+  @Override
+  public void initialize(UimaContext aContext) throws ResourceInitializationException {
+    super.initialize(aContext);
+    Integer budget = (Integer) aContext.getConfigParameterValue(PARAM_BUDGET_MILLIS);
+    if (budget != null)
+      budgetMillis = budget;
+  }
+
+  @Override
+  public void process(JCas jcas) throws AnalysisEngineProcessException {
+    // The ranking of an unchanged document comes from the result store
+    if (Replay.isReplayed(jcas))
+      return;
+    Deadline.start(jcas, budgetMillis);
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Annotates Questions and Answers and scores the Answers in a single pass over the document
+ */
+package annotators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+
+import edu.cmu.deiis.types.Answer;
+import edu.cmu.deiis.types.Question;
+import edu.cmu.deiis.types.Token;
+
+/**
+ * Drop-in replacement of hw2-soumyab-aae, the QAAnnotator and NGramAnnotator chain, in one
+ * primitive. The sentences are split once and the answers are handed straight to the NGram
+ * scoring instead of being read back from the annotation indexes, and with
+ * <code>GoldAnswers</code> the gold NGrams of GoldAnswerToNGram are made in the same pass, from
+ * tokens that are then reused when the correct answers are scored. The CAS ends up with the same
+ * Question, Answer, Token, NGram and AnswerScore annotations as after the chain, and all
+ * parameters and resources of ngram_annotator apply unchanged.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class FusedQAAnnotator extends NGramAnnotator {
+
+  /**
+   * Whether the NGrams of the correct answers are searched as well, as when GoldAnswerToNGram
+   * runs between the two annotators of the chain.
+   */
+  public static final String PARAM_GOLD_ANSWERS = "GoldAnswers";
+
+  // Value of the GoldAnswers parameter
+  boolean goldAnswers = false;
+
+  // Makes the gold NGrams exactly as GoldAnswerToNGram does
+  GoldAnswerToNGram gold = new GoldAnswerToNGram();
+
+  // Token offsets of the correct answers by answer begin, found while making the gold NGrams
+  HashMap<Integer, int[]> answerOffsets = new HashMap<Integer, int[]>();
+
+  @Override
+  public void initialize(UimaContext aContext) throws ResourceInitializationException {
+    super.initialize(aContext);
+    goldAnswers = Boolean.TRUE.equals(aContext.getConfigParameterValue(PARAM_GOLD_ANSWERS));
+    gold.goldIndex = goldIndex;
+  }
+
+  @Override
+  public void process(JCas document) throws AnalysisEngineProcessException {
+
+    // The annotations of an unchanged document come from the result store
+    if (Replay.isReplayed(document))
+      return;
+
+    // Assigning variables
+    jcas = document;
+    input = jcas.getDocumentText();
+    answerOffsets.clear();
+
+    // Question and Answer annotations of QAAnnotator, kept in document order
+    Question ques = null;
+    ArrayList<Answer> answers = new ArrayList<Answer>();
+    for (QASentence sentence : QASentence.split(input)) {
+      if (sentence.isQuestion) {
+        Question q = (Question) QAAnnotator.questionAnnotationMaker.newAnnotation(jcas,
+                sentence.begin, sentence.end);
+        q.addToIndexes();
+        if (ques == null)
+          ques = q;
+      } else {
+        Answer ans = (Answer) QAAnnotator.answerAnnotationMaker.newAnnotation(jcas,
+                sentence.begin, sentence.end);
+        ans.setIsCorrect(sentence.isCorrect);
+        ans.addToIndexes();
+        answers.add(ans);
+      }
+    }
+
+    if (goldAnswers)
+      makeGoldNGrams(ques, answers);
+
+    // The gold NGrams are in the NGram index, the question NGrams join them in scoreAnswers
+    openNGramIndex();
+    if (ques != null)
+      scoreAnswers(ques, answers);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Makes the NGrams of the correct answers unless the gold index holds those of the question
+  void makeGoldNGrams(Question ques, ArrayList<Answer> answers) {
+    if ((goldIndex != null) && (ques != null)
+            && goldIndex.containsQuestion(goldKey(input, ques, answers)))
+      return;
+
+    gold.jcas = jcas;
+    for (Answer ans : answers) {
+      int begin = ans.getBegin(), end = ans.getEnd();
+      if (!ans.getIsCorrect() || (begin >= end))
+        continue;
+      int[] offsets = NGramHash.tokenOffsets(input.substring(begin, end));
+      Token[] toks = new Token[offsets.length / 2];
+      for (int i = 0; i < toks.length; i++) {
+        toks[i] = GoldAnswerToNGram.tokenAnnotationMaker(jcas, begin + offsets[2 * i], begin
+                + offsets[2 * i + 1]);
+      }
+      gold.makeNGrams(toks, 3);
+      answerOffsets.put(begin, offsets);
+    }
+  }
+
+  // Tokens of a correct answer are annotated from the offsets found for its gold NGrams
+  @Override
+  Token[] tokenize(String input, int begin) {
+    int[] offsets = answerOffsets.remove(begin);
+    if (offsets == null)
+      return super.tokenize(input, begin);
+
+    Token[] toks = new Token[offsets.length / 2];
+    for (int i = 0; i < toks.length; i++) {
+      toks[i] = tokenAnnotationMaker(jcas, begin + offsets[2 * i], begin + offsets[2 * i + 1]);
+      toks[i].addToIndexes();
+    }
+    return toks;
+  }
+}
@@ -10,15 +10,19 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Locale;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
 import org.apache.uima.cas.text.AnnotationIndex;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.cas.FSArray;
 import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceAccessException;
+import org.apache.uima.resource.ResourceInitializationException;
 
 import edu.cmu.deiis.types.Answer;
 import edu.cmu.deiis.types.NGram;
+import edu.cmu.deiis.types.Question;
 import edu.cmu.deiis.types.Token;
 
 /**
@@ -36,12 +40,15 @@ public class GoldAnswerToNGram extends JCasAnnotator_ImplBase {
   // Name of the current annotator
   private static final String elementType = "Token";
 
-  // Break Iterator at every word
-  private static final BreakIterator wordBreak = BreakIterator.getWordInstance(Locale.US);
+  // Break Iterator at every word; BreakIterator is not thread safe, so each instance has its own
+  private final BreakIterator wordBreak = BreakIterator.getWordInstance(Locale.US);
 
   // CAS object
   JCas jcas;
 
+  // Precompiled gold answer NGrams, null when the optional resource is not bound
+  GoldNGramIndex goldIndex;
+
   // Annotates Tokens
   static final Token tokenAnnotationMaker(JCas jcas, int start, int end) {
     Token newToken = new Token(jcas, start, end);
@@ -50,10 +57,24 @@ public class GoldAnswerToNGram extends JCasAnnotator_ImplBase {
     return newToken;
   }
 
+  @Override
+  public void initialize(UimaContext aContext) throws ResourceInitializationException {
+    super.initialize(aContext);
+    try {
+      goldIndex = (GoldNGramIndex) aContext.getResourceObject(GoldNGramIndex.RESOURCE_KEY);
+    } catch (ResourceAccessException e) {
+      throw new ResourceInitializationException(e);
+    }
+  }
+
   @Override
   // annotates NGrams of Gold Answers to include in the list of valid NGrams
   public void process(JCas document) throws AnalysisEngineProcessException {
 
+    // The ranking of an unchanged document comes from the result store
+    if (Replay.isReplayed(document))
+      return;
+
     // Gets document in a CAS object
     jcas = document;
     // Gets document text in a String
@@ -61,6 +82,18 @@ public class GoldAnswerToNGram extends JCasAnnotator_ImplBase {
     // Begin and End indices of an Annotation
     int begin, end;
 
+    // Nothing to do when the gold NGrams of this question were compiled offline, NGramAnnotator
+    // reads them from the same index
+    if (goldIndex != null) {
+      Iterator<Annotation> questionIter = document.getAnnotationIndex(Question.type).iterator();
+      if (questionIter.hasNext()) {
+        Question ques = (Question) questionIter.next();
+        if (goldIndex.containsQuestion(NGramAnnotator.goldKey(input, ques, document
+                .getAnnotationIndex(Answer.type))))
+          return;
+      }
+    }
+
     // Using output from previous annotator as input
     AnnotationIndex<Annotation> answerIndex = document.getAnnotationIndex(Answer.type);
 
@@ -137,6 +170,8 @@ public class GoldAnswerToNGram extends JCasAnnotator_ImplBase {
     NGram ngram = new NGram(jcas, tok[0].getBegin(), tok[length - 1].getEnd());
     ngram.setElements(v);
     ngram.setElementType(elementType);
+    ngram.setHash(NGramHash.hash(jcas.getDocumentText(), tok));
+    ngram.setOrder(length);
     ngram.setCasProcessorId(this.getClass().getName());
     ngram.setConfidence(confidence);
 
@@ -0,0 +1,46 @@
+/**
+ * Shared resource holding the NGrams of the gold answers of every known question
+ */
+package annotators;
+
+/**
+ * Gold answer NGrams compiled offline by tools.GoldIndexBuilder. NGrams are identified by their
+ * {@link NGramHash} values and questions by {@link NGramHash#goldKey}, which covers the question
+ * and its gold answers. A document whose gold answers differ from those the index was built from
+ * therefore finds nothing, and its gold NGrams are made from the CAS as without an index.
+ *
+ * @author Soumya Batra
+ *
+ */
+public interface GoldNGramIndex {
+
+  /**
+   * Key of the external resource dependency in gold_pipeline and ngram_annotator.
+   */
+  String RESOURCE_KEY = "GoldNGramIndex";
+
+  /**
+   * Whether the gold answers of the question were compiled into the index.
+   */
+  boolean containsQuestion(long goldKey);
+
+  /**
+   * Whether some gold answer of the question contains the NGram.
+   */
+  boolean contains(long goldKey, long ngramHash);
+
+  /**
+   * Distinct gold NGram hashes of the question in ascending order, empty if it is not indexed.
+   */
+  long[] hashes(long goldKey);
+
+  /**
+   * Number of gold NGrams of the given order (1 to NGramHash.MAX_ORDER) for the question.
+   */
+  int count(long goldKey, int order);
+
+  /**
+   * Number of questions in the index.
+   */
+  int size();
+}
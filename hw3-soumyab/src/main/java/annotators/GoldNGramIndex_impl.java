@@ -0,0 +1,188 @@
+/**
+ * Memory mapped implementation of the gold NGram index
+ */
+package annotators;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.SharedResourceObject;
+
+/**
+ * The index file is mapped read only, so lookups cost no heap and the file is shared by every
+ * annotator instance and thread. Layout (big endian):
+ * 
+ * <pre>
+ * header:    int magic, int version, int questions, int hashes
+ * questions: sorted by NGramHash.goldKey, 32 bytes each
+ *            long key, int offset, int length, int count1, int count2, int count3, int unused
+ * hashes:    long[hashes], sorted within the [offset, offset + length) range of each question
+ * </pre>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class GoldNGramIndex_impl implements GoldNGramIndex, SharedResourceObject {
+
+  // "H3GI"
+  static final int MAGIC = 0x48334749;
+
+  // Version 1 keyed the questions by their text only
+  static final int VERSION = 2;
+
+  private static final int headerBytes = 16;
+
+  private static final int entryBytes = 32;
+
+  private MappedByteBuffer buffer;
+
+  private int questions;
+
+  // Byte position of the first hash
+  private int hashesStart;
+
+  public void load(DataResource aData) throws ResourceInitializationException {
+    try {
+      map(new File(URLDecoder.decode(aData.getUrl().getPath(), "UTF-8")));
+    } catch (UnsupportedEncodingException e) {
+      throw new ResourceInitializationException(e);
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+  }
+
+  /**
+   * Maps an index file outside of UIMA, e.g. from the tools.
+   */
+  public void load(File file) throws IOException {
+    map(file);
+  }
+
+  private void map(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      // The mapping stays valid after the file is closed
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+    } finally {
+      raf.close();
+    }
+    if (buffer.getInt(0) != MAGIC)
+      throw new IOException("Not a gold NGram index: " + file);
+    if (buffer.getInt(4) != VERSION)
+      throw new IOException("Gold NGram index of version " + buffer.getInt(4) + ", expected "
+              + VERSION + ", rebuild it with GoldIndexBuilder: " + file);
+    questions = buffer.getInt(8);
+    hashesStart = headerBytes + questions * entryBytes;
+  }
+
+  // Byte position of the question entry, or -1
+  private int find(long goldKey) {
+    int lo = 0, hi = questions - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      long key = buffer.getLong(headerBytes + mid * entryBytes);
+      if (key < goldKey)
+        lo = mid + 1;
+      else if (key > goldKey)
+        hi = mid - 1;
+      else
+        return headerBytes + mid * entryBytes;
+    }
+    return -1;
+  }
+
+  public boolean containsQuestion(long goldKey) {
+    return find(goldKey) >= 0;
+  }
+
+  public boolean contains(long goldKey, long ngramHash) {
+    int entry = find(goldKey);
+    if (entry < 0)
+      return false;
+    int lo = buffer.getInt(entry + 8);
+    int hi = lo + buffer.getInt(entry + 12) - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      long hash = buffer.getLong(hashesStart + mid * 8);
+      if (hash < ngramHash)
+        lo = mid + 1;
+      else if (hash > ngramHash)
+        hi = mid - 1;
+      else
+        return true;
+    }
+    return false;
+  }
+
+  public long[] hashes(long goldKey) {
+    int entry = find(goldKey);
+    if (entry < 0)
+      return new long[0];
+    int offset = buffer.getInt(entry + 8);
+    long[] result = new long[buffer.getInt(entry + 12)];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = buffer.getLong(hashesStart + (offset + i) * 8);
+    }
+    return result;
+  }
+
+  public int count(long goldKey, int order) {
+    int entry = find(goldKey);
+    if ((entry < 0) || (order < 1) || (order > NGramHash.MAX_ORDER))
+      return 0;
+    return buffer.getInt(entry + 16 + 4 * (order - 1));
+  }
+
+  public int size() {
+    return questions;
+  }
+
+  /**
+   * Writes an index file. Every gold key maps to the sorted, distinct gold NGram hashes and to
+   * the number of gold NGrams of each order.
+   */
+  public static void write(File file, SortedMap<Long, long[]> hashes, Map<Long, int[]> counts)
+          throws IOException {
+    int total = 0;
+    for (long[] h : hashes.values()) {
+      total += h.length;
+    }
+
+    ByteBuffer out = ByteBuffer.allocate(headerBytes + hashes.size() * entryBytes + total * 8);
+    out.putInt(MAGIC).putInt(VERSION).putInt(hashes.size()).putInt(total);
+
+    int offset = 0;
+    for (Map.Entry<Long, long[]> q : hashes.entrySet()) {
+      int[] c = counts.get(q.getKey());
+      out.putLong(q.getKey()).putInt(offset).putInt(q.getValue().length);
+      for (int order = 1; order <= NGramHash.MAX_ORDER; order++) {
+        out.putInt(c[order - 1]);
+      }
+      out.putInt(0);
+      offset += q.getValue().length;
+    }
+    for (long[] h : hashes.values()) {
+      for (long v : h) {
+        out.putLong(v);
+      }
+    }
+
+    FileOutputStream fos = new FileOutputStream(file);
+    try {
+      fos.write(out.array());
+    } finally {
+      fos.close();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/**
+ * Shared resource giving corpus level inverse document frequencies of NGrams
+ */
+package annotators;
+
+/**
+ * Document frequencies of every NGram of a corpus, compiled offline by tools.IdfBuilder. Every
+ * question and every answer counts as one document.
+ *
+ * @author Soumya Batra
+ *
+ */
+public interface IdfTable {
+
+  /**
+   * Key of the external resource dependency in ngram_annotator.
+   */
+  String RESOURCE_KEY = "IdfTable";
+
+  /**
+   * Number of documents the table was built from.
+   */
+  long documents();
+
+  /**
+   * Estimated number of documents containing the NGram, never lower than the true count.
+   */
+  int documentFrequency(long ngramHash);
+
+  /**
+   * Smoothed inverse document frequency, log((N + 1) / (df + 1)) + 1, always positive.
+   */
+  double idf(long ngramHash);
+
+  /**
+   * Hash of the contents of the table, equal for tables that give every NGram the same weights.
+   */
+  long checksum();
+}
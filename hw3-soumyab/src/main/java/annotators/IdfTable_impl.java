@@ -0,0 +1,134 @@
+/**
+ * Memory mapped count-min sketch implementation of the IDF table
+ */
+package annotators;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.SharedResourceObject;
+
+/**
+ * The sketch is mapped read only, so its size is independent of the number of distinct NGrams and
+ * it costs no heap. Layout (big endian):
+ * 
+ * <pre>
+ * header:   int magic, int version, int depth, int width, long documents
+ * counters: int[depth * width], row after row
+ * </pre>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class IdfTable_impl implements IdfTable, SharedResourceObject {
+
+  // "H3DF"
+  static final int MAGIC = 0x48334446;
+
+  static final int VERSION = 1;
+
+  private static final int headerBytes = 24;
+
+  private CountMinSketch sketch;
+
+  private long documents;
+
+  // First 8 bytes of the SHA-1 of the file, computed once when it is mapped
+  private long checksum;
+
+  public void load(DataResource aData) throws ResourceInitializationException {
+    try {
+      map(new File(URLDecoder.decode(aData.getUrl().getPath(), "UTF-8")));
+    } catch (UnsupportedEncodingException e) {
+      throw new ResourceInitializationException(e);
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+  }
+
+  /**
+   * Maps a table file outside of UIMA, e.g. from the tools.
+   */
+  public void load(File file) throws IOException {
+    map(file);
+  }
+
+  private void map(File file) throws IOException {
+    MappedByteBuffer buffer;
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      // The mapping stays valid after the file is closed
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+    } finally {
+      raf.close();
+    }
+    if ((buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION))
+      throw new IOException("Not an IDF table: " + file);
+    documents = buffer.getLong(16);
+    sketch = new CountMinSketch(buffer, headerBytes, buffer.getInt(8), buffer.getInt(12));
+    checksum = checksum(buffer);
+  }
+
+  public long documents() {
+    return documents;
+  }
+
+  public int documentFrequency(long ngramHash) {
+    return sketch.estimate(ngramHash);
+  }
+
+  public double idf(long ngramHash) {
+    return Math.log((double) (documents + 1) / (sketch.estimate(ngramHash) + 1)) + 1.0;
+  }
+
+  public long checksum() {
+    return checksum;
+  }
+
+  private static long checksum(ByteBuffer buffer) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-1");
+      md.update(buffer.duplicate());
+      return ByteBuffer.wrap(md.digest()).getLong();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Writes the sketch and the number of documents it counted.
+   */
+  public static void write(File file, CountMinSketch sketch, long documents) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(headerBytes);
+    header.putInt(MAGIC).putInt(VERSION).putInt(sketch.getDepth()).putInt(sketch.getWidth())
+            .putLong(documents);
+    header.flip();
+
+    ByteBuffer counters = sketch.counters().duplicate();
+    counters.clear();
+
+    FileOutputStream fos = new FileOutputStream(file);
+    try {
+      FileChannel channel = fos.getChannel();
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      while (counters.hasRemaining()) {
+        channel.write(counters);
+      }
+    } finally {
+      fos.close();
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/**
+ * Scores all answers of a CAS at once through an inverted index of their NGrams
+ */
+package annotators;
+
+import java.util.Arrays;
+
+import org.apache.uima.jcas.tcas.Annotation;
+
+/**
+ * NGramAnnotator normally compares every NGram of every answer with every question and gold
+ * NGram. This scorer turns the loop around: the NGrams of all answers go into an index from NGram
+ * hash to a posting list of (answer, order, weight), then every distinct question and gold NGram
+ * is looked up once and its postings add to a per answer, per order overlap array. The result is
+ * the same score as NGramAnnotator.makeNGrams: the sum over orders j of j * matched / total, where
+ * an order without any question or gold NGram counts as fully matched.
+ * <p>
+ * All storage is in primitive arrays that are reused from one CAS to the next.
+ *
+ * @author Soumya Batra
+ *
+ */
+class InvertedScorer {
+
+  private static final int orders = NGramHash.MAX_ORDER;
+
+  // Weight of the j gram overlap in NGramAnnotator's score
+  private static final double[] defaultWeights = { 1, 2, 3 };
+
+  // Corpus document frequencies, null for unit weights
+  private final IdfTable idfTable;
+
+  // Open addressing table from NGram hash to the first posting, -1 if empty
+  private long[] keys = new long[1024];
+
+  private int[] heads = new int[1024];
+
+  private boolean[] used = new boolean[1024];
+
+  private int distinct = 0;
+
+  // Postings, chained through next
+  private int[] postingAnswer = new int[1024];
+
+  private int[] postingOrder = new int[1024];
+
+  private double[] postingWeight = new double[1024];
+
+  private int[] postingNext = new int[1024];
+
+  private int postings = 0;
+
+  // Weight of all NGrams of each answer and order, at answer * orders + order - 1
+  private double[] totals = new double[64 * orders];
+
+  private int answers = 0;
+
+  InvertedScorer(IdfTable idfTable) {
+    this.idfTable = idfTable;
+  }
+
+  void clear() {
+    Arrays.fill(used, false);
+    distinct = 0;
+    postings = 0;
+    answers = 0;
+  }
+
+  /**
+   * Adds the NGrams of an answer made of the given tokens and returns the answer's id.
+   */
+  int addAnswer(String input, Annotation[] toks) {
+    int id = answers++;
+    if (answers * orders > totals.length)
+      totals = Arrays.copyOf(totals, totals.length * 2);
+    for (int j = 1; j <= orders; j++) {
+      double total = 0.0;
+      for (int i = 0; i + j <= toks.length; i++) {
+        long hash = NGramHash.hash(input, toks, i, j);
+        double weight = (idfTable != null) ? idfTable.idf(hash) : 1.0;
+        addPosting(hash, id, j, weight);
+        total += weight;
+      }
+      totals[id * orders + j - 1] = total;
+    }
+    return id;
+  }
+
+  /**
+   * Adds the NGrams of an answer given as folded tokens, as from NGramHash.foldedTokens, and
+   * returns the answer's id.
+   */
+  int addAnswer(String[] tokens) {
+    int id = answers++;
+    if (answers * orders > totals.length)
+      totals = Arrays.copyOf(totals, totals.length * 2);
+    for (int j = 1; j <= orders; j++) {
+      double total = 0.0;
+      for (int i = 0; i + j <= tokens.length; i++) {
+        long hash = NGramHash.hash(tokens, i, j);
+        double weight = (idfTable != null) ? idfTable.idf(hash) : 1.0;
+        addPosting(hash, id, j, weight);
+        total += weight;
+      }
+      totals[id * orders + j - 1] = total;
+    }
+    return id;
+  }
+
+  /**
+   * Scores every answer added since clear(). The reference hashes are the question and gold
+   * NGrams (duplicates allowed), and referenceOrders[j - 1] tells whether any of them has j
+   * tokens. Returns the scores before NGramAnnotator's normalization by 6.
+   */
+  double[] score(long[] reference, boolean[] referenceOrders) {
+    return score(reference, referenceOrders, defaultWeights);
+  }
+
+  /**
+   * As score(reference, referenceOrders), with orderWeights[j - 1] in place of j as the weight of
+   * the j gram overlap.
+   */
+  double[] score(long[] reference, boolean[] referenceOrders, double[] orderWeights) {
+    double[] overlaps = overlaps(reference, referenceOrders);
+    double[] scores = new double[answers];
+    for (int a = 0; a < answers; a++) {
+      double score = 0.0;
+      for (int j = 1; j <= orders; j++) {
+        double total = overlaps[(2 * a + 1) * orders + j - 1];
+        if (total != 0)
+          score += orderWeights[j - 1] * (overlaps[2 * a * orders + j - 1] / total);
+      }
+      scores[a] = score;
+    }
+    return scores;
+  }
+
+  /**
+   * The matched and total NGram weights of every answer added since clear(), for each order: at
+   * 2 * answer * orders + order - 1 the matched weight, and orders further on the total. An order
+   * without any reference NGram counts as fully matched, as in score.
+   */
+  double[] overlaps(long[] reference, boolean[] referenceOrders) {
+    double[] overlaps = new double[2 * answers * orders];
+
+    long[] sorted = reference.clone();
+    Arrays.sort(sorted);
+    for (int r = 0; r < sorted.length; r++) {
+      if ((r > 0) && (sorted[r] == sorted[r - 1]))
+        continue;
+      int slot = find(sorted[r]);
+      if (!used[slot])
+        continue;
+      for (int p = heads[slot]; p >= 0; p = postingNext[p]) {
+        overlaps[2 * postingAnswer[p] * orders + postingOrder[p] - 1] += postingWeight[p];
+      }
+    }
+
+    for (int a = 0; a < answers; a++) {
+      for (int j = 1; j <= orders; j++) {
+        double total = totals[a * orders + j - 1];
+        overlaps[(2 * a + 1) * orders + j - 1] = total;
+        // Without any reference NGram of this order every NGram of the answer counts as a match
+        if (!referenceOrders[j - 1])
+          overlaps[2 * a * orders + j - 1] = total;
+      }
+    }
+    return overlaps;
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private void addPosting(long hash, int answer, int order, double weight) {
+    if (postings == postingAnswer.length) {
+      int n = postings * 2;
+      postingAnswer = Arrays.copyOf(postingAnswer, n);
+      postingOrder = Arrays.copyOf(postingOrder, n);
+      postingWeight = Arrays.copyOf(postingWeight, n);
+      postingNext = Arrays.copyOf(postingNext, n);
+    }
+    if (2 * (distinct + 1) > keys.length)
+      grow();
+
+    int slot = find(hash);
+    if (!used[slot]) {
+      used[slot] = true;
+      keys[slot] = hash;
+      heads[slot] = -1;
+      distinct++;
+    }
+    int p = postings++;
+    postingAnswer[p] = answer;
+    postingOrder[p] = order;
+    postingWeight[p] = weight;
+    postingNext[p] = heads[slot];
+    heads[slot] = p;
+  }
+
+  // Slot holding the hash, or the empty slot where it belongs (linear probing)
+  private int find(long hash) {
+    int mask = keys.length - 1;
+    int slot = (int) (hash ^ (hash >>> 32)) & mask;
+    while (used[slot] && (keys[slot] != hash)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldHeads = heads;
+    boolean[] oldUsed = used;
+    keys = new long[oldKeys.length * 2];
+    heads = new int[oldKeys.length * 2];
+    used = new boolean[oldKeys.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldUsed[i]) {
+        int slot = find(oldKeys[i]);
+        used[slot] = true;
+        keys[slot] = oldKeys[i];
+        heads[slot] = oldHeads[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Optional candidate pre-filter of NGramAnnotator for very large answer pools
+ */
+package annotators;
+
+import java.util.ArrayList;
+
+import org.apache.uima.jcas.tcas.Annotation;
+
+import edu.cmu.deiis.types.Answer;
+
+/**
+ * Estimates, from a bottom-k MinHash sketch of its character shingles, which fraction of an answer
+ * occurs in the question and gold answers. Only answers whose estimate reaches the threshold are
+ * scored exactly, the others get a default AnswerScore. The question and gold shingles are few,
+ * so they are kept in full and the sketch is checked against them directly instead of going
+ * through LSH bands.
+ * <p>
+ * In recall mode every answer is still scored exactly, and the filter counts how many of the
+ * answers with a non-zero exact score it would have kept.
+ *
+ * @author Soumya Batra
+ *
+ */
+class LshFilter {
+
+  private final MinHash minHash;
+
+  private final double threshold;
+
+  final boolean measureRecall;
+
+  // Sorted shingle hashes of the question and gold answers of the current question
+  private long[] reference = new long[0];
+
+  // Answers seen, kept and pruned over the whole collection
+  long answers = 0;
+
+  long pruned = 0;
+
+  // Answers with a non-zero exact score, and how many of them were kept
+  long relevant = 0;
+
+  long relevantKept = 0;
+
+  LshFilter(int signatureSize, double threshold, boolean measureRecall) {
+    this.minHash = new MinHash(signatureSize);
+    this.threshold = threshold;
+    this.measureRecall = measureRecall;
+  }
+
+  /**
+   * Takes the shingles of the question and of the correct answers of the document, the text the
+   * question and gold NGrams come from.
+   */
+  void setReference(String input, Annotation question, Iterable<? extends Annotation> answers) {
+    ArrayList<Integer> spans = new ArrayList<Integer>();
+    spans.add(question.getBegin());
+    spans.add(question.getEnd());
+    for (Annotation a : answers) {
+      if (((Answer) a).getIsCorrect() && (a.getBegin() < a.getEnd())) {
+        spans.add(a.getBegin());
+        spans.add(a.getEnd());
+      }
+    }
+    int[] bounds = new int[spans.size()];
+    for (int i = 0; i < bounds.length; i++) {
+      bounds[i] = spans.get(i);
+    }
+    reference = MinHash.shingles(input, bounds);
+  }
+
+  /**
+   * Whether the answer spanning begin to end of the document is worth scoring exactly.
+   */
+  boolean passes(String input, int begin, int end) {
+    minHash.sketch(input, begin, end);
+    boolean kept = minHash.containedIn(reference) >= threshold;
+    answers++;
+    if (!kept)
+      pruned++;
+    return kept;
+  }
+
+  // Records the exact score of an answer in recall mode
+  void recordExact(boolean kept, double exactScore) {
+    if (exactScore > 0) {
+      relevant++;
+      if (kept)
+        relevantKept++;
+    }
+  }
+
+  String report() {
+    StringBuilder r = new StringBuilder();
+    r.append(String.format("LSH filter: %d of %d answers pruned (threshold %.2f)", pruned,
+            answers, threshold));
+    if (measureRecall)
+      r.append(String.format(", recall %.4f (%d of %d answers with a non-zero exact score kept)",
+              (relevant == 0) ? 1.0 : (double) relevantKept / relevant, relevantKept, relevant));
+    return r.toString();
+  }
+}
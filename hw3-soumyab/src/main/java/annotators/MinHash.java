@@ -0,0 +1,142 @@
+/**
+ * Bottom-k MinHash sketches of the character shingles of a text
+ */
+package annotators;
+
+import java.util.Arrays;
+
+/**
+ * Every run of SHINGLE_WIDTH case-folded characters of a text is hashed once with a rolling hash
+ * and one mix. The k smallest distinct values are a uniform sample of the distinct shingles, so
+ * the share of them found in another set estimates how much of the text that set contains. No
+ * tokenizing and no per function rehashing is needed, which keeps a sketch cheaper than exact
+ * scoring.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class MinHash {
+
+  /**
+   * Characters per shingle. A shorter text is a single shingle.
+   */
+  public static final int SHINGLE_WIDTH = 5;
+
+  // Base of the rolling hash and its power that drops the oldest character of a shingle
+  private static final long base = 0x100000001b3L;
+
+  private static final long lead = power(base, SHINGLE_WIDTH - 1);
+
+  // Smallest distinct shingle hashes of the last sketched text, increasing
+  private final long[] sketch;
+
+  private int size = 0;
+
+  public MinHash(int k) {
+    sketch = new long[k];
+  }
+
+  public int capacity() {
+    return sketch.length;
+  }
+
+  /**
+   * Keeps the k smallest distinct shingle hashes of text[begin, end). Returns how many there are,
+   * fewer than k only for a text with fewer distinct shingles.
+   */
+  public int sketch(String text, int begin, int end) {
+    size = 0;
+    int k = sketch.length;
+    int n = end - begin;
+    int w = Math.min(SHINGLE_WIDTH, n);
+    long h = 0;
+    for (int i = 0; i < n; i++) {
+      if (i >= w)
+        h -= lead * Character.toLowerCase(text.charAt(begin + i - w));
+      h = h * base + Character.toLowerCase(text.charAt(begin + i));
+      if (i + 1 < w)
+        continue;
+      long v = mix(h);
+      if ((size == k) && (v >= sketch[k - 1]))
+        continue;
+
+      // Sorted insertion, rare once the sketch is full
+      int pos = Arrays.binarySearch(sketch, 0, size, v);
+      if (pos >= 0)
+        continue;
+      pos = -pos - 1;
+      int moved = Math.min(size, k - 1) - pos;
+      System.arraycopy(sketch, pos, sketch, pos + 1, moved);
+      sketch[pos] = v;
+      size = Math.min(size + 1, k);
+    }
+    return size;
+  }
+
+  /**
+   * Share of the last sketch found in a sorted array of shingle hashes, 0 for an empty sketch.
+   */
+  public double containedIn(long[] sortedHashes) {
+    if (size == 0)
+      return 0.0;
+    int found = 0;
+    for (int i = 0; i < size; i++) {
+      if (Arrays.binarySearch(sortedHashes, sketch[i]) >= 0)
+        found++;
+    }
+    return (double) found / size;
+  }
+
+  /**
+   * Every distinct shingle hash of the given spans of text, sorted.
+   */
+  public static long[] shingles(String text, int[] spans) {
+    int total = 0;
+    for (int s = 0; s + 1 < spans.length; s += 2) {
+      total += Math.max(0, spans[s + 1] - spans[s]);
+    }
+    long[] hashes = new long[total];
+    int n = 0;
+    for (int s = 0; s + 1 < spans.length; s += 2) {
+      int begin = spans[s], len = spans[s + 1] - begin;
+      int w = Math.min(SHINGLE_WIDTH, len);
+      long h = 0;
+      for (int i = 0; i < len; i++) {
+        if (i >= w)
+          h -= lead * Character.toLowerCase(text.charAt(begin + i - w));
+        h = h * base + Character.toLowerCase(text.charAt(begin + i));
+        if (i + 1 >= w)
+          hashes[n++] = mix(h);
+      }
+    }
+    Arrays.sort(hashes, 0, n);
+    int distinct = 0;
+    for (int i = 0; i < n; i++) {
+      if ((i == 0) || (hashes[i] != hashes[i - 1]))
+        hashes[distinct++] = hashes[i];
+    }
+    return Arrays.copyOf(hashes, distinct);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // 64 bit finalizer of MurmurHash3
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static long power(long b, int e) {
+    long p = 1;
+    for (int i = 0; i < e; i++) {
+      p *= b;
+    }
+    return p;
+  }
+}
@@ -0,0 +1,294 @@
+/**
+ * Scores the answers of a document under several scorer configurations in one pass
+ */
+package annotators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.FSArray;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceAccessException;
+import org.apache.uima.resource.ResourceInitializationException;
+
+import edu.cmu.deiis.types.Answer;
+import edu.cmu.deiis.types.AnswerScore;
+import edu.cmu.deiis.types.NGram;
+import edu.cmu.deiis.types.Question;
+import edu.cmu.deiis.types.ScorerRun;
+
+/**
+ * Comparing scoring variants used to take one CPE run per variant, NER service and tokenization
+ * included. This annotator runs once in the aggregate, right before NGramAnnotator, and scores the
+ * answers under every configuration of its <code>Scorers</code> parameter. Each answer is tokenized
+ * once for all of them, and configurations with the same weighting share one inverted index
+ * ({@link InvertedScorer}), so a variant costs little more than the lookups of its reference
+ * NGrams. The scores of a variant go into a ScorerRun annotation as AnswerScores with the variant
+ * name as casProcessorId. They are not added to the indexes, so NGramAnnotator, CASEvaluator's
+ * ranking and the result store only ever see the AnswerScores of the pipeline itself. CASEvaluator
+ * ranks every ScorerRun as it ranks the pipeline, named entity score included, and reports the
+ * precision of all scorers side by side.
+ * <p>
+ * A configuration is a name, optionally followed by a colon and options separated by semicolons,
+ * e.g. <code>unigrams: weights=1 0 0; ner=0</code>. Options:
+ * <ul>
+ * <li><code>weights</code> - weights of the 1, 2 and 3 gram overlaps, default 1 2 3; the score is
+ * divided by their sum, so the defaults give the NGramAnnotator score</li>
+ * <li><code>idf</code> - true to weight NGrams by the bound IDF table, false for unit weights;
+ * default true when the table is bound</li>
+ * <li><code>gold</code> - gold NGrams matched besides the question NGrams: <code>pipeline</code>
+ * (the default) those the pipeline has, from GoldAnswerToNGram or the gold index;
+ * <code>answers</code> the NGrams of the correct answers; <code>none</code> the question only</li>
+ * <li><code>ner</code> - weight of the named entity score in CASEvaluator, default 1</li>
+ * </ul>
+ * With the defaults a configuration ranks exactly as the pipeline without LSH filter and top-k
+ * pruning. Documents replayed from the result store or past their deadline are not scored.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class MultiScorer extends JCasAnnotator_ImplBase {
+
+  /**
+   * Scorer configurations, one per value.
+   */
+  public static final String PARAM_SCORERS = "Scorers";
+
+  // Name of the current annotator
+  private static final String annotator = "MultiScorer";
+
+  // Confidence value of 1.0 since every answer is scored exactly
+  private static final double confidence = 1.0;
+
+  // A scorer configuration
+  static class Scorer {
+    final String id;
+
+    double[] weights = { 1, 2, 3 };
+
+    Boolean idf;
+
+    String gold = "pipeline";
+
+    double ner = 1.0;
+
+    Scorer(String id) {
+      this.id = id;
+    }
+
+    // Parses "name: key=value; key=value"
+    static Scorer parse(String spec) {
+      int colon = spec.indexOf(':');
+      Scorer s = new Scorer(((colon < 0) ? spec : spec.substring(0, colon)).trim());
+      if (s.id.length() == 0)
+        throw new IllegalArgumentException("Scorer without a name: " + spec);
+      if (colon < 0)
+        return s;
+      for (String option : spec.substring(colon + 1).split(";")) {
+        if (option.trim().length() == 0)
+          continue;
+        int eq = option.indexOf('=');
+        if (eq < 0)
+          throw new IllegalArgumentException("Option without value in scorer " + s.id + ": "
+                  + option.trim());
+        String key = option.substring(0, eq).trim();
+        String value = option.substring(eq + 1).trim();
+        if ("weights".equals(key)) {
+          String[] w = value.split("[\\s,]+");
+          if (w.length != NGramHash.MAX_ORDER)
+            throw new IllegalArgumentException("Scorer " + s.id + " needs "
+                    + NGramHash.MAX_ORDER + " weights: " + value);
+          for (int j = 0; j < w.length; j++) {
+            s.weights[j] = Double.parseDouble(w[j]);
+          }
+        } else if ("idf".equals(key))
+          s.idf = Boolean.valueOf(value);
+        else if ("gold".equals(key)) {
+          if (!Arrays.asList("pipeline", "answers", "none").contains(value))
+            throw new IllegalArgumentException("Unknown gold " + value + " in scorer " + s.id
+                    + ", expected pipeline, answers or none");
+          s.gold = value;
+        } else if ("ner".equals(key))
+          s.ner = Double.parseDouble(value);
+        else
+          throw new IllegalArgumentException("Unknown option " + key + " in scorer " + s.id);
+      }
+      return s;
+    }
+
+    double weightSum() {
+      double sum = 0.0;
+      for (double w : weights) {
+        sum += w;
+      }
+      return sum;
+    }
+  }
+
+  // Configurations in parameter order
+  ArrayList<Scorer> scorers = new ArrayList<Scorer>();
+
+  // Precompiled gold answer NGrams, null when the optional resource is not bound
+  GoldNGramIndex goldIndex;
+
+  // Corpus document frequencies, null when the optional resource is not bound
+  IdfTable idfTable;
+
+  // Inverted indexes with and without IDF weights, shared by the configurations that use them
+  InvertedScorer weighted;
+
+  InvertedScorer unweighted = new InvertedScorer(null);
+
+  // Documents scored and answer scores made per configuration
+  long documents = 0;
+
+  long answerScores = 0;
+
+  @Override
+  public void initialize(UimaContext aContext) throws ResourceInitializationException {
+    super.initialize(aContext);
+    try {
+      goldIndex = (GoldNGramIndex) aContext.getResourceObject(GoldNGramIndex.RESOURCE_KEY);
+      idfTable = (IdfTable) aContext.getResourceObject(IdfTable.RESOURCE_KEY);
+    } catch (ResourceAccessException e) {
+      throw new ResourceInitializationException(e);
+    }
+    if (idfTable != null)
+      weighted = new InvertedScorer(idfTable);
+
+    String[] specs = (String[]) aContext.getConfigParameterValue(PARAM_SCORERS);
+    try {
+      for (String spec : (specs != null) ? specs : new String[0]) {
+        Scorer s = Scorer.parse(spec);
+        if (s.idf == null)
+          s.idf = (idfTable != null);
+        if (s.idf && (idfTable == null))
+          throw new IllegalArgumentException("Scorer " + s.id + " needs the IdfTable resource");
+        for (Scorer other : scorers) {
+          if (other.id.equals(s.id))
+            throw new IllegalArgumentException("Two scorers named " + s.id);
+        }
+        scorers.add(s);
+      }
+    } catch (IllegalArgumentException e) {
+      throw new ResourceInitializationException(e);
+    }
+  }
+
+  @Override
+  public void process(JCas jcas) throws AnalysisEngineProcessException {
+    // The ranking of an unchanged document comes from the result store, and a document past its
+    // deadline is only scored by the pipeline
+    if (scorers.isEmpty() || Replay.isReplayed(jcas) || Deadline.hasExpired(jcas))
+      return;
+
+    Iterator<Annotation> questionIter = jcas.getAnnotationIndex(Question.type).iterator();
+    if (!questionIter.hasNext())
+      return;
+    String input = jcas.getDocumentText();
+    Question ques = (Question) questionIter.next();
+    String[] questionTokens = NGramHash.foldedTokens(input.substring(ques.getBegin(), ques
+            .getEnd()));
+
+    // Question NGrams, and the question NGrams with each source of gold NGrams
+    ReferenceNGrams question = new ReferenceNGrams(null);
+    question.add(questionTokens);
+    ReferenceNGrams pipeline = pipelineGold(jcas, questionTokens, (goldIndex != null)
+            ? NGramAnnotator.goldKey(input, ques, jcas.getAnnotationIndex(Answer.type)) : 0);
+    ReferenceNGrams correct = new ReferenceNGrams(null);
+    correct.add(questionTokens);
+
+    // Every answer is tokenized once for all configurations
+    ArrayList<Answer> answers = new ArrayList<Answer>();
+    ArrayList<String[]> tokens = new ArrayList<String[]>();
+    Iterator<Annotation> answerIter = jcas.getAnnotationIndex(Answer.type).iterator();
+    while (answerIter.hasNext()) {
+      Answer ans = (Answer) answerIter.next();
+      if (ans.getBegin() >= ans.getEnd())
+        continue;
+      String[] folded = NGramHash.foldedTokens(input.substring(ans.getBegin(), ans.getEnd()));
+      answers.add(ans);
+      tokens.add(folded);
+      if (ans.getIsCorrect())
+        correct.add(folded);
+    }
+
+    boolean weightedIndexed = false, unweightedIndexed = false;
+    for (Scorer s : scorers) {
+      ReferenceNGrams reference = "pipeline".equals(s.gold) ? pipeline : ("answers"
+              .equals(s.gold) ? correct : question);
+
+      // The answers are indexed once per weighting, on first use
+      InvertedScorer scorer = s.idf ? weighted : unweighted;
+      if (s.idf ? !weightedIndexed : !unweightedIndexed) {
+        scorer.clear();
+        for (String[] t : tokens) {
+          scorer.addAnswer(t);
+        }
+        if (s.idf)
+          weightedIndexed = true;
+        else
+          unweightedIndexed = true;
+      }
+
+      double[] scores = scorer.score(reference.hashes(), reference.orders(), s.weights);
+      double sum = s.weightSum();
+      FSArray array = new FSArray(jcas, answers.size());
+      for (int a = 0; a < answers.size(); a++) {
+        Answer ans = answers.get(a);
+        AnswerScore as = new AnswerScore(jcas, ans.getBegin(), ans.getEnd());
+        as.setAnswer(ans);
+        as.setScore((sum != 0) ? Math.round(scores[a] / sum * 100) / 100.0d : 0.0);
+        as.setCasProcessorId(s.id);
+        as.setConfidence(confidence);
+        array.set(a, as);
+      }
+      ScorerRun run = new ScorerRun(jcas, 0, input.length());
+      run.setScorerId(s.id);
+      run.setNerWeight(s.ner);
+      run.setScores(array);
+      run.setCasProcessorId(annotator);
+      run.setConfidence(confidence);
+      run.addToIndexes();
+      answerScores += answers.size();
+    }
+    documents++;
+  }
+
+  public void destroy() {
+    if (!scorers.isEmpty())
+      System.out.printf("Multi scorer: %d configurations, %d documents, %d answer scores%n",
+              scorers.size(), documents, answerScores);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Question NGrams and the gold NGrams the pipeline matches: those of the gold index and those
+  // of GoldAnswerToNGram, the only NGrams in the index before NGramAnnotator
+  ReferenceNGrams pipelineGold(JCas jcas, String[] questionTokens, long goldKey)
+          throws AnalysisEngineProcessException {
+    FSIndex<FeatureStructure> ngramIndex = jcas.getFSIndexRepository().getIndex(
+            NGramAnnotator.NGRAM_INDEX);
+    if (ngramIndex == null)
+      throw new AnalysisEngineProcessException(new IllegalStateException("No "
+              + NGramAnnotator.NGRAM_INDEX + " index in the CAS, the descriptor must import "
+              + "deiis_indexes.xml"));
+    ReferenceNGrams gold = new ReferenceNGrams(goldIndex);
+    gold.add(questionTokens);
+    gold.addIndexed(goldKey);
+    for (FeatureStructure fs : ngramIndex) {
+      NGram ngram = (NGram) fs;
+      gold.add(ngram.getHash(), ngram.getOrder());
+    }
+    return gold;
+  }
+}
@@ -7,15 +7,24 @@ package annotators;
 import java.text.BreakIterator;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Locale;
+import java.util.PriorityQueue;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.text.AnnotationIndex;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.cas.FSArray;
 import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceAccessException;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.cleartk.ne.type.NamedEntityMention;
 
 import edu.cmu.deiis.types.AnswerScore;
 import edu.cmu.deiis.types.NGram;
@@ -29,17 +38,77 @@ import edu.cmu.deiis.types.Token;
  */
 public class NGramAnnotator extends JCasAnnotator_ImplBase {
 
+  /**
+   * Whether answers are pre-filtered by the MinHash estimated share of their character shingles
+   * found in the question and gold answers before being scored exactly.
+   */
+  public static final String PARAM_USE_LSH = "UseLshFilter";
+
+  /**
+   * Estimated fraction of an answer's character shingles that must occur in the question or gold
+   * answers for the answer to be scored exactly.
+   */
+  public static final String PARAM_LSH_THRESHOLD = "LshThreshold";
+
+  /**
+   * Number of smallest shingle hashes kept in the MinHash sketch of an answer.
+   */
+  public static final String PARAM_LSH_SIGNATURE_SIZE = "LshSignatureSize";
+
+  /**
+   * Whether pruned answers are still scored exactly to report the recall of the filter.
+   */
+  public static final String PARAM_LSH_MEASURE_RECALL = "LshMeasureRecall";
+
+  /**
+   * How answers are matched against the question and gold NGrams: "scan" looks every answer NGram
+   * up in the NGram index, "inverted" indexes the answer NGrams and looks every reference NGram up
+   * once, "auto" (the default) picks the cheaper one for each document.
+   */
+  public static final String PARAM_SCORING_PATH = "ScoringPath";
+
+  /**
+   * Number of first ranks that must come out exactly as with full scoring, 0 to score every
+   * answer. Answers whose score upper bound cannot reach these ranks are not scored at all.
+   */
+  public static final String PARAM_TOP_K = "TopK";
+
+  /**
+   * Capacity of the score cache shared by all instances of the annotator, 0 (the default) for no
+   * cache. Answers whose score is found in the cache get their AnswerScore without being
+   * tokenized, so no Token or NGram annotations are made for them.
+   */
+  public static final String PARAM_SCORE_CACHE_SIZE = "ScoreCacheSize";
+
+  /**
+   * Label of the NGram index sorted by hash and order, defined in deiis_indexes.xml.
+   */
+  public static final String NGRAM_INDEX = "NGramByHash";
+
+  /**
+   * Label of the AnswerScore index sorted by decreasing score, defined in deiis_indexes.xml.
+   */
+  public static final String SCORE_INDEX = "AnswerScoreByScore";
+
   // Name of the current annotator
   private static final String annotator = "NGramAnnotator";
 
   // Confidence value of 1.0 since we will always separate tokens and NGrams successfully
   private static final double confidence = 1.0;
 
+  // Estimated cost of hashing and indexing one answer NGram, in NGram key comparisons
+  private static final int invertedCostPerNGram = 8;
+
+  // Score and confidence of answers the pre-filter skipped
+  private static final double prunedScore = 0.0;
+
+  private static final double prunedConfidence = 0.0;
+
   // Element Type for NGrams = Token
   private static final String elementType = "Token";
 
-  // Break Iterator at every word
-  private static final BreakIterator wordBreak = BreakIterator.getWordInstance(Locale.US);
+  // Break Iterator at every word; BreakIterator is not thread safe, so each instance has its own
+  private final BreakIterator wordBreak = BreakIterator.getWordInstance(Locale.US);
 
   // CAS object
   JCas jcas;
@@ -56,8 +125,68 @@ public class NGramAnnotator extends JCasAnnotator_ImplBase {
   // Flag to check whether an answer was correct
   boolean isAnsCorrect = false;
 
-  // List of all NGrams
-  ArrayList<NGram> ngrams = new ArrayList<NGram>();
+  // Question and gold NGrams by hash and order. Answer NGrams join the CAS indexes only once
+  // every answer is scored, so lookups never see them
+  FSIndex<FeatureStructure> ngramIndex;
+
+  // Unindexed NGram holding the key of a lookup
+  NGram probe;
+
+  // NGrams of the answers, added to the CAS indexes after scoring
+  ArrayList<NGram> answerNGrams = new ArrayList<NGram>();
+
+  // referenceOrders() of the current question
+  boolean[] orders = new boolean[NGramHash.MAX_ORDER];
+
+  // Precompiled gold answer NGrams, null when the optional resource is not bound
+  GoldNGramIndex goldIndex;
+
+  // Corpus document frequencies, null when the optional resource is not bound
+  IdfTable idfTable;
+
+  // Key of the current question and its gold answers in goldIndex
+  long goldKey;
+
+  // Whether the gold NGrams of the current question come from goldIndex
+  boolean useGoldIndex = false;
+
+  // MinHash pre-filter, null unless enabled
+  LshFilter lshFilter;
+
+  // Value of the ScoringPath parameter
+  String scoringPath = "auto";
+
+  // Inverted index scorer, reused across documents. Replaced by one with the IDF table in
+  // initialize
+  InvertedScorer invertedScorer = new InvertedScorer(null);
+
+  // Value of the TopK parameter, 0 when every answer is scored
+  int topK = 0;
+
+  // Scores of answers already seen for the same question and gold NGrams, null unless enabled
+  ScoreCache scoreCache;
+
+  // Part of the score cache key shared by all answers of the current question
+  long referenceKey;
+
+  // System.currentTimeMillis() at which scoring of the current document stops
+  long deadline = Long.MAX_VALUE;
+
+  // Whether the deadline passed, and the answers of the document given an AnswerScore before
+  boolean expired = false;
+
+  int scoredAnswers = 0;
+
+  // Documents whose deadline passed before every answer was scored
+  long partialDocuments = 0;
+
+  // Answers considered and pruned by the top-k mode over the whole collection
+  long topKAnswers = 0;
+
+  long topKPruned = 0;
+
+  // Documents scored in full despite TopK because the CAS had no named entities
+  long topKWithoutEntities = 0;
 
   // Annotates Tokens
   static final Token tokenAnnotationMaker(JCas jcas, int start, int end) {
@@ -67,83 +196,531 @@ public class NGramAnnotator extends JCasAnnotator_ImplBase {
     return newToken;
   }
 
+  @Override
+  public void initialize(UimaContext aContext) throws ResourceInitializationException {
+    super.initialize(aContext);
+    try {
+      goldIndex = (GoldNGramIndex) aContext.getResourceObject(GoldNGramIndex.RESOURCE_KEY);
+      idfTable = (IdfTable) aContext.getResourceObject(IdfTable.RESOURCE_KEY);
+    } catch (ResourceAccessException e) {
+      throw new ResourceInitializationException(e);
+    }
+
+    String path = (String) aContext.getConfigParameterValue(PARAM_SCORING_PATH);
+    if (path != null)
+      scoringPath = path;
+    invertedScorer = new InvertedScorer(idfTable);
+
+    Integer k = (Integer) aContext.getConfigParameterValue(PARAM_TOP_K);
+    if (k != null)
+      topK = k;
+
+    // The key of a cached score covers the IDF table and gold index as well, so one cache serves
+    // every instance of the class
+    Integer cacheSize = (Integer) aContext.getConfigParameterValue(PARAM_SCORE_CACHE_SIZE);
+    if ((cacheSize != null) && (cacheSize > 0))
+      scoreCache = ScoreCache.shared(getClass().getName(), cacheSize);
+
+    if (Boolean.TRUE.equals(aContext.getConfigParameterValue(PARAM_USE_LSH))) {
+      Float threshold = (Float) aContext.getConfigParameterValue(PARAM_LSH_THRESHOLD);
+      Integer size = (Integer) aContext.getConfigParameterValue(PARAM_LSH_SIGNATURE_SIZE);
+      lshFilter = new LshFilter((size != null) ? size : 64, (threshold != null) ? threshold
+              : 0.1, Boolean.TRUE.equals(aContext
+              .getConfigParameterValue(PARAM_LSH_MEASURE_RECALL)));
+    }
+  }
+
   @Override
   public void process(JCas document) throws AnalysisEngineProcessException {
 
-    // Assigning variables
-    jcas = document;
-    input = jcas.getDocumentText();
-    int begin, end;
+    // The AnswerScores of an unchanged document come from the result store
+    if (Replay.isReplayed(document))
+      return;
+
+    beginDocument(document);
 
     // Using output from previous annotators as input
     AnnotationIndex<Annotation> questionIndex = document.getAnnotationIndex(Question.type);
     AnnotationIndex<Annotation> answerIndex = document.getAnnotationIndex(Answer.type);
-    AnnotationIndex<Annotation> ngramIndex = document.getAnnotationIndex(NGram.type);
-
-    // Add list of all NGrams found from Gold Answer pipeline to ArrayList containing
-    // NGrams to be searched in the Answers
-    Iterator<Annotation> ngramIter = ngramIndex.iterator();
-    while (ngramIter.hasNext()) {
-      ngrams.add((NGram) ngramIter.next());
-    }
 
     // Get Iterator for single Question in the document
     Iterator<Annotation> questionIter = questionIndex.iterator();
 
-    if (questionIter.hasNext()) {
+    if (questionIter.hasNext())
+      scoreAnswers((Question) questionIter.next(), answerIndex);
 
-      Question ques = (Question) questionIter.next();
-      begin = ques.getBegin();
-      end = ques.getEnd();
-      type = 'Q';
+  }
 
-      // Get all NGram annotations
-      makeAnnotations(input.substring(begin, end), begin);
+  // Takes the document whose answers are scored next
+  void beginDocument(JCas document) throws AnalysisEngineProcessException {
+    // Assigning variables
+    jcas = document;
+    input = jcas.getDocumentText();
 
-      // Create an Iterator for Answers in the document
-      Iterator<Annotation> answerIter = answerIndex.iterator();
+    // NGrams found by the Gold Answer pipeline are already in the NGram index, the question
+    // NGrams join them in annotateQuestion
+    openNGramIndex();
+  }
 
-      // Match the NGram Annotators found for each answer
-      while (answerIter.hasNext()) {
+  // Annotates the question and scores every answer against its NGrams and the gold NGrams
+  void scoreAnswers(Question ques, Iterable<? extends Annotation> answerIndex) {
+    annotateQuestion(ques, answerIndex);
+
+    // Answers left when the deadline of the document passes get no AnswerScore
+    deadline = Deadline.expiresAt(jcas);
+    expired = false;
+    scoredAnswers = 0;
+
+    // Bounding the final score of an answer needs the named entities CASEvaluator scores
+    boolean useTopK = (topK > 0) && hasNamedEntities();
+    if ((topK > 0) && !useTopK)
+      topKWithoutEntities++;
+    if (useTopK)
+      scoreTopK(answerIndex, ques);
+    else if (useInvertedPath(answerIndex))
+      scoreInverted(answerIndex);
+    else
+      scoreScan(answerIndex);
 
-        score = 0.0;
-        Answer ans = (Answer) answerIter.next();
-        begin = ans.getBegin();
-        end = ans.getEnd();
-        type = 'A';
+    if (expired) {
+      Deadline.expire(jcas, scoredAnswers);
+      partialDocuments++;
+    }
+
+    // No more lookups are made, so the answer NGrams can join the indexes
+    for (NGram ngram : answerNGrams) {
+      ngram.addToIndexes();
+    }
+    answerNGrams.clear();
+  }
+
+  // Everything scoreAnswers does before the first answer: the question NGrams, the orders and the
+  // gold NGrams answers are scored against, and the references of the pre-filter and cache
+  void annotateQuestion(Question ques, Iterable<? extends Annotation> answerIndex) {
+    int begin = ques.getBegin();
+    int end = ques.getEnd();
+    type = 'Q';
+
+    // Gold NGrams of a question compiled into the index are looked up there instead
+    goldKey = (goldIndex != null) ? goldKey(input, ques, answerIndex) : 0;
+    useGoldIndex = (goldIndex != null) && goldIndex.containsQuestion(goldKey);
+
+    // Get all NGram annotations
+    makeAnnotations(input.substring(begin, end), begin);
+    orders = referenceOrders();
+
+    // The text every answer NGram can match, for the optional pre-filter
+    if (lshFilter != null)
+      lshFilter.setReference(input, ques, answerIndex);
+    if (scoreCache != null)
+      referenceKey = referenceKey();
+  }
+
+  // Scores the answers one after the other, looking each of their NGrams up in the NGram index
+  void scoreScan(Iterable<? extends Annotation> answerIndex) {
+    int begin, end;
+
+    // Create an Iterator for Answers in the document
+    Iterator<? extends Annotation> answerIter = answerIndex.iterator();
+
+    // Match the NGram Annotators found for each answer
+    while (answerIter.hasNext()) {
 
-        if (begin < end) {
-          // Determines whether an Answer is correct
-          isAnsCorrect = ans.getIsCorrect();
+      score = 0.0;
+      Answer ans = (Answer) answerIter.next();
+      begin = ans.getBegin();
+      end = ans.getEnd();
+      type = 'A';
 
+      if (begin < end) {
+        if (pastDeadline())
+          break;
+
+        // Determines whether an Answer is correct
+        isAnsCorrect = ans.getIsCorrect();
+
+        // Answers the pre-filter rejects get a default score without being tokenized
+        boolean kept = (lshFilter == null) || lshFilter.passes(input, begin, end);
+        if (!kept && !lshFilter.measureRecall) {
+          addAnswerScore(ans, prunedScore, prunedConfidence);
+          continue;
+        }
+
+        // Answers scored before for the same question and gold NGrams are not tokenized again
+        double exact;
+        Double cached = cachedScore(begin, end);
+        if (cached != null)
+          exact = cached;
+        else {
           // Makes 1,2,3 gram annotations and obtains a score for the answer based on matching
-          // NGrams in the NGrams search ArrayList
+          // NGrams in the NGram index
           makeAnnotations(input.substring(begin, end), begin);
 
           // Normalizing the score
           score = score / 6;
-
-          // Creating AnswerScore object based on obtained information
-          AnswerScore ansScore = new AnswerScore(jcas, begin, end);
-          ansScore.setAnswer(ans);
-          ansScore.setScore(Math.round(score * 100) / 100.0d);
-          ansScore.setCasProcessorId(annotator);
-          ansScore.setConfidence(confidence);
-          ansScore.addToIndexes();
+          exact = Math.round(score * 100) / 100.0d;
+          cacheScore(begin, end, exact);
         }
-
+        if ((lshFilter != null) && lshFilter.measureRecall)
+          lshFilter.recordExact(kept, exact);
+
+        // Creating AnswerScore object based on obtained information
+        if (kept)
+          addAnswerScore(ans, exact, confidence);
+        else
+          addAnswerScore(ans, prunedScore, prunedConfidence);
       }
+
     }
+  }
 
+  public void destroy() {
+    if (lshFilter != null)
+      System.out.println(lshFilter.report());
+    if (topK > 0)
+      System.out.printf("Top-k: %d of %d answers pruned (k = %d), %d documents without named "
+              + "entities scored in full%n", topKPruned, topKAnswers, topK, topKWithoutEntities);
+    if ((scoreCache != null) && scoreCache.release())
+      System.out.println(scoreCache.report());
+    if (partialDocuments > 0)
+      System.out.printf("Deadline: %d documents partially scored%n", partialDocuments);
   }
 
   // *************************************************************
   // * Helper Methods *
   // *************************************************************
 
+  // Whether the deadline of the document has passed. The clock is only read until it has
+  boolean pastDeadline() {
+    if (!expired && (deadline != Long.MAX_VALUE) && (System.currentTimeMillis() >= deadline))
+      expired = true;
+    return expired;
+  }
+
+  // Creates the AnswerScore of an answer
+  void addAnswerScore(Answer ans, double value, double conf) {
+    scoredAnswers++;
+    AnswerScore ansScore = new AnswerScore(jcas, ans.getBegin(), ans.getEnd());
+    ansScore.setAnswer(ans);
+    ansScore.setScore(value);
+    ansScore.setCasProcessorId(annotator);
+    ansScore.setConfidence(conf);
+    ansScore.addToIndexes();
+  }
+
+  // Compares the cost of looking every answer NGram up in the NGram index with the cost of
+  // indexing the answer NGrams, estimating three NGrams per six characters of answer. Gold index
+  // lookups are logarithmic on both paths and left out
+  boolean useInvertedPath(Iterable<? extends Annotation> answerIndex) {
+    if ("scan".equals(scoringPath))
+      return false;
+    if ("inverted".equals(scoringPath))
+      return true;
+
+    long answerNGrams = 0;
+    Iterator<? extends Annotation> answerIter = answerIndex.iterator();
+    while (answerIter.hasNext()) {
+      Annotation ans = answerIter.next();
+      answerNGrams += Math.max(0, ans.getEnd() - ans.getBegin()) / 2;
+    }
+    long references = ngramIndex.size();
+    long lookup = 64 - Long.numberOfLeadingZeros(references);
+    return answerNGrams * lookup > answerNGrams * invertedCostPerNGram + references;
+  }
+
+  // Scores all answers through the inverted index. Creates the same Token, NGram and AnswerScore
+  // annotations as scoreScan
+  void scoreInverted(Iterable<? extends Annotation> answerIndex) {
+    type = 'A';
+    invertedScorer.clear();
+    ArrayList<Answer> scored = new ArrayList<Answer>();
+    ArrayList<Boolean> keptAnswers = new ArrayList<Boolean>();
+
+    Iterator<? extends Annotation> answerIter = answerIndex.iterator();
+    while (answerIter.hasNext()) {
+      Answer ans = (Answer) answerIter.next();
+      int begin = ans.getBegin(), end = ans.getEnd();
+      if (begin >= end)
+        continue;
+      // The answers collected so far are still scored
+      if (pastDeadline())
+        break;
+      isAnsCorrect = ans.getIsCorrect();
+
+      boolean kept = (lshFilter == null) || lshFilter.passes(input, begin, end);
+      if (!kept && !lshFilter.measureRecall) {
+        addAnswerScore(ans, prunedScore, prunedConfidence);
+        continue;
+      }
+
+      Double cached = cachedScore(begin, end);
+      if (cached != null) {
+        if ((lshFilter != null) && lshFilter.measureRecall)
+          lshFilter.recordExact(kept, cached);
+        if (kept)
+          addAnswerScore(ans, cached, confidence);
+        else
+          addAnswerScore(ans, prunedScore, prunedConfidence);
+        continue;
+      }
+
+      Token[] toks = tokenize(input.substring(begin, end), begin);
+      if (!isAnsCorrect) {
+        for (int j = 1; j <= NGramHash.MAX_ORDER; j++) {
+          for (int i = 0; i + j <= toks.length; i++) {
+            setNGram(Arrays.copyOfRange(toks, i, i + j));
+          }
+        }
+      }
+      invertedScorer.addAnswer(input, toks);
+      scored.add(ans);
+      keptAnswers.add(kept);
+    }
+
+    double[] scores = invertedScorer.score(referenceHashes(), orders);
+    for (int a = 0; a < scored.size(); a++) {
+      double exact = Math.round(scores[a] / 6 * 100) / 100.0d;
+      cacheScore(scored.get(a).getBegin(), scored.get(a).getEnd(), exact);
+      boolean kept = keptAnswers.get(a);
+      if ((lshFilter != null) && lshFilter.measureRecall)
+        lshFilter.recordExact(kept, exact);
+      if (kept)
+        addAnswerScore(scored.get(a), exact, confidence);
+      else
+        addAnswerScore(scored.get(a), prunedScore, prunedConfidence);
+    }
+  }
+
+  // Scores the answers by decreasing upper bound of their final score, the NGram score plus the
+  // named entity distance score of CASEvaluator, and stops as soon as no remaining answer can
+  // reach the first k ranks. The ranks up to the number of correct answers are kept exact as well,
+  // since they decide the precision. Pruned answers get no AnswerScore; the ones the pre-filter
+  // rejects keep their default score
+  void scoreTopK(Iterable<? extends Annotation> answerIndex, Question ques) {
+    type = 'A';
+
+    // Named entities of the question and of every answer, split as in CASEvaluator
+    FSIterator<Annotation> neIter = jcas.getAnnotationIndex(NamedEntityMention.type).iterator();
+    ArrayList<NamedEntityMention> questionMentions = NerDistance.nextMentions(neIter, ques
+            .getEnd());
+
+    long[] reference = referenceHashes();
+    Arrays.sort(reference);
+
+    ArrayList<Candidate> candidates = new ArrayList<Candidate>();
+    int correct = 0;
+    Iterator<? extends Annotation> answerIter = answerIndex.iterator();
+    while (answerIter.hasNext()) {
+      Answer ans = (Answer) answerIter.next();
+      int begin = ans.getBegin(), end = ans.getEnd();
+      if (begin >= end)
+        continue;
+      ArrayList<NamedEntityMention> mentions = NerDistance.nextMentions(neIter, end);
+      if (ans.getIsCorrect())
+        correct++;
+      if (pastDeadline())
+        break;
+
+      if ((lshFilter != null) && !lshFilter.passes(input, begin, end)) {
+        addAnswerScore(ans, prunedScore, prunedConfidence);
+        continue;
+      }
+      candidates.add(new Candidate(ans, mentions, upperBound(begin, end, reference, orders)));
+    }
+    Collections.sort(candidates);
+
+    // Final scores of the best k answers scored so far, lowest first
+    int k = Math.max(topK, correct);
+    PriorityQueue<Double> best = new PriorityQueue<Double>(k + 1);
+    int scored = 0;
+    for (Candidate c : candidates) {
+      if ((best.size() >= k) && (c.bound < best.peek()))
+        break;
+      if (pastDeadline())
+        break;
+
+      int begin = c.answer.getBegin(), end = c.answer.getEnd();
+      double exact;
+      Double cached = cachedScore(begin, end);
+      if (cached != null)
+        exact = cached;
+      else {
+        score = 0.0;
+        isAnsCorrect = c.answer.getIsCorrect();
+        makeAnnotations(input.substring(begin, end), begin);
+        score = score / 6;
+        exact = Math.round(score * 100) / 100.0d;
+        cacheScore(begin, end, exact);
+      }
+      addAnswerScore(c.answer, exact, confidence);
+      scored++;
+
+      best.add(exact + NerDistance.score(questionMentions, c.mentions));
+      if (best.size() > k)
+        best.poll();
+    }
+    topKAnswers += candidates.size();
+    topKPruned += candidates.size() - scored;
+  }
+
+  // Upper bound of the final score of an answer. A window of tokens can only match if each of its
+  // tokens occurs in some question or gold NGram, since those hold all their own unigrams too, so
+  // the NGram score is bounded by counting such windows as matches. The unigram share is exact.
+  // With IDF weights only an order without any such window is bounded below 1
+  double upperBound(int begin, int end, long[] reference, boolean[] referenceOrders) {
+    int[] offsets = NGramHash.tokenOffsets(input.substring(begin, end));
+    int n = offsets.length / 2;
+    boolean[] hit = new boolean[n];
+    double[] weights = new double[n];
+    for (int i = 0; i < n; i++) {
+      long hash = NGramHash.tokenHash(input, begin + offsets[2 * i], begin + offsets[2 * i + 1]);
+      hit[i] = Arrays.binarySearch(reference, hash) >= 0;
+      weights[i] = (idfTable != null) ? idfTable.idf(hash) : 1.0;
+    }
+
+    double bound = 0.0;
+    for (int j = 1; j <= NGramHash.MAX_ORDER; j++) {
+      double cntQNGram = 0, cntNGram = 0;
+      for (int i = 0, run = 0; i < n; i++) {
+        run = hit[i] ? run + 1 : 0;
+        if (i + 1 < j)
+          continue;
+        double weight = (j == 1) ? weights[i] : 1.0;
+        cntNGram += weight;
+        if (!referenceOrders[j - 1] || (run >= j))
+          cntQNGram += weight;
+      }
+      if ((idfTable != null) && (j > 1) && (cntQNGram > 0))
+        cntQNGram = cntNGram;
+      if (cntNGram != 0)
+        bound += j * (cntQNGram / cntNGram);
+    }
+    bound = bound / 6;
+    return Math.round(bound * 100) / 100.0d + NerDistance.MAX_SCORE;
+  }
+
+  // Whether the CAS holds named entities of the Stanford CoreNLP service. When it has none, as
+  // when hw3-soumyab-parallel-aae.xml runs the service alongside this annotator, the NER scores
+  // CASEvaluator adds later are unknown and would all be taken as the maximum
+  boolean hasNamedEntities() {
+    if (jcas.getTypeSystem().getType(NamedEntityMention.class.getName()) == null)
+      return false;
+    return jcas.getAnnotationIndex(NamedEntityMention.type).size() > 0;
+  }
+
+  // An answer of the top-k mode with the bound of its final score
+  static class Candidate implements Comparable<Candidate> {
+    final Answer answer;
+
+    final ArrayList<NamedEntityMention> mentions;
+
+    final double bound;
+
+    Candidate(Answer answer, ArrayList<NamedEntityMention> mentions, double bound) {
+      this.answer = answer;
+      this.mentions = mentions;
+      this.bound = bound;
+    }
+
+    // Highest bound first
+    public int compareTo(Candidate other) {
+      return Double.compare(other.bound, bound);
+    }
+  }
+
+  // Key of the question and its correct answers in the gold index
+  static long goldKey(String input, Question ques, Iterable<? extends Annotation> answers) {
+    long goldSum = 0;
+    for (Annotation a : answers) {
+      if (((Answer) a).getIsCorrect() && (a.getBegin() < a.getEnd()))
+        goldSum += NGramHash.goldAnswerHash(input.substring(a.getBegin(), a.getEnd()));
+    }
+    return NGramHash.goldKey(NGramHash.questionKey(input.substring(ques.getBegin(), ques
+            .getEnd())), goldSum);
+  }
+
+  // referenceOrders()[j - 1] tells whether any question or gold NGram has j tokens
+  boolean[] referenceOrders() {
+    boolean[] referenceOrders = new boolean[NGramHash.MAX_ORDER];
+    for (FeatureStructure fs : ngramIndex) {
+      int order = ((NGram) fs).getOrder();
+      if ((order >= 1) && (order <= NGramHash.MAX_ORDER))
+        referenceOrders[order - 1] = true;
+    }
+    if (useGoldIndex) {
+      for (int j = 1; j <= NGramHash.MAX_ORDER; j++) {
+        if (goldIndex.count(goldKey, j) > 0)
+          referenceOrders[j - 1] = true;
+      }
+    }
+    return referenceOrders;
+  }
+
+  // Score of the answer spanning begin to end from the score cache, null when it is not cached or
+  // there is no cache
+  Double cachedScore(int begin, int end) {
+    if (scoreCache == null)
+      return null;
+    return scoreCache.get(new ScoreCache.Key(NGramHash.tokenHash(input, begin, end), referenceKey));
+  }
+
+  void cacheScore(int begin, int end, double exact) {
+    if (scoreCache != null)
+      scoreCache.put(new ScoreCache.Key(NGramHash.tokenHash(input, begin, end), referenceKey),
+              exact);
+  }
+
+  // Hash of the distinct question and gold NGrams, the orders they cover and the IDF table. The
+  // hash of the folded answer text, which tokenHash gives for any span, completes the key
+  long referenceKey() {
+    long[] hashes = referenceHashes();
+    Arrays.sort(hashes);
+    long key = (idfTable != null) ? idfTable.checksum() : 0;
+    for (int i = 0; i < hashes.length; i++) {
+      if ((i == 0) || (hashes[i] != hashes[i - 1]))
+        key = (key ^ hashes[i]) * 0x100000001b3L;
+    }
+    for (boolean order : orders) {
+      key = (key ^ (order ? 1 : 2)) * 0x100000001b3L;
+    }
+    return key;
+  }
+
+  // Looks up the NGram index of the CAS, whose NGrams are those of the Gold Answer pipeline until
+  // the question is annotated
+  void openNGramIndex() throws AnalysisEngineProcessException {
+    ngramIndex = jcas.getFSIndexRepository().getIndex(NGRAM_INDEX);
+    if (ngramIndex == null)
+      throw new AnalysisEngineProcessException(new IllegalStateException("No " + NGRAM_INDEX
+              + " index in the CAS, the descriptor must import deiis_indexes.xml"));
+    probe = new NGram(jcas);
+    answerNGrams.clear();
+  }
+
+  // Hashes of the question and gold NGrams, from the NGram index and the gold index
+  long[] referenceHashes() {
+    long[] gold = useGoldIndex ? goldIndex.hashes(goldKey) : new long[0];
+    long[] hashes = Arrays.copyOf(gold, gold.length + ngramIndex.size());
+    int n = gold.length;
+    for (FeatureStructure fs : ngramIndex) {
+      hashes[n++] = ((NGram) fs).getHash();
+    }
+    return hashes;
+  }
+
   // Makes all valid NGram annotations
   void makeAnnotations(String input, int begin) {
 
+    Token[] toks = tokenize(input, begin);
+
+    // Makes 1,2 and 3 gram annotation of tokens obtained above
+    makeNGrams(toks, 3);
+
+  }
+
+  // Annotates and returns the tokens of a sentence starting at offset begin of the document
+  Token[] tokenize(String input, int begin) {
+
     ArrayList<Token> t = new ArrayList<Token>();
 
     BreakIterator b = wordBreak;
@@ -166,11 +743,7 @@ public class NGramAnnotator extends JCasAnnotator_ImplBase {
     }
 
     Token[] toks = new Token[t.size()];
-    toks = t.toArray(toks);
-
-    // Makes 1,2 and 3 gram annotation of tokens obtained above
-    makeNGrams(toks, 3);
-
+    return t.toArray(toks);
   }
 
   // Makes 1 gram, 2 gram and 3 gram annotations in a recursive fashion
@@ -181,13 +754,16 @@ public class NGramAnnotator extends JCasAnnotator_ImplBase {
     if (j > 1)
       makeNGrams(toks, j - 1);
 
-    // If an NGram exists in the NGram search ArrayList, increase the count of cntQNGram
+    // If an NGram exists in the NGram index, increase the count of cntQNGram. Every
+    // NGram counts 1, or its inverse document frequency when an IDF table is bound
     for (int i = 0; i < length - j; i++) {
-      boolean isQNGram = makeNGram(Arrays.copyOfRange(toks, i, i + j));
+      Token[] window = Arrays.copyOfRange(toks, i, i + j);
+      boolean isQNGram = makeNGram(window);
       if (type == 'A') {
-        cntNGram++;
+        double weight = (idfTable != null) ? idfTable.idf(NGramHash.hash(input, window)) : 1.0;
+        cntNGram += weight;
         if (isQNGram)
-          cntQNGram++;
+          cntQNGram += weight;
       }
     }
 
@@ -199,42 +775,33 @@ public class NGramAnnotator extends JCasAnnotator_ImplBase {
 
   }
 
-  // Adds all tokens of a Question to the NGram ArrayList. For answers, if they match Question's
-  // tokens, it adds the NGrams to indices
+  // Adds all NGrams of a Question to the NGram index. For answers, tells whether they match a
+  // question or gold NGram, and keeps the NGrams of incorrect answers to be indexed after scoring
   boolean makeNGram(Token[] tok) {
 
     int length = tok.length;
-    boolean flag = true;
     NGram ngram = null;
 
     if ((type == 'Q') || (!isAnsCorrect))
       ngram = setNGram(tok);
 
     if (type == 'Q')
-      ngrams.add(ngram);
-
-    // Check whether the NGram exists in the NGram search array
-    else {
-      for (NGram qngram : ngrams) {
-        FSArray v1 = qngram.getElements();
-        if ((v1 != null) && (v1.size() == length)) {
-          flag = true;
-          for (int i = 0; i < length; i++) {
-            Token t1 = (Token) v1.get(i);
-            if (!(input.substring(t1.getBegin(), t1.getEnd()).equalsIgnoreCase(input.substring(
-                    tok[i].getBegin(), tok[i].getEnd())))) {
-              flag = false;
-              break;
-            }
-          }
-          if (flag == true)
-            return flag;
+      return true;
 
-        }
-      }
+    // Check whether the NGram exists in the NGram index: equal hashes mean the tokens are equal
+    // ignoring case
+    long hash = (ngram != null) ? ngram.getHash() : NGramHash.hash(input, tok);
+    probe.setHash(hash);
+    probe.setOrder(length);
+    if (ngramIndex.find(probe) != null)
+      return true;
 
-    }
-    return flag;
+    // Gold NGrams from the index behave as if they were in the NGram index
+    if (useGoldIndex && goldIndex.contains(goldKey, hash))
+      return true;
+
+    // An answer NGram of an order no question or gold NGram has always matches
+    return !orders[length - 1];
 
   }
 
@@ -248,10 +815,15 @@ public class NGramAnnotator extends JCasAnnotator_ImplBase {
     NGram ngram = new NGram(jcas, tok[0].getBegin(), tok[length - 1].getEnd());
     ngram.setElements(v);
     ngram.setElementType(elementType);
+    ngram.setHash(NGramHash.hash(input, tok));
+    ngram.setOrder(length);
     ngram.setCasProcessorId(annotator);
     ngram.setConfidence(confidence);
 
-    ngram.addToIndexes();
+    if (type == 'A')
+      answerNGrams.add(ngram);
+    else
+      ngram.addToIndexes();
     return ngram;
   }
 }
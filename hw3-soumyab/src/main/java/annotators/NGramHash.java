@@ -0,0 +1,196 @@
+/**
+ * 64 bit hashes of tokens and NGrams, independent of the CAS
+ */
+package annotators;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import org.apache.uima.jcas.tcas.Annotation;
+
+/**
+ * NGramAnnotator compares NGrams token by token with equalsIgnoreCase. Folding every character
+ * with toLowerCase(toUpperCase(c)) gives equal strings exactly when equalsIgnoreCase holds, so
+ * two NGrams match if and only if the FNV-1a hashes of their folded tokens are equal (up to 64
+ * bit collisions). Tokens are split with the same word break rule as the annotators.
+ *
+ * @author Soumya Batra
+ *
+ */
+public final class NGramHash {
+
+  // FNV-1a 64 bit parameters
+  private static final long offsetBasis = 0xcbf29ce484222325L;
+
+  private static final long prime = 0x100000001b3L;
+
+  // Separates tokens inside an NGram, never part of a token
+  private static final char separator = ' ';
+
+  // Highest NGram order built by the annotators
+  public static final int MAX_ORDER = 3;
+
+  // Word break iterators are not thread safe, so every thread gets its own
+  private static final ThreadLocal<BreakIterator> wordBreak = new ThreadLocal<BreakIterator>() {
+    @Override
+    protected BreakIterator initialValue() {
+      return BreakIterator.getWordInstance(Locale.US);
+    }
+  };
+
+  private NGramHash() {
+  }
+
+  // Case folding that agrees with String.equalsIgnoreCase
+  static char fold(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  public static String fold(String s) {
+    char[] chars = new char[s.length()];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = fold(s.charAt(i));
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Returns the begin and end offsets of every token as {b0, e0, b1, e1, ...}. A token is a word
+   * break segment that starts with a letter or digit.
+   */
+  public static int[] tokenOffsets(String text) {
+    BreakIterator b = wordBreak.get();
+    b.setText(text);
+    ArrayList<Integer> offsets = new ArrayList<Integer>();
+    for (int end = b.next(), start = b.first(); end != BreakIterator.DONE; start = end, end = b
+            .next()) {
+      if (Character.isLetterOrDigit(text.charAt(start))) {
+        offsets.add(start);
+        offsets.add(end);
+      }
+    }
+    int[] result = new int[offsets.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = offsets.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the folded tokens of the text.
+   */
+  public static String[] foldedTokens(String text) {
+    int[] offsets = tokenOffsets(text);
+    String[] tokens = new String[offsets.length / 2];
+    for (int i = 0; i < tokens.length; i++) {
+      tokens[i] = fold(text.substring(offsets[2 * i], offsets[2 * i + 1]));
+    }
+    return tokens;
+  }
+
+  /**
+   * Hash of the NGram made of <code>count</code> folded tokens starting at <code>from</code>.
+   */
+  public static long hash(String[] tokens, int from, int count) {
+    long h = offsetBasis;
+    for (int i = from; i < from + count; i++) {
+      if (i > from)
+        h = (h ^ separator) * prime;
+      String t = tokens[i];
+      for (int k = 0; k < t.length(); k++) {
+        h = (h ^ t.charAt(k)) * prime;
+      }
+    }
+    return h;
+  }
+
+  /**
+   * Hash of the NGram made of the given token annotations over the document text. Equal to
+   * hash(foldedTokens(...), ...) for the same tokens, without creating any Strings.
+   */
+  public static long hash(String text, Annotation[] tokens) {
+    return hash(text, tokens, 0, tokens.length);
+  }
+
+  /**
+   * Hash of the NGram made of <code>count</code> token annotations starting at <code>from</code>.
+   */
+  public static long hash(String text, Annotation[] tokens, int from, int count) {
+    long h = offsetBasis;
+    for (int i = from; i < from + count; i++) {
+      if (i > from)
+        h = (h ^ separator) * prime;
+      for (int k = tokens[i].getBegin(); k < tokens[i].getEnd(); k++) {
+        h = (h ^ fold(text.charAt(k))) * prime;
+      }
+    }
+    return h;
+  }
+
+  /**
+   * Hash of the single token spanning <code>begin</code> to <code>end</code> of the text.
+   */
+  public static long tokenHash(String text, int begin, int end) {
+    long h = offsetBasis;
+    for (int k = begin; k < end; k++) {
+      h = (h ^ fold(text.charAt(k))) * prime;
+    }
+    return h;
+  }
+
+  /**
+   * Hash that identifies a question: the hash of all its tokens as a single NGram.
+   */
+  public static long questionKey(String question) {
+    String[] tokens = foldedTokens(question);
+    return hash(tokens, 0, tokens.length);
+  }
+
+  /**
+   * Hash of a gold answer for {@link #goldKey}: that of all its tokens as a single NGram, or 0 for
+   * an answer without tokens, which has no gold NGrams either.
+   */
+  public static long goldAnswerHash(String answer) {
+    return goldAnswerHash(foldedTokens(answer));
+  }
+
+  /**
+   * Hash of a gold answer for {@link #goldKey} from its folded tokens.
+   */
+  public static long goldAnswerHash(String[] tokens) {
+    return (tokens.length > 0) ? hash(tokens, 0, tokens.length) : 0;
+  }
+
+  /**
+   * Key of a question and its gold answers in the GoldNGramIndex. <code>goldSum</code> is the sum
+   * of goldAnswerHash over the gold answers, so that their order does not matter; the same question
+   * asked with other gold answers gets another key.
+   */
+  public static long goldKey(long questionKey, long goldSum) {
+    long h = (questionKey ^ separator) * prime;
+    for (int shift = 0; shift < 64; shift += 8) {
+      h = (h ^ ((goldSum >>> shift) & 0xff)) * prime;
+    }
+    return h;
+  }
+
+  /**
+   * Hashes of every 1 to maxOrder gram of the tokens, lower orders first, in the order
+   * NGramAnnotator.makeNGrams visits them.
+   */
+  public static long[] ngramHashes(String[] tokens, int maxOrder) {
+    int total = 0;
+    for (int j = 1; j <= maxOrder; j++) {
+      total += Math.max(0, tokens.length - j + 1);
+    }
+    long[] hashes = new long[total];
+    int n = 0;
+    for (int j = 1; j <= maxOrder; j++) {
+      for (int i = 0; i + j <= tokens.length; i++) {
+        hashes[n++] = hash(tokens, i, j);
+      }
+    }
+    return hashes;
+  }
+}
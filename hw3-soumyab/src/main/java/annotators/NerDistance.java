@@ -0,0 +1,86 @@
+/**
+ * Named entity distance score shared by CASEvaluator and the top-k mode of NGramAnnotator
+ */
+package annotators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.cleartk.ne.type.NamedEntityMention;
+
+/**
+ * An answer scores higher when the single token named entities it shares with the question
+ * appear in the same order and at similar distances from each other. The score is 1 / s for the
+ * sum s of the signed distance differences, and 1 when s is 0, so it always lies between -1 and
+ * 1.
+ *
+ * @author Soumya Batra
+ *
+ */
+public final class NerDistance {
+
+  // Largest value the score can take
+  public static final double MAX_SCORE = 1.0;
+
+  private NerDistance() {
+  }
+
+  /**
+   * Takes the single token mentions of the iterator up to the sentence ending at
+   * <code>end</code>. The first mention past the end is consumed as well, so that every sentence
+   * sees the same mentions as in CASEvaluator.
+   */
+  public static ArrayList<NamedEntityMention> nextMentions(FSIterator<Annotation> neIter, int end) {
+    ArrayList<NamedEntityMention> mentions = new ArrayList<NamedEntityMention>();
+    NamedEntityMention ner = null;
+    while ((neIter.hasNext())
+            && (((ner = (NamedEntityMention) neIter.next()).getBegin() <= end))) {
+      if (!(ner.getCoveredText().contains(" "))) {
+        mentions.add(ner);
+      }
+    }
+    return mentions;
+  }
+
+  /**
+   * Distance score of an answer given the mentions of the question and of the answer.
+   */
+  public static double score(List<NamedEntityMention> ners, List<NamedEntityMention> anem) {
+    double sc = 0.0;
+    int size = ners.size();
+    NamedEntityMention nans = null;
+
+    for (int j = 0; j < size; j++) {
+      for (NamedEntityMention n : anem) {
+        if (n.getCoveredText().equals(ners.get(j).getCoveredText())) {
+          nans = n;
+          break;
+        }
+      }
+      for (int k = j + 1; k < size; k++) {
+        int diff = ners.get(k).getBegin() - ners.get(j).getBegin();
+        int d = 0;
+        if (nans == null)
+          break;
+        else {
+          for (NamedEntityMention n : anem) {
+            if (n.getCoveredText().equals(ners.get(k).getCoveredText())) {
+              d = n.getBegin() - nans.getBegin();
+              break;
+            }
+          }
+
+        }
+
+        // Get the difference between the distances between named entities from Question and
+        // Answers. Also, check the order in which they appear
+        sc += Math.signum(d) * (double) (diff - Math.abs(d));
+      }
+    }
+
+    sc = (sc != 0) ? sc : sc + 1;
+    return 1 / sc;
+  }
+}
@@ -61,9 +61,10 @@ public class QAAnnotator extends JCasAnnotator_ImplBase {
   };
 
   // ****************************************
-  // * Static variable holding break iterator
+  // * Variable holding break iterator
   // ****************************************
-  static final BreakIterator sentenceBreak = BreakIterator.getSentenceInstance(Locale.US);
+  // BreakIterator is not thread safe, so each instance has its own
+  private final BreakIterator sentenceBreak = BreakIterator.getSentenceInstance(Locale.US);
 
   // Class variables
   JCas jcas;
@@ -78,6 +79,10 @@ public class QAAnnotator extends JCasAnnotator_ImplBase {
   // The processing of dividing the sentences into Question and Answer takes place here
   public void process(JCas document) throws AnalysisEngineProcessException {
 
+    // The annotations of an unchanged document come from the result store
+    if (Replay.isReplayed(document))
+      return;
+
     jcas = document;
 
     // Get document text in a string
@@ -0,0 +1,67 @@
+/**
+ * A question or answer line of an input document, found without a CAS
+ */
+package annotators;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits a document into sentences with the same rules and offsets as QAAnnotator, for code that
+ * reads input documents outside of the pipeline.
+ *
+ * @author Soumya Batra
+ *
+ */
+public final class QASentence {
+
+  // A string beginning with Q or q denote that it is a Question
+  private static final String question = "Qq";
+
+  // Sentence break iterators are not thread safe, so every thread gets its own
+  private static final ThreadLocal<BreakIterator> sentenceBreak = new ThreadLocal<BreakIterator>() {
+    @Override
+    protected BreakIterator initialValue() {
+      return BreakIterator.getSentenceInstance(Locale.US);
+    }
+  };
+
+  public final boolean isQuestion;
+
+  // Offsets of the Question or Answer annotation QAAnnotator would create
+  public final int begin;
+
+  public final int end;
+
+  // Whether an answer is marked "A 1"
+  public final boolean isCorrect;
+
+  QASentence(boolean isQuestion, int begin, int end, boolean isCorrect) {
+    this.isQuestion = isQuestion;
+    this.begin = begin;
+    this.end = end;
+    this.isCorrect = isCorrect;
+  }
+
+  public String text(String input) {
+    return input.substring(begin, Math.max(begin, end));
+  }
+
+  public static List<QASentence> split(String input) {
+    List<QASentence> sentences = new ArrayList<QASentence>();
+    BreakIterator b = sentenceBreak.get();
+    b.setText(input);
+    for (int end = b.next(), start = b.first(); end != BreakIterator.DONE; start = end, end = b
+            .next()) {
+      char c = input.charAt(start);
+      if ((question.indexOf(c)) != -1)
+        sentences.add(new QASentence(true, start + 2, end, false));
+      else
+        sentences.add(new QASentence(false, start + 4, end, (start + 2 < input.length())
+                && (input.charAt(start + 2) == '1')));
+    }
+    return sentences;
+  }
+}
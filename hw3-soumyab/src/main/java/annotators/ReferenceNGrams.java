@@ -0,0 +1,163 @@
+/**
+ * The NGrams the answers of a question are scored against, outside of a CAS
+ */
+package annotators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Hashes of the question NGrams and of the gold NGrams, with the orders they cover, as
+ * NGramAnnotator matches them. The gold NGrams are those of the gold index when it holds the
+ * question with the same correct answers, else those of the correct answers added with
+ * <code>gold</code>. Usage, for every question: {@link #setQuestion}, then {@link #addCorrect} for
+ * every correct answer, then {@link #hashes} and {@link #orders}, which add the gold NGrams on
+ * first use. Sources other than a question, such as the NGram annotations of a CAS, are added
+ * with {@link #add(long, int)}.
+ *
+ * @author Soumya Batra
+ *
+ */
+final class ReferenceNGrams {
+
+  // Precompiled gold answer NGrams, null if none
+  private final GoldNGramIndex goldIndex;
+
+  private long[] hashes = new long[64];
+
+  private int size = 0;
+
+  // orders[j - 1] tells whether any reference NGram has j tokens
+  private final boolean[] orders = new boolean[NGramHash.MAX_ORDER];
+
+  // The hashes as handed out, until the next one is added
+  private long[] frozen;
+
+  // Hash of the question and sum of the hashes of its correct answers, its key in the gold index
+  private long questionKey;
+
+  private long goldSum;
+
+  // Folded tokens of the gold answers, whose NGrams are added unless the gold index has them
+  private final ArrayList<String[]> goldTokens = new ArrayList<String[]>();
+
+  // Whether the gold NGrams of the question are among the references yet
+  private boolean goldAdded = true;
+
+  /**
+   * @param goldIndex
+   *          precompiled gold NGrams, used instead of those of addCorrect for the questions it
+   *          holds with the same correct answers; null for none
+   */
+  ReferenceNGrams(GoldNGramIndex goldIndex) {
+    this.goldIndex = goldIndex;
+  }
+
+  /**
+   * Starts over with the NGrams of the question, whose gold NGrams follow from addCorrect.
+   */
+  void setQuestion(String[] tokens) {
+    size = 0;
+    frozen = null;
+    Arrays.fill(orders, false);
+    questionKey = NGramHash.hash(tokens, 0, tokens.length);
+    goldSum = 0;
+    goldTokens.clear();
+    goldAdded = false;
+    add(tokens);
+  }
+
+  /**
+   * Counts a correct answer into the key of the question in the gold index and, with
+   * <code>gold</code>, keeps its NGrams in case the index does not hold the question. Without
+   * <code>gold</code> and without an index the answer is ignored, as when GoldAnswerToNGram does
+   * not run. Correct answers are taken until the gold NGrams are added.
+   */
+  void addCorrect(String[] tokens, boolean gold) {
+    if (!gold && (goldIndex == null))
+      return;
+    goldSum += NGramHash.goldAnswerHash(tokens);
+    if (gold)
+      goldTokens.add(tokens);
+  }
+
+  /**
+   * Adds the gold NGrams of the index for the key, if it holds it, and tells whether it did.
+   */
+  boolean addIndexed(long goldKey) {
+    if ((goldIndex == null) || !goldIndex.containsQuestion(goldKey))
+      return false;
+    for (long hash : goldIndex.hashes(goldKey)) {
+      add(hash);
+    }
+    for (int j = 1; j <= NGramHash.MAX_ORDER; j++) {
+      if (goldIndex.count(goldKey, j) > 0)
+        orders[j - 1] = true;
+    }
+    return true;
+  }
+
+  /**
+   * Adds every 1 to 3 gram of the folded tokens.
+   */
+  void add(String[] tokens) {
+    for (int j = 1; j <= NGramHash.MAX_ORDER; j++) {
+      for (int i = 0; i + j <= tokens.length; i++) {
+        add(NGramHash.hash(tokens, i, j));
+        orders[j - 1] = true;
+      }
+    }
+  }
+
+  /**
+   * Adds the hash of an NGram with the given number of tokens.
+   */
+  void add(long hash, int order) {
+    add(hash);
+    if ((order >= 1) && (order <= NGramHash.MAX_ORDER))
+      orders[order - 1] = true;
+  }
+
+  /**
+   * The reference NGram hashes, shared until the next one is added.
+   */
+  long[] hashes() {
+    addGold();
+    if (frozen == null)
+      frozen = Arrays.copyOf(hashes, size);
+    return frozen;
+  }
+
+  /**
+   * orders[j - 1] tells whether any reference NGram has j tokens; shared, not to be changed.
+   */
+  boolean[] orders() {
+    addGold();
+    return orders;
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Adds the gold NGrams of the question once its correct answers are known: those of the gold
+  // index if it holds the question with these answers, else those of addCorrect
+  private void addGold() {
+    if (goldAdded)
+      return;
+    goldAdded = true;
+    if (!addIndexed(NGramHash.goldKey(questionKey, goldSum))) {
+      for (String[] tokens : goldTokens) {
+        add(tokens);
+      }
+    }
+    goldTokens.clear();
+  }
+
+  private void add(long hash) {
+    if (size == hashes.length)
+      hashes = Arrays.copyOf(hashes, 2 * size);
+    hashes[size++] = hash;
+    frozen = null;
+  }
+}
@@ -0,0 +1,34 @@
+/**
+ * Tells whether the results of a document were replayed from the result store
+ */
+package annotators;
+
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import edu.cmu.deiis.types.ResultKey;
+
+/**
+ * A collection reader that finds the results of an unchanged document in its result store adds
+ * them to the CAS along with a ResultKey annotation whose <code>replayed</code> feature is set.
+ * The annotators and the NER client then leave the CAS alone, so only new and changed documents
+ * are analyzed.
+ *
+ * @author Soumya Batra
+ *
+ */
+public final class Replay {
+
+  private Replay() {
+  }
+
+  /**
+   * Whether the Question, Answer, AnswerScore and named entity annotations of the CAS were
+   * replayed and must not be made again.
+   */
+  public static boolean isReplayed(JCas jcas) {
+    FSIterator<Annotation> it = jcas.getAnnotationIndex(ResultKey.type).iterator();
+    return it.hasNext() && ((ResultKey) it.next()).getReplayed();
+  }
+}
@@ -0,0 +1,258 @@
+/**
+ * Bounded cache of answer NGram scores shared by all instances of an annotator
+ */
+package annotators;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the exact NGram score of an answer under the hash of its case folded text and a
+ * fingerprint of everything the score depends on besides the text: the question and gold NGrams
+ * and the IDF table. The same answer given for the same question in another document is then
+ * scored without being tokenized.
+ * <p>
+ * Admission and eviction follow W-TinyLFU. New entries go to a small LRU window of 1% of the
+ * capacity. An entry leaving the window only enters the main space if it was asked for more often
+ * than the entry it would evict, as estimated by a sketch of 4 bit counters that are halved every
+ * 10 * capacity requests, so one-off answers cannot push out recurring ones. The main space is a
+ * segmented LRU: entries hit while on probation move to the protected segment, which holds 80%
+ * of it.
+ * <p>
+ * All methods are synchronized, so the processing units of a CPE can share one cache. A shared
+ * cache lives until its last user releases it, so a pipeline created later starts empty.
+ *
+ * @author Soumya Batra
+ *
+ */
+class ScoreCache {
+
+  // Caches by the class name of the annotator using them
+  private static final Map<String, ScoreCache> shared = new HashMap<String, ScoreCache>();
+
+  // Rough heap cost of one entry: the key, the boxed score and a linked hash map entry
+  private static final int bytesPerEntry = 112;
+
+  // Counter seeds of the four rows of the sketch
+  private static final long[] seeds = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+      0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+  // Cache key, the text hash and the reference fingerprint
+  static final class Key {
+    final long text;
+
+    final long reference;
+
+    Key(long text, long reference) {
+      this.text = text;
+      this.reference = reference;
+    }
+
+    long hash() {
+      return (text * 31) ^ reference;
+    }
+
+    @Override
+    public int hashCode() {
+      long h = hash();
+      return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key))
+        return false;
+      Key other = (Key) o;
+      return (text == other.text) && (reference == other.reference);
+    }
+  }
+
+  private final int capacity;
+
+  // Name the cache is shared under, null if it is not shared
+  private String name;
+
+  // Annotator instances holding the cache
+  private int users = 0;
+
+  private final int windowCapacity;
+
+  private final int protectedCapacity;
+
+  // Segments in access order, least recently used first
+  private final LinkedHashMap<Key, Double> window = new LinkedHashMap<Key, Double>(16, 0.75f,
+          true);
+
+  private final LinkedHashMap<Key, Double> probation = new LinkedHashMap<Key, Double>(16, 0.75f,
+          true);
+
+  private final LinkedHashMap<Key, Double> protect = new LinkedHashMap<Key, Double>(16, 0.75f,
+          true);
+
+  // Frequency sketch, 16 counters of 4 bits per long
+  private final long[] table;
+
+  private final int sampleSize;
+
+  private int additions = 0;
+
+  // Lookups and hits over all users of the cache
+  private long lookups = 0;
+
+  private long hits = 0;
+
+  ScoreCache(int capacity) {
+    this.capacity = Math.max(2, capacity);
+    this.windowCapacity = Math.max(1, this.capacity / 100);
+    this.protectedCapacity = (int) (0.8 * (this.capacity - windowCapacity));
+    this.table = new long[Integer.highestOneBit(Math.max(1, this.capacity - 1)) * 2];
+    this.sampleSize = 10 * this.capacity;
+  }
+
+  /**
+   * The cache of the named annotator, created with the given capacity when first asked for.
+   */
+  static ScoreCache shared(String name, int capacity) {
+    synchronized (shared) {
+      ScoreCache cache = shared.get(name);
+      if ((cache == null) || (cache.capacity != Math.max(2, capacity))) {
+        cache = new ScoreCache(capacity);
+        cache.name = name;
+        shared.put(name, cache);
+      }
+      cache.users++;
+      return cache;
+    }
+  }
+
+  /**
+   * Called by every holder of a shared cache when it is done with it. Tells whether it was the
+   * last one, which reports for all of them; the cache is then no longer shared.
+   */
+  boolean release() {
+    synchronized (shared) {
+      if (--users > 0)
+        return false;
+      // A cache replaced by one of another capacity is no longer in the map
+      if (shared.get(name) == this)
+        shared.remove(name);
+      return true;
+    }
+  }
+
+  /**
+   * The cached score, or null.
+   */
+  synchronized Double get(Key key) {
+    lookups++;
+    increment(key.hash());
+    Double score = window.get(key);
+    if (score == null) {
+      score = protect.get(key);
+      if (score == null) {
+        score = probation.remove(key);
+        if (score != null)
+          promote(key, score);
+      }
+    }
+    if (score != null)
+      hits++;
+    return score;
+  }
+
+  synchronized void put(Key key, double score) {
+    if (window.containsKey(key) || probation.containsKey(key) || protect.containsKey(key))
+      return;
+    window.put(key, score);
+    if (window.size() <= windowCapacity)
+      return;
+
+    // The window's least recently used entry competes for the main space
+    Map.Entry<Key, Double> candidate = eldest(window);
+    window.remove(candidate.getKey());
+    if (probation.size() + protect.size() < capacity - windowCapacity) {
+      probation.put(candidate.getKey(), candidate.getValue());
+      return;
+    }
+    LinkedHashMap<Key, Double> victims = probation.isEmpty() ? protect : probation;
+    Key victim = eldest(victims).getKey();
+    if (frequency(candidate.getKey().hash()) > frequency(victim.hash())) {
+      victims.remove(victim);
+      probation.put(candidate.getKey(), candidate.getValue());
+    }
+  }
+
+  synchronized int size() {
+    return window.size() + probation.size() + protect.size();
+  }
+
+  // Estimated heap use of the entries and the sketch
+  synchronized long bytes() {
+    return (long) size() * bytesPerEntry + table.length * 8L;
+  }
+
+  synchronized String report() {
+    return String.format("Score cache: %d hits of %d lookups (%.1f%%), %d of %d entries, ~%d KB",
+            hits, lookups, (lookups > 0) ? 100.0 * hits / lookups : 0.0, size(), capacity,
+            bytes() / 1024);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Moves an entry hit on probation to the protected segment, demoting the least recently used
+  // protected entry when it is full
+  private void promote(Key key, Double score) {
+    protect.put(key, score);
+    if (protect.size() > protectedCapacity) {
+      Map.Entry<Key, Double> demoted = eldest(protect);
+      protect.remove(demoted.getKey());
+      probation.put(demoted.getKey(), demoted.getValue());
+    }
+  }
+
+  private static Map.Entry<Key, Double> eldest(LinkedHashMap<Key, Double> segment) {
+    Iterator<Map.Entry<Key, Double>> it = segment.entrySet().iterator();
+    return it.next();
+  }
+
+  // Position of the counter of a row, as an index into the 16 * table.length counters
+  private int slot(long hash, int row) {
+    long h = (hash + seeds[row]) * 0x9e3779b97f4a7c15L;
+    h ^= h >>> 32;
+    return (int) h & (table.length * 16 - 1);
+  }
+
+  private int counter(int slot) {
+    return (int) (table[slot >>> 4] >>> ((slot & 15) << 2)) & 0xf;
+  }
+
+  private int frequency(long hash) {
+    int min = 15;
+    for (int row = 0; row < seeds.length; row++) {
+      min = Math.min(min, counter(slot(hash, row)));
+    }
+    return min;
+  }
+
+  // Counts a request, halving every counter once sampleSize requests were counted
+  private void increment(long hash) {
+    boolean added = false;
+    for (int row = 0; row < seeds.length; row++) {
+      int slot = slot(hash, row);
+      if (counter(slot) < 15) {
+        table[slot >>> 4] += 1L << ((slot & 15) << 2);
+        added = true;
+      }
+    }
+    if (added && (++additions == sampleSize)) {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+      }
+      additions /= 2;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/**
+ * Records which processing unit thread analyzed a document, and when
+ */
+package annotators;
+
+import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+
+import edu.cmu.deiis.types.UnitTiming;
+
+/**
+ * With CAS consumers in the CPE, the CPM calls its status listeners on the consumer thread only,
+ * so a listener cannot tell which processing unit did the work. This annotator runs as the first
+ * and as the last analysis CAS processor: the first one to see a document records its thread and
+ * start time in a UnitTiming annotation, every later one moves the end time, and
+ * tools.RunStatistics reads the annotation when the document comes out of the CPE.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class UnitTimer extends JCasAnnotator_ImplBase {
+
+  @Override
+  public void process(JCas jcas) throws AnalysisEngineProcessException {
+    long now = System.nanoTime();
+    FSIterator<Annotation> it = jcas.getAnnotationIndex(UnitTiming.type).iterator();
+    if (it.hasNext()) {
+      ((UnitTiming) it.next()).setEndNanos(now);
+      return;
+    }
+    UnitTiming timing = new UnitTiming(jcas, 0, jcas.getDocumentText().length());
+    timing.setThread(Thread.currentThread().getName());
+    timing.setStartNanos(now);
+    timing.setEndNanos(now);
+    timing.setCasProcessorId("UnitTimer");
+    timing.setConfidence(1.0);
+    timing.addToIndexes();
+  }
+}
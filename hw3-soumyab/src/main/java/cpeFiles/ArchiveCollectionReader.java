@@ -0,0 +1,223 @@
+/**
+ * Reads the input documents straight out of a zip or gzip'd tar archive
+ */
+package cpeFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Pattern;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader_ImplBase;
+import org.apache.uima.examples.SourceDocumentInformation;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+
+/**
+ * Question sets are shipped as archives of many small files; extracting them before a run writes
+ * and reads every document once more. This reader streams the entries out of the archive
+ * instead. A daemon thread decompresses and decodes the entries into a queue of at most
+ * <code>QueueSize</code> documents, so decompression overlaps with the CPE and memory stays
+ * bounded however large the archive is. Entries are handed to the CPE in archive order.
+ * <p>
+ * Every CAS gets a SourceDocumentInformation with the URI
+ * <code>jar:file:/path/archive.tar.gz!/dir/q001.txt</code>, the form Java gives zip entries, so
+ * CASEvaluator names the output file after the entry as it does after an input file.
+ * <p>
+ * hw3-soumyab-archive-CPE.xml uses this reader in place of the file system reader. Parameters:
+ * <ul>
+ * <li><code>InputArchive</code> - .zip, .tar, .tar.gz or .tgz archive of the input text files</li>
+ * <li><code>EntryPattern</code> - regular expression the file name of an entry (without its
+ * directories) must match; default every <code>.txt</code> file</li>
+ * <li><code>Encoding</code> - character encoding of the documents, default UTF-8</li>
+ * <li><code>Language</code> - document language, default en</li>
+ * <li><code>QueueSize</code> - documents decompressed ahead of the CPE, default 64</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ArchiveCollectionReader extends CollectionReader_ImplBase {
+
+  public static final String PARAM_INPUT_ARCHIVE = "InputArchive";
+
+  public static final String PARAM_ENTRY_PATTERN = "EntryPattern";
+
+  public static final String PARAM_ENCODING = "Encoding";
+
+  public static final String PARAM_LANGUAGE = "Language";
+
+  public static final String PARAM_QUEUE_SIZE = "QueueSize";
+
+  // A decompressed document, or the end of the archive when name is null
+  static class Document {
+    final String name;
+
+    final String text;
+
+    final int size;
+
+    // Set on the end marker when decompression failed
+    final Exception failure;
+
+    Document(String name, String text, int size, Exception failure) {
+      this.name = name;
+      this.text = text;
+      this.size = size;
+      this.failure = failure;
+    }
+  }
+
+  private File archive;
+
+  private BlockingQueue<Document> queue;
+
+  private Thread decompressor;
+
+  // Next document to hand out, taken from the queue ahead so that hasNext can answer
+  private Document next;
+
+  private String language;
+
+  private int delivered = 0;
+
+  // Time getNext spent waiting for the decompressor
+  private long waitNanos = 0;
+
+  @Override
+  public void initialize() throws ResourceInitializationException {
+    archive = new File((String) getConfigParameterValue(PARAM_INPUT_ARCHIVE)).getAbsoluteFile();
+    String pattern = (String) getConfigParameterValue(PARAM_ENTRY_PATTERN);
+    final Pattern entries = Pattern.compile((pattern != null) ? pattern : ".*\\.txt");
+    String encoding = (String) getConfigParameterValue(PARAM_ENCODING);
+    final String charset = (encoding != null) ? encoding : "UTF-8";
+    language = (String) getConfigParameterValue(PARAM_LANGUAGE);
+    if (language == null)
+      language = "en";
+    Integer size = (Integer) getConfigParameterValue(PARAM_QUEUE_SIZE);
+    queue = new ArrayBlockingQueue<Document>((size != null) ? Math.max(1, size) : 64);
+
+    // Opened here so that a missing or unknown archive fails the initialization
+    final ArchiveEntries archiveEntries;
+    try {
+      archiveEntries = new ArchiveEntries(archive);
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+
+    decompressor = new Thread("Archive reader " + archive.getName()) {
+      @Override
+      public void run() {
+        Exception failure = null;
+        try {
+          ArchiveEntries.Entry e;
+          while ((e = archiveEntries.next()) != null) {
+            String name = e.name.substring(e.name.lastIndexOf('/') + 1);
+            if (entries.matcher(name).matches())
+              queue.put(new Document(e.name, new String(e.content, charset), e.content.length,
+                      null));
+          }
+        } catch (InterruptedException e) {
+          // Closed before the end of the archive
+          return;
+        } catch (Exception e) {
+          // Any failure, a corrupt entry as much as a read error, still ends the queue, or peek
+          // would wait for the end marker forever
+          failure = e;
+        } finally {
+          try {
+            archiveEntries.close();
+          } catch (IOException e) {
+            // Nothing more is read from it
+          }
+        }
+        try {
+          queue.put(new Document(null, null, 0, failure));
+        } catch (InterruptedException e) {
+          // Closed before the end marker was taken
+        }
+      }
+    };
+    decompressor.setDaemon(true);
+    decompressor.start();
+  }
+
+  public boolean hasNext() throws IOException, CollectionException {
+    return peek().name != null;
+  }
+
+  public void getNext(CAS aCAS) throws IOException, CollectionException {
+    Document doc = peek();
+    if (doc.name == null)
+      throw new CollectionException(new IllegalStateException("No more entries in " + archive));
+    next = null;
+
+    aCAS.setDocumentText(doc.text);
+    aCAS.setDocumentLanguage(language);
+
+    // Also store location of source document in CAS, as the file system reader does
+    try {
+      JCas jcas = aCAS.getJCas();
+      SourceDocumentInformation srcDocInfo = new SourceDocumentInformation(jcas);
+      srcDocInfo.setUri(entryUri(doc.name));
+      srcDocInfo.setOffsetInSource(0);
+      srcDocInfo.setDocumentSize(doc.size);
+      srcDocInfo.setLastSegment(peek().name == null);
+      srcDocInfo.addToIndexes();
+    } catch (CASException e) {
+      throw new CollectionException(e);
+    }
+    delivered++;
+  }
+
+  // The number of entries is only known at the end of the archive
+  public Progress[] getProgress() {
+    return new Progress[] { new ProgressImpl(delivered, -1, Progress.ENTITIES) };
+  }
+
+  public void close() throws IOException {
+    decompressor.interrupt();
+    System.out.printf("Archive reader: %d documents from %s, %.1f ms waiting for "
+            + "decompression%n", delivered, archive.getName(), waitNanos / 1e6);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // The next document or end marker, waiting for the decompressor if needed
+  private Document peek() throws IOException, CollectionException {
+    if (next == null) {
+      long start = System.nanoTime();
+      try {
+        next = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CollectionException(e);
+      } finally {
+        waitNanos += System.nanoTime() - start;
+      }
+    }
+    if (next.failure != null)
+      throw new IOException("Reading " + archive + " failed: " + next.failure, next.failure);
+    return next;
+  }
+
+  // URI of an entry in the form of zip entry URLs, with the entry path percent-encoded
+  String entryUri(String entry) throws CollectionException {
+    try {
+      String path = new URI(null, null, "/" + entry, null).getRawPath();
+      return "jar:" + archive.toURI() + "!" + path;
+    } catch (URISyntaxException e) {
+      throw new CollectionException(e);
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/**
+ * Reads the regular file entries of a zip, tar or gzip'd tar archive one after the other
+ */
+package cpeFiles;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The archive is read as a stream from start to end, without extracting anything to disk and
+ * without random access, so zip files are read through their local headers. Tar archives may be
+ * POSIX ustar, GNU (long names) or pax (path records); other special entries are skipped. Entry
+ * contents are returned whole, so entries must fit in memory, as the documents of a CAS do.
+ *
+ * @author Soumya Batra
+ *
+ */
+class ArchiveEntries {
+
+  // A regular file of the archive
+  static class Entry {
+    final String name;
+
+    final byte[] content;
+
+    Entry(String name, byte[] content) {
+      this.name = name;
+      this.content = content;
+    }
+  }
+
+  private static final int block = 512;
+
+  // Set for zip archives, the tar stream otherwise
+  private final ZipInputStream zip;
+
+  private final InputStream tar;
+
+  // Name of the next tar entry from a GNU long name or pax header
+  private String longName;
+
+  ArchiveEntries(File archive) throws IOException {
+    InputStream in = new BufferedInputStream(new FileInputStream(archive), 64 * 1024);
+    String name = archive.getName().toLowerCase();
+    if (name.endsWith(".zip")) {
+      zip = new ZipInputStream(in);
+      tar = null;
+    } else if (name.endsWith(".tar")) {
+      zip = null;
+      tar = in;
+    } else if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+      zip = null;
+      tar = new BufferedInputStream(new GZIPInputStream(in, 64 * 1024), 64 * 1024);
+    } else {
+      in.close();
+      throw new IOException("Not a .zip, .tar, .tar.gz or .tgz archive: " + archive);
+    }
+  }
+
+  /**
+   * The next regular file of the archive, null at the end.
+   */
+  Entry next() throws IOException {
+    return (zip != null) ? nextZip() : nextTar();
+  }
+
+  void close() throws IOException {
+    if (zip != null)
+      zip.close();
+    else
+      tar.close();
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private Entry nextZip() throws IOException {
+    ZipEntry e;
+    while ((e = zip.getNextEntry()) != null) {
+      if (!e.isDirectory())
+        return new Entry(e.getName(), readFully(zip, -1));
+    }
+    return null;
+  }
+
+  private Entry nextTar() throws IOException {
+    byte[] header = new byte[block];
+    while (true) {
+      if (!readBlock(header) || isZero(header))
+        return null;
+      long size = octal(header, 124, 12);
+      char type = (char) header[156];
+      String name = string(header, 0, 100);
+      // POSIX ustar keeps the directories of long names in a prefix, where GNU tar has other
+      // fields
+      if ("ustar".equals(string(header, 257, 6)) && (header[345] != 0))
+        name = string(header, 345, 155) + "/" + name;
+      if (longName != null) {
+        name = longName;
+        longName = null;
+      }
+
+      byte[] content = readFully(tar, size);
+      skip(tar, padding(size));
+      if (type == 'L') {
+        longName = string(content, 0, content.length);
+      } else if ((type == 'x') || (type == 'g')) {
+        String path = paxPath(content);
+        if ((type == 'x') && (path != null))
+          longName = path;
+      } else if ((type == '0') || (type == 0) || (type == '7')) {
+        return new Entry(name, content);
+      }
+    }
+  }
+
+  // Reads one whole tar block, false at the end of the stream
+  private boolean readBlock(byte[] b) throws IOException {
+    int n = 0;
+    while (n < b.length) {
+      int r = tar.read(b, n, b.length - n);
+      if (r < 0) {
+        if (n == 0)
+          return false;
+        throw new EOFException("Truncated tar header");
+      }
+      n += r;
+    }
+    return true;
+  }
+
+  // Reads size bytes, or up to the end of the stream if size is negative
+  private static byte[] readFully(InputStream in, long size) throws IOException {
+    if (size > Integer.MAX_VALUE)
+      throw new IOException("Archive entry too large: " + size + " bytes");
+    ByteArrayOutputStream out = new ByteArrayOutputStream((size >= 0) ? (int) size : 8192);
+    byte[] buf = new byte[8192];
+    long left = size;
+    while (left != 0) {
+      int r = in.read(buf, 0, (left < 0) ? buf.length : (int) Math.min(buf.length, left));
+      if (r < 0) {
+        if (size >= 0)
+          throw new EOFException("Truncated archive entry");
+        break;
+      }
+      out.write(buf, 0, r);
+      if (left > 0)
+        left -= r;
+    }
+    return out.toByteArray();
+  }
+
+  private static void skip(InputStream in, long n) throws IOException {
+    while (n > 0) {
+      long s = in.skip(n);
+      if (s <= 0) {
+        if (in.read() < 0)
+          throw new EOFException("Truncated tar archive");
+        s = 1;
+      }
+      n -= s;
+    }
+  }
+
+  private static long padding(long size) {
+    return (block - size % block) % block;
+  }
+
+  private static boolean isZero(byte[] b) {
+    for (byte x : b) {
+      if (x != 0)
+        return false;
+    }
+    return true;
+  }
+
+  // Numeric tar fields are octal ASCII, or base-256 when the high bit of the first byte is set
+  private static long octal(byte[] b, int offset, int length) {
+    long value = 0;
+    if ((b[offset] & 0x80) != 0) {
+      for (int i = offset + 1; i < offset + length; i++) {
+        value = (value << 8) | (b[i] & 0xff);
+      }
+      return value;
+    }
+    for (int i = offset; i < offset + length; i++) {
+      if ((b[i] >= '0') && (b[i] <= '7'))
+        value = (value << 3) + (b[i] - '0');
+      else if ((b[i] == 0) || ((b[i] == ' ') && (value > 0)))
+        break;
+    }
+    return value;
+  }
+
+  // Text of a NUL terminated field
+  private static String string(byte[] b, int offset, int length) throws IOException {
+    int end = offset;
+    while ((end < offset + length) && (b[end] != 0)) {
+      end++;
+    }
+    return new String(b, offset, end - offset, "UTF-8");
+  }
+
+  // The path record of a pax header, made of "length key=value\n" records
+  private static String paxPath(byte[] content) throws IOException {
+    int pos = 0;
+    while (pos < content.length) {
+      int space = pos;
+      while ((space < content.length) && (content[space] != ' ')) {
+        space++;
+      }
+      int length;
+      try {
+        length = Integer.parseInt(new String(content, pos, space - pos, "UTF-8"));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+      if ((length <= 0) || (pos + length > content.length))
+        return null;
+      String record = new String(content, space + 1, pos + length - space - 2, "UTF-8");
+      if (record.startsWith("path="))
+        return record.substring(5);
+      pos += length;
+    }
+    return null;
+  }
+}
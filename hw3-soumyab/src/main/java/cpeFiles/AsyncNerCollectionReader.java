@@ -0,0 +1,290 @@
+/**
+ * Reads the input documents and runs them through the NER service ahead of the CPE
+ */
+package cpeFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.aae.client.UimaAsBaseCallbackListener;
+import org.apache.uima.aae.client.UimaAsynchronousEngine;
+import org.apache.uima.adapter.jms.client.BaseUIMAAsynchronousEngine_impl;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader_ImplBase;
+import org.apache.uima.collection.EntityProcessStatus;
+import org.apache.uima.examples.SourceDocumentInformation;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.ResourceProcessException;
+import org.apache.uima.util.CasCopier;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+
+import tools.TextFiles;
+
+/**
+ * The JMS client adapter of scnlp-soumyab-client.xml blocks a processing unit thread for the
+ * whole round trip of every CAS, so throughput is capped at threads / round trip time. This
+ * reader instead sends up to <code>InFlight</code> documents to the NER service at once through
+ * the asynchronous UIMA-AS client, and the service is kept busy while the CPE works on earlier
+ * documents. getNext hands the documents to the CPE in file order: it waits only for the oldest
+ * request, copies its named entities into the CPE's CAS and sends the next file. Results that
+ * come back early wait in their request until their turn, so CASEvaluator sees the same order as
+ * with the synchronous client.
+ * <p>
+ * A {@link CircuitBreaker} watches the round trips. While it is open, or when a request fails or
+ * its reply is not back within <code>Timeout</code> of being waited for, the document goes to
+ * the CPE without named entities and is marked with a DegradedScoring annotation, so a slow or
+ * absent service never holds the pipeline longer than the timeout.
+ * <p>
+ * hw3-soumyab-async-CPE.xml uses this reader in place of the file system reader and the scnlp
+ * client. Parameters:
+ * <ul>
+ * <li><code>InputDirectory</code> - directory of the input text files</li>
+ * <li><code>BrokerURL</code>, <code>Endpoint</code>, <code>Timeout</code> - the NER service, as
+ * in scnlp-soumyab-client.xml</li>
+ * <li><code>InFlight</code> - most documents sent to the service and not yet handed to the CPE</li>
+ * <li><code>LatencyBudgetMillis</code>, <code>BreakerOpenMillis</code> - the circuit breaker, as
+ * in {@link GuardedNerClient}</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class AsyncNerCollectionReader extends CollectionReader_ImplBase {
+
+  public static final String PARAM_INPUTDIR = "InputDirectory";
+
+  public static final String PARAM_BROKER_URL = "BrokerURL";
+
+  public static final String PARAM_ENDPOINT = "Endpoint";
+
+  public static final String PARAM_TIMEOUT = "Timeout";
+
+  public static final String PARAM_IN_FLIGHT = "InFlight";
+
+  // A document sent to the NER service, completed by the client's callback. The CAS is null when
+  // the breaker kept the document from being sent
+  static class Request {
+    final File file;
+
+    final CAS cas;
+
+    final long sentAt = System.nanoTime();
+
+    final CountDownLatch done = new CountDownLatch(1);
+
+    volatile EntityProcessStatus status;
+
+    volatile long completedAt;
+
+    // Set when the request could not be sent
+    Exception failure;
+
+    Request(File file, CAS cas) {
+      this.file = file;
+      this.cas = cas;
+    }
+  }
+
+  // Input files in the order they are handed to the CPE
+  private List<File> files;
+
+  // Index of the next file to send and number of files handed to the CPE
+  private int sent = 0;
+
+  private int delivered = 0;
+
+  // Requests in file order, at most window of them
+  private final LinkedList<Request> inFlight = new LinkedList<Request>();
+
+  // Requests by the client CAS they were sent in, until completed or given up
+  private final Map<CAS, Request> requests = Collections
+          .synchronizedMap(new IdentityHashMap<CAS, Request>());
+
+  private int window;
+
+  // Milliseconds to wait for the oldest request
+  private int timeout;
+
+  private UimaAsynchronousEngine client;
+
+  private CircuitBreaker breaker;
+
+  // Documents handed to the CPE without named entities
+  private long degraded = 0;
+
+  @Override
+  public void initialize() throws ResourceInitializationException {
+    File dir = new File((String) getConfigParameterValue(PARAM_INPUTDIR));
+    try {
+      files = TextFiles.list(dir);
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+
+    Integer n = (Integer) getConfigParameterValue(PARAM_IN_FLIGHT);
+    window = (n != null) ? Math.max(1, n) : 16;
+    Integer millis = (Integer) getConfigParameterValue(PARAM_TIMEOUT);
+    timeout = (millis != null) ? millis : 5000;
+    breaker = GuardedNerClient.newBreaker(getUimaContext());
+
+    // The client's CAS pool bounds the requests in flight as well
+    Map<String, Object> appCtx = new HashMap<String, Object>();
+    appCtx.put(UimaAsynchronousEngine.ServerUri, getConfigParameterValue(PARAM_BROKER_URL));
+    appCtx.put(UimaAsynchronousEngine.Endpoint, getConfigParameterValue(PARAM_ENDPOINT));
+    appCtx.put(UimaAsynchronousEngine.Timeout, timeout);
+    appCtx.put(UimaAsynchronousEngine.GetMetaTimeout, 15000);
+    appCtx.put(UimaAsynchronousEngine.CpcTimeout, 15000);
+    appCtx.put(UimaAsynchronousEngine.CasPoolSize, window);
+
+    client = new BaseUIMAAsynchronousEngine_impl();
+    client.addStatusCallbackListener(new UimaAsBaseCallbackListener() {
+      @Override
+      public void entityProcessComplete(CAS aCas, EntityProcessStatus aStatus) {
+        Request r = requests.remove(aCas);
+        if (r != null) {
+          r.completedAt = System.nanoTime();
+          r.status = aStatus;
+          r.done.countDown();
+        } else {
+          // Given up on by getNext, which left the CAS to be released here
+          aCas.release();
+        }
+      }
+    });
+    client.initialize(appCtx);
+  }
+
+  public boolean hasNext() {
+    return delivered < files.size();
+  }
+
+  public void getNext(CAS aCAS) throws IOException, CollectionException {
+    fill();
+    Request r = inFlight.removeFirst();
+    try {
+      if (complete(r)) {
+        CasCopier.copyCas(r.cas, aCAS, true);
+        r.cas.release();
+      } else {
+        aCAS.setDocumentText(TextFiles.read(r.file));
+        aCAS.setDocumentLanguage("en");
+        GuardedNerClient.markDegraded(aCAS.getJCas());
+        degraded++;
+      }
+
+      // Also store location of source document in CAS, as the file system reader does
+      JCas jcas = aCAS.getJCas();
+      SourceDocumentInformation srcDocInfo = new SourceDocumentInformation(jcas);
+      srcDocInfo.setUri(r.file.getAbsoluteFile().toURI().toURL().toString());
+      srcDocInfo.setOffsetInSource(0);
+      srcDocInfo.setDocumentSize((int) r.file.length());
+      srcDocInfo.setLastSegment(delivered == files.size() - 1);
+      srcDocInfo.addToIndexes();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CollectionException(e);
+    } catch (CASException e) {
+      throw new CollectionException(e);
+    } finally {
+      delivered++;
+    }
+
+    // Keep the service busy while the CPE processes this document
+    fill();
+  }
+
+  public Progress[] getProgress() {
+    return new Progress[] { new ProgressImpl(delivered, files.size(), Progress.ENTITIES) };
+  }
+
+  public void close() throws IOException {
+    System.out.println(breaker.report() + ", " + degraded + " documents degraded");
+    IOException failure = null;
+    try {
+      client.collectionProcessingComplete();
+    } catch (ResourceProcessException e) {
+      failure = new IOException(e.getMessage(), e);
+    }
+    // The client is stopped even when the service did not complete; the first failure is reported
+    try {
+      client.stop();
+    } catch (Exception e) {
+      if (failure == null)
+        failure = new IOException("NER client did not stop: " + e.getMessage(), e);
+    }
+    if (failure != null)
+      throw failure;
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Waits for the request and tells whether its CAS holds the named entities, reporting the
+  // outcome to the breaker. A request still running after the timeout is given up on, and its CAS
+  // is released by the callback
+  private boolean complete(Request r) throws InterruptedException {
+    if (r.cas == null)
+      return false;
+    if (!r.done.await(timeout, TimeUnit.MILLISECONDS)) {
+      if (requests.remove(r.cas) != null) {
+        breaker.failure();
+        return false;
+      }
+      // The reply came in while giving up
+      r.done.await();
+    }
+    if ((r.failure != null) || r.status.isException()) {
+      breaker.failure();
+      r.cas.release();
+      return false;
+    }
+    breaker.success(r.completedAt - r.sentAt);
+    return true;
+  }
+
+  // Sends files until the window is full or all files are sent. Files the breaker holds back take
+  // their place in the window without a CAS
+  private void fill() throws IOException, CollectionException {
+    while ((inFlight.size() < window) && (sent < files.size())) {
+      File file = files.get(sent++);
+      if (!breaker.allowRequest()) {
+        inFlight.addLast(new Request(file, null));
+        continue;
+      }
+      CAS cas;
+      try {
+        cas = client.getCAS();
+      } catch (Exception e) {
+        breaker.failure();
+        throw new CollectionException(e);
+      }
+      cas.setDocumentText(TextFiles.read(file));
+      cas.setDocumentLanguage("en");
+
+      Request r = new Request(file, cas);
+      requests.put(cas, r);
+      inFlight.addLast(r);
+      try {
+        client.sendCAS(cas);
+      } catch (ResourceProcessException e) {
+        // Reported as a failure when the document's turn comes
+        requests.remove(cas);
+        r.failure = e;
+        r.done.countDown();
+      }
+    }
+  }
+}
@@ -30,71 +30,84 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.FSIndex;
 import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.collection.CasConsumer_ImplBase;
 import org.apache.uima.examples.SourceDocumentInformation;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.ResourceProcessException;
+import org.apache.uima.util.ProcessTrace;
 import org.cleartk.ne.type.NamedEntity;
 import org.cleartk.ne.type.NamedEntityMention;
 import org.xml.sax.SAXException;
 
+import annotators.Deadline;
+import annotators.NGramAnnotator;
+import annotators.NerDistance;
+
 import edu.cmu.deiis.types.Answer;
 import edu.cmu.deiis.types.AnswerScore;
+import edu.cmu.deiis.types.DegradedScoring;
 import edu.cmu.deiis.types.Question;
+import edu.cmu.deiis.types.ScorerRun;
 
 /**
  * A simple CAS consumer that writes the CAS to XMI format.
  * <p>
- * This CAS Consumer takes one parameter:
+ * This CAS Consumer takes the following parameters:
  * <ul>
  * <li><code>OutputDirectory</code> - path to directory into which output files will be written</li>
+ * <li><code>Stream</code> (optional) - name of a {@link RankingStream} every ranking is also
+ * published to as soon as it is written</li>
  * </ul>
  */
 public class CASEvaluator extends CasConsumer_ImplBase {
 
-  // Comparator class that compares scores of two AnswerScore objects
-  class CompareScore implements Comparator<AnswerScore> {
-    public int compare(AnswerScore a1, AnswerScore a2) {
-      // Returns -1 if score of first object is greater than that of second object
-      if (a1.getScore() > a2.getScore())
-        return -1;
-      else if (a1.getScore() == a2.getScore()) {
-        if (a1.getAnswer().getIsCorrect())
-          return -1;
-        else
-          return 1;
-      } else
-        return 1;
-    }
-  }
-
-  // Comparator object
-  Comparator<AnswerScore> scoreComparator = new CompareScore();
-
-  // Priority Queue to hold sorted AnswerScore objects
-  PriorityQueue<AnswerScore> answers = new PriorityQueue<AnswerScore>(10, scoreComparator);
-
   // We define global precision and total number of test cases to determine average precision
   double precision = 0.0;
 
   int tot = 0;
 
+  // Number of documents ranked without named entities
+  int degradedDocs = 0;
+
+  // Number of documents whose deadline passed before every answer was fully scored
+  int partialDocs = 0;
+
+  // Sum of precisions and number of documents per scorer, the pipeline first, over the documents
+  // annotators.MultiScorer scored
+  LinkedHashMap<String, double[]> scorerPrecision = new LinkedHashMap<String, double[]>();
+
   /**
    * Name of configuration parameter that must be set to the path of a directory into which the
    * output files will be written.
    */
   public static final String PARAM_OUTPUTDIR = "OutputDirectory";
 
+  /**
+   * Name of optional configuration parameter naming the {@link RankingStream} rankings are
+   * published to.
+   */
+  public static final String PARAM_STREAM = "Stream";
+
   private File mOutputDir;
 
+  // Stream rankings are published to, null if none or once closed
+  private RankingStream mStream;
+
   private int mDocNum;
 
   public void initialize() throws ResourceInitializationException {
@@ -103,6 +116,9 @@ public class CASEvaluator extends CasConsumer_ImplBase {
     if (!mOutputDir.exists()) {
       mOutputDir.mkdirs();
     }
+    String stream = (String) getConfigParameterValue(PARAM_STREAM);
+    if ((stream != null) && (stream.length() > 0))
+      mStream = RankingStream.open(stream);
   }
 
   /**
@@ -164,8 +180,8 @@ public class CASEvaluator extends CasConsumer_ImplBase {
   /**
    * Rank answers and write to file
    */
-  private void rankAndWrite(JCas jcas, File name, String modelFileName) throws IOException,
-          SAXException {
+  void rankAndWrite(JCas jcas, File name, String modelFileName) throws IOException,
+          SAXException, ResourceProcessException {
 
     // Array containing named entities of Question object
     ArrayList<NamedEntityMention> ners = new ArrayList<NamedEntityMention>();
@@ -176,31 +192,58 @@ public class CASEvaluator extends CasConsumer_ImplBase {
     // Using output from previous annotators as input
     FSIterator<Annotation> questionIter = (FSIterator<Annotation>) jcas.getAnnotationIndex(
             Question.type).iterator();
+    FSIterator<Annotation> answerIter = jcas.getAnnotationIndex(Answer.type).iterator();
     FSIterator<Annotation> answerScoreIter = jcas.getAnnotationIndex(AnswerScore.type).iterator();
 
+    // AnswerScores by decreasing score
+    FSIndex<FeatureStructure> scoreIndex = jcas.getFSIndexRepository().getIndex(
+            NGramAnnotator.SCORE_INDEX);
+    if (scoreIndex == null)
+      throw new ResourceProcessException(new IllegalStateException("No "
+              + NGramAnnotator.SCORE_INDEX + " index in the CAS, import deiis_indexes.xml"));
+
     // Question, Answer,AnswerScore and NER objects
     Question q = (Question) questionIter.next();
     Answer a = null;
     AnswerScore as = null;
-     NamedEntityMention ner = null;
 
     // Local variables
     double prec = 0.0;
     int totCorrect = 0, predCorrect = 0;
     char symbol = '+';
     int i = 0;
-    int size = 0;
 
     // Get document text as a String
     String input = jcas.getDocumentText();
 
+    // Documents the NER service was skipped for are ranked on NGram scores alone
+    boolean degraded = jcas.getAnnotationIndex(DegradedScoring.type).iterator().hasNext();
+    if (degraded)
+      degradedDocs++;
+
     // Get all named entities from question in an arraylist
-    while (((ner = (NamedEntityMention) neIter.next()).getBegin()) <= q.getEnd()) {
-      if (!(ner.getCoveredText().contains(" "))) {
-        ners.add(ner);
-      }
+    ners.addAll(NerDistance.nextMentions(neIter, q.getEnd()));
+
+    // Answers are fully scored only until the deadline of the document, if it has one:
+    // NGramAnnotator leaves the answers it did not reach without AnswerScore, and the named entity
+    // score below is not added to the answers reached after it
+    long deadline = Deadline.expiresAt(jcas);
+    boolean unscoredLeft = Deadline.isPartial(jcas);
+    boolean partial = unscoredLeft;
+    HashSet<Answer> withEntities = new HashSet<Answer>();
+    ArrayList<Answer> unscored = new ArrayList<Answer>();
+
+    // Ranking as published to the stream
+    List<RankedQuestion.Answer> answers = new ArrayList<RankedQuestion.Answer>();
+
+    // Scores of the other scorer configurations, and the named entity score of every answer they
+    // are ranked with
+    ArrayList<ScorerRun> runs = new ArrayList<ScorerRun>();
+    FSIterator<Annotation> runIter = jcas.getAnnotationIndex(ScorerRun.type).iterator();
+    while (runIter.hasNext()) {
+      runs.add((ScorerRun) runIter.next());
     }
-    size = ners.size();
+    HashMap<Answer, Double> nerScores = new HashMap<Answer, Double>();
 
     PrintWriter outf = null;
     try {
@@ -213,68 +256,63 @@ public class CASEvaluator extends CasConsumer_ImplBase {
         e.printStackTrace();
       }
 
-      // Iterating over all answers and assigning each to Priority Queue
+      // AnswerScore of every scored answer. In top-k mode NGramAnnotator leaves out the answers
+      // that cannot reach the first ranks
+      HashMap<Answer, AnswerScore> scores = new HashMap<Answer, AnswerScore>();
       while (answerScoreIter.hasNext()) {
-
-        double sc = 0.0;
         as = (AnswerScore) answerScoreIter.next();
+        scores.put(as.getAnswer(), as);
+      }
 
-        // Get the named entities of an answer
-        ArrayList<NamedEntityMention> anem = new ArrayList<NamedEntityMention>();
-        NamedEntityMention nans = null;
-
-        while ((neIter.hasNext())
-                && (((ner = (NamedEntityMention) neIter.next()).getBegin() <= as.getAnswer()
-                        .getEnd()))) {
-          if (!(ner.getCoveredText().contains(" "))) {
-            anem.add(ner);
-          }
-        }
+      // Iterating over all answers and adding the named entity score to each scored one
+      while (answerIter.hasNext()) {
 
-        for (int j = 0; j < size; j++) {
-          for (NamedEntityMention n : anem) {
-            if (n.getCoveredText().equals(ners.get(j).getCoveredText())) {
-              nans = n;
-              break;
-            }
-          }
-          for (int k = j + 1; k < size; k++) {
-            int diff = ners.get(k).getBegin() - ners.get(j).getBegin();
-            int d = 0;
-            if (nans == null)
-              break;
-            else {
-              for (NamedEntityMention n : anem) {
-                if (n.getCoveredText().equals(ners.get(k).getCoveredText())) {
-                  d = n.getBegin() - nans.getBegin();
-                  break;
-                }
-              }
-
-            }
-
-            // Get the difference between the distances between named entities from Question and
-            // Answers. Also, check the order in which they appear
-            sc += Math.signum(d) * (double) (diff - Math.abs(d));
-          }
-        }
+        a = (Answer) answerIter.next();
+
+        // Empty answers are never scored
+        if (a.getBegin() >= a.getEnd())
+          continue;
 
-        sc = (sc != 0) ? sc : sc + 1;
-        sc = 1 / sc;
+        // Get the named entities of an answer
+        ArrayList<NamedEntityMention> anem = NerDistance.nextMentions(neIter, a.getEnd());
 
-        as.setScore(as.getScore() + sc);
-        answers.add(as);
-        if (as.getAnswer().getIsCorrect())
+        if (a.getIsCorrect())
           // Total number of correct answers
           totCorrect++;
+        if (!runs.isEmpty() && !degraded)
+          nerScores.put(a, NerDistance.score(ners, anem));
+
+        as = scores.get(a);
+        if ((as == null) && unscoredLeft)
+          unscored.add(a);
+        if ((as == null) || degraded)
+          continue;
+        if ((deadline != Long.MAX_VALUE) && (System.currentTimeMillis() >= deadline)) {
+          partial = true;
+          continue;
+        }
+
+        // The score is a key of the score index, so the AnswerScore is indexed again
+        as.removeFromIndexes();
+        as.setScore(as.getScore() + NerDistance.score(ners, anem));
+        as.addToIndexes();
+        withEntities.add(a);
       }
+      if (partial)
+        partialDocs++;
 
-      // Setting Answer object as null so as to reuse it
-      as = null;
+      ArrayList<AnswerScore> ranked = rank(scoreIndex);
 
       // Writing required output to file
       outf.println("Question:" + " " + input.substring(q.getBegin(), q.getEnd()));
-      while ((as = answers.poll()) != null) {
+      if (degraded)
+        outf.println("Degraded: named entities unavailable, ranked on n-gram scores only");
+      if (partial)
+        outf.printf("Partial: deadline passed, %d of %d answers scored, %d with named entities "
+                + "(* n-gram score only, ? not scored)%n", ranked.size(), ranked.size()
+                + unscored.size(), withEntities.size());
+      for (AnswerScore rankedScore : ranked) {
+        as = rankedScore;
         i++;
         a = as.getAnswer();
         if (a.getIsCorrect()) {
@@ -284,7 +322,21 @@ public class CASEvaluator extends CasConsumer_ImplBase {
         } else
           symbol = '-';
 
-        outf.printf("%c %.2f %s", symbol, as.getScore(), input.substring(a.getBegin(), a.getEnd()));
+        if (partial && !degraded && !withEntities.contains(a))
+          outf.printf("%c %.2f * %s", symbol, as.getScore(), input.substring(a.getBegin(), a
+                  .getEnd()));
+        else
+          outf.printf("%c %.2f %s", symbol, as.getScore(), input.substring(a.getBegin(), a
+                  .getEnd()));
+        if (mStream != null)
+          answers.add(new RankedQuestion.Answer(input.substring(a.getBegin(), a.getEnd()).trim(),
+                  as.getScore(), a.getIsCorrect()));
+      }
+
+      // Answers the deadline left unscored come last, in document order
+      for (Answer u : unscored) {
+        outf.printf("%c ? %s", u.getIsCorrect() ? '+' : '-', input.substring(u.getBegin(), u
+                .getEnd()));
       }
 
       // Displaying precision information
@@ -294,17 +346,128 @@ public class CASEvaluator extends CasConsumer_ImplBase {
       outf.printf("Precision at %d: %.2f", totCorrect, prec);
       outf.println();
 
+      // The other scorers are compared on the documents every answer was fully scored for
+      if (!runs.isEmpty() && !partial) {
+        StringBuilder line = new StringBuilder("Scorers:");
+        line.append(String.format(" pipeline %.2f", prec));
+        addScorerPrecision("pipeline", prec);
+        for (ScorerRun run : runs) {
+          double runPrec = precision(run, nerScores, totCorrect);
+          line.append(String.format(", %s %.2f", run.getScorerId(), runPrec));
+          addScorerPrecision(run.getScorerId(), runPrec);
+        }
+        outf.println(line);
+      }
+
     } finally {
       if (outf != null) {
         outf.close();
       }
     }
+
+    // Published once the file is complete; blocks while a subscriber is too far behind
+    if (mStream != null) {
+      try {
+        mStream.submit(new RankedQuestion(name.getName(), input.substring(q.getBegin(),
+                q.getEnd()).trim(), answers, prec, degraded));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ResourceProcessException(e);
+      }
+    }
+  }
+
+  /**
+   * Ranks the AnswerScores of a CAS: the score index sorts them, and among equal scores the
+   * correct answers come first.
+   */
+  public static ArrayList<AnswerScore> rank(FSIndex<FeatureStructure> scoreIndex) {
+    ArrayList<AnswerScore> ranked = new ArrayList<AnswerScore>();
+    int tieStart = 0;
+    for (FeatureStructure fs : scoreIndex) {
+      AnswerScore as = (AnswerScore) fs;
+      if (!ranked.isEmpty() && (as.getScore() != ranked.get(ranked.size() - 1).getScore()))
+        tieStart = ranked.size();
+      if (as.getAnswer().getIsCorrect())
+        ranked.add(tieStart++, as);
+      else
+        ranked.add(as);
+    }
+    return ranked;
+  }
+
+  public void collectionProcessComplete(ProcessTrace aTrace) throws ResourceProcessException,
+          IOException {
+    closeStream();
   }
 
   public void destroy() {
+    // The CPE calls destroy without collectionProcessComplete when it is stopped
+    closeStream();
 
     // Displaying average precision for all documents
     System.out.printf("Average Precision: %.2f", (precision / tot));
+    if (degradedDocs > 0)
+      System.out.printf(" (%d of %d documents degraded)", degradedDocs, tot);
+    if (partialDocs > 0)
+      System.out.printf(" (%d of %d documents partially scored)", partialDocs, tot);
+
+    // Scorers side by side, on the same documents
+    for (Map.Entry<String, double[]> e : scorerPrecision.entrySet()) {
+      System.out.printf("%nScorer %-16s Average Precision: %.2f (%d documents)", e.getKey(), e
+              .getValue()[0] / e.getValue()[1], (int) e.getValue()[1]);
+    }
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Precision of the ranking of a scorer configuration, ranked as rank() ranks the pipeline with
+  // the named entity score weighted by the configuration
+  private static double precision(ScorerRun run, final HashMap<Answer, Double> nerScores,
+          int totCorrect) {
+    final double nerWeight = run.getNerWeight();
+    final HashMap<Answer, Double> finalScores = new HashMap<Answer, Double>();
+    ArrayList<Answer> ranked = new ArrayList<Answer>();
+    for (int i = 0; i < run.getScores().size(); i++) {
+      AnswerScore as = run.getScores(i);
+      Double ner = nerScores.get(as.getAnswer());
+      finalScores.put(as.getAnswer(), as.getScore() + ((ner != null) ? nerWeight * ner : 0.0));
+      ranked.add(as.getAnswer());
+    }
+    // By decreasing score, correct answers first among equal scores, then in document order
+    Collections.sort(ranked, new Comparator<Answer>() {
+      public int compare(Answer x, Answer y) {
+        int c = Double.compare(finalScores.get(y), finalScores.get(x));
+        if (c == 0)
+          c = Boolean.valueOf(y.getIsCorrect()).compareTo(x.getIsCorrect());
+        return (c != 0) ? c : x.getBegin() - y.getBegin();
+      }
+    });
+    int predCorrect = 0;
+    for (int i = 0; (i < totCorrect) && (i < ranked.size()); i++) {
+      if (ranked.get(i).getIsCorrect())
+        predCorrect++;
+    }
+    return (double) predCorrect / totCorrect;
+  }
+
+  private void addScorerPrecision(String scorer, double prec) {
+    double[] sum = scorerPrecision.get(scorer);
+    if (sum == null) {
+      sum = new double[2];
+      scorerPrecision.put(scorer, sum);
+    }
+    sum[0] += prec;
+    sum[1]++;
+  }
+
+  private synchronized void closeStream() {
+    if (mStream != null) {
+      mStream.close();
+      mStream = null;
+    }
   }
 
 }
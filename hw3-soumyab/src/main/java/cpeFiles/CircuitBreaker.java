@@ -0,0 +1,142 @@
+/**
+ * Latency aware circuit breaker around the NER service
+ */
+package cpeFiles;
+
+/**
+ * Keeps track of which of the last successful requests to the NER service went over the latency
+ * budget. The breaker opens when the 99th percentile of their latencies goes over the budget, or
+ * when several requests in a row fail or time out. Failures are counted on their own and never
+ * enter the percentile. While it
+ * is open, no request is sent and documents are ranked without named entities. After
+ * <code>openMillis</code> a single trial request is let through: it closes the breaker if it
+ * comes back within the budget and opens it again otherwise.
+ *
+ * @author Soumya Batra
+ *
+ */
+class CircuitBreaker {
+
+  // Latencies the percentile is computed over. A 99th percentile needs at least
+  // 1 / (1 - 0.99) = 100 of them to be anything but the maximum, so it is only judged on a full
+  // window
+  private static final int window = 100;
+
+  // Latencies of a full window that may go over the budget with the 99th percentile still within
+  // it: the percentile is the 99th of the 100 sorted latencies
+  private static final int allowedOverBudget = 1;
+
+  // Failures in a row that open the breaker straight away
+  private static final int maxFailures = 3;
+
+  private final long budgetNanos;
+
+  private final long openNanos;
+
+  // Ring buffer telling which of the last successful requests went over the budget, and how many
+  private final boolean[] overBudget = new boolean[window];
+
+  private int overBudgetCount = 0;
+
+  private int samples = 0;
+
+  // Failures since the last success
+  private int failures = 0;
+
+  private boolean open = false;
+
+  private boolean trial = false;
+
+  private long openedAt;
+
+  // Requests allowed and refused, and how often the breaker opened
+  long allowed = 0;
+
+  long refused = 0;
+
+  long trips = 0;
+
+  CircuitBreaker(long budgetMillis, long openMillis) {
+    this.budgetNanos = budgetMillis * 1000000L;
+    this.openNanos = openMillis * 1000000L;
+  }
+
+  /**
+   * Whether a request may be sent now. Every allowed request must be followed by success or
+   * failure.
+   */
+  synchronized boolean allowRequest() {
+    if (open) {
+      if (trial || (System.nanoTime() - openedAt < openNanos)) {
+        refused++;
+        return false;
+      }
+      trial = true;
+    }
+    allowed++;
+    return true;
+  }
+
+  synchronized void success(long nanos) {
+    failures = 0;
+    if (trial) {
+      trial = false;
+      if (nanos <= budgetNanos)
+        close();
+      else
+        trip();
+      return;
+    }
+    record(nanos > budgetNanos);
+    if ((samples >= window) && (overBudgetCount > allowedOverBudget))
+      trip();
+  }
+
+  synchronized void failure() {
+    failures++;
+    if (trial) {
+      trial = false;
+      trip();
+      return;
+    }
+    if (failures >= maxFailures)
+      trip();
+  }
+
+  synchronized boolean isOpen() {
+    return open;
+  }
+
+  String report() {
+    return String.format("NER circuit breaker: %d requests sent, %d skipped, opened %d times",
+            allowed, refused, trips);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private void record(boolean over) {
+    int slot = samples % window;
+    if ((samples >= window) && overBudget[slot])
+      overBudgetCount--;
+    overBudget[slot] = over;
+    if (over)
+      overBudgetCount++;
+    samples++;
+  }
+
+  private void trip() {
+    open = true;
+    openedAt = System.nanoTime();
+    trips++;
+  }
+
+  // A closed breaker judges the service on fresh latencies only
+  private void close() {
+    open = false;
+    samples = 0;
+    overBudgetCount = 0;
+    failures = 0;
+  }
+}
@@ -0,0 +1,246 @@
+/**
+ * Columnar table of the raw scoring features of every answer of a run
+ */
+package cpeFiles;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import annotators.AnswerFeatures;
+
+/**
+ * One row per non-empty answer, grouped by question in document order, written by
+ * {@link FeatureWriter} and read by tools.WeightSweep. Every feature is a column of its own, so a
+ * reader loads each straight into a primitive array. Layout (big endian):
+ *
+ * <pre>
+ * header:   int magic, int version, int flags, int questions, int answers
+ * starts:   int[questions + 1], first row of each question, then the number of rows
+ * correct:  byte[answers], 1 for a correct answer
+ * matched:  double[answers] for each order 1 to 3, matched NGram weight
+ * total:    double[answers] for each order 1 to 3, NGram weight of the answer
+ * ner:      double[answers], named entity distance score of CASEvaluator, 0 without entities
+ * entities: short[answers], question entities the answer mentions too
+ * </pre>
+ *
+ * Weights are NGram counts, or IDF sums with the IdfTable bound (flag 1). They are kept in double
+ * precision, as the pipeline computes them: the score is rounded to two decimals, and an IDF sum
+ * in float precision can land on the other side of a rounding boundary. Flag 2 marks gold NGrams
+ * taken from the correct answers, flag 4 that named entities were available for some document.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class FeatureTable {
+
+  // "H3FT"
+  static final int MAGIC = 0x48334654;
+
+  // Version 1 had float columns
+  static final int VERSION = 2;
+
+  public static final int FLAG_IDF = 1;
+
+  public static final int FLAG_GOLD = 2;
+
+  public static final int FLAG_NER = 4;
+
+  private static final int orders = AnswerFeatures.ORDERS;
+
+  private int flags;
+
+  private int questions = 0;
+
+  private int answers = 0;
+
+  private int[] starts = new int[1024];
+
+  private byte[] correct = new byte[4096];
+
+  private double[][] matched = new double[orders][4096];
+
+  private double[][] total = new double[orders][4096];
+
+  private double[] ner = new double[4096];
+
+  private short[] entities = new short[4096];
+
+  /**
+   * An empty table, filled with startQuestion and addAnswer.
+   */
+  public FeatureTable(int flags) {
+    this.flags = flags;
+  }
+
+  public void startQuestion() {
+    if (questions + 1 >= starts.length)
+      starts = Arrays.copyOf(starts, 2 * starts.length);
+    starts[questions++] = answers;
+  }
+
+  /**
+   * Adds a row to the current question from answer a of AnswerFeatures.overlaps.
+   */
+  public void addAnswer(boolean isCorrect, double[] overlaps, int a, double nerScore,
+          int sharedEntities) {
+    if (answers == correct.length)
+      grow();
+    correct[answers] = (byte) (isCorrect ? 1 : 0);
+    for (int j = 0; j < orders; j++) {
+      matched[j][answers] = overlaps[2 * a * orders + j];
+      total[j][answers] = overlaps[(2 * a + 1) * orders + j];
+    }
+    ner[answers] = nerScore;
+    entities[answers] = (short) Math.min(sharedEntities, Short.MAX_VALUE);
+    answers++;
+  }
+
+  void setFlag(int flag) {
+    flags |= flag;
+  }
+
+  public int getFlags() {
+    return flags;
+  }
+
+  public int getQuestions() {
+    return questions;
+  }
+
+  public int getAnswers() {
+    return answers;
+  }
+
+  /**
+   * First row of question q; start(getQuestions()) is the number of rows.
+   */
+  public int start(int q) {
+    return (q < questions) ? starts[q] : answers;
+  }
+
+  public boolean isCorrect(int row) {
+    return correct[row] != 0;
+  }
+
+  /**
+   * Column of the matched NGram weights of the given order, getAnswers() long or longer.
+   */
+  public double[] matched(int order) {
+    return matched[order - 1];
+  }
+
+  public double[] total(int order) {
+    return total[order - 1];
+  }
+
+  public double[] ner() {
+    return ner;
+  }
+
+  public short[] entities() {
+    return entities;
+  }
+
+  public void write(File file) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+            file), 64 * 1024));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(flags);
+      out.writeInt(questions);
+      out.writeInt(answers);
+      for (int q = 0; q <= questions; q++) {
+        out.writeInt(start(q));
+      }
+      out.write(correct, 0, answers);
+      for (int j = 0; j < orders; j++) {
+        writeDoubles(out, matched[j]);
+      }
+      for (int j = 0; j < orders; j++) {
+        writeDoubles(out, total[j]);
+      }
+      writeDoubles(out, ner);
+      for (int i = 0; i < answers; i++) {
+        out.writeShort(entities[i]);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  public static FeatureTable read(File file) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file),
+            64 * 1024));
+    try {
+      if (in.readInt() != MAGIC)
+        throw new IOException("Not a feature table: " + file);
+      int version = in.readInt();
+      if (version != VERSION)
+        throw new IOException("Feature table " + file + " has version " + version + ", expected "
+                + VERSION + "; write it again with the features CPE");
+      FeatureTable table = new FeatureTable(in.readInt());
+      table.questions = in.readInt();
+      table.answers = in.readInt();
+      int n = table.answers;
+      table.starts = new int[table.questions + 1];
+      for (int q = 0; q <= table.questions; q++) {
+        table.starts[q] = in.readInt();
+      }
+      table.correct = new byte[n];
+      in.readFully(table.correct);
+      table.matched = new double[orders][];
+      table.total = new double[orders][];
+      for (int j = 0; j < orders; j++) {
+        table.matched[j] = readDoubles(in, n);
+      }
+      for (int j = 0; j < orders; j++) {
+        table.total[j] = readDoubles(in, n);
+      }
+      table.ner = readDoubles(in, n);
+      table.entities = new short[n];
+      for (int i = 0; i < n; i++) {
+        table.entities[i] = in.readShort();
+      }
+      return table;
+    } finally {
+      in.close();
+    }
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private void grow() {
+    int n = 2 * correct.length;
+    correct = Arrays.copyOf(correct, n);
+    for (int j = 0; j < orders; j++) {
+      matched[j] = Arrays.copyOf(matched[j], n);
+      total[j] = Arrays.copyOf(total[j], n);
+    }
+    ner = Arrays.copyOf(ner, n);
+    entities = Arrays.copyOf(entities, n);
+  }
+
+  private void writeDoubles(DataOutputStream out, double[] column) throws IOException {
+    for (int i = 0; i < answers; i++) {
+      out.writeDouble(column[i]);
+    }
+  }
+
+  private static double[] readDoubles(DataInputStream in, int n) throws IOException {
+    double[] column = new double[n];
+    for (int i = 0; i < n; i++) {
+      column[i] = in.readDouble();
+    }
+    return column;
+  }
+}
@@ -0,0 +1,186 @@
+/**
+ * Writes the raw scoring features of every answer to a columnar file for offline weight tuning
+ */
+package cpeFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.collection.CasConsumer_ImplBase;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceAccessException;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.ResourceProcessException;
+import org.apache.uima.util.ProcessTrace;
+import org.cleartk.ne.type.NamedEntityMention;
+
+import annotators.AnswerFeatures;
+import annotators.GoldNGramIndex;
+import annotators.IdfTable;
+import annotators.NerDistance;
+
+import edu.cmu.deiis.types.Answer;
+import edu.cmu.deiis.types.DegradedScoring;
+import edu.cmu.deiis.types.Question;
+
+/**
+ * Trying other weights for the n-gram orders or the named entity score used to take a pipeline
+ * run per setting. This consumer records what the final score is made of instead: for every
+ * answer the matched and total NGram weight of each order, the named entity distance score of
+ * CASEvaluator, the number of question entities it shares and whether it is correct. The
+ * {@link FeatureTable} is written at the end of the collection, and tools.WeightSweep evaluates
+ * weight settings on it without the pipeline.
+ * <p>
+ * The features are computed from the document text as {@link annotators.AnswerFeatures} does, so
+ * they do not depend on the LSH filter, top-k pruning or deadlines of NGramAnnotator. Parameters:
+ * <ul>
+ * <li><code>OutputFile</code> - feature table to write</li>
+ * <li><code>Gold</code> - match the NGrams of the correct answers too, as gold_pipeline does</li>
+ * </ul>
+ * The GoldNGramIndex and IdfTable resources are optional, as for NGramAnnotator.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class FeatureWriter extends CasConsumer_ImplBase {
+
+  public static final String PARAM_OUTPUT_FILE = "OutputFile";
+
+  public static final String PARAM_GOLD = "Gold";
+
+  private File output;
+
+  private boolean gold;
+
+  private AnswerFeatures features;
+
+  // Rows collected so far, null once written
+  private FeatureTable table;
+
+  public void initialize() throws ResourceInitializationException {
+    output = new File((String) getConfigParameterValue(PARAM_OUTPUT_FILE));
+    if (output.getAbsoluteFile().getParentFile() != null)
+      output.getAbsoluteFile().getParentFile().mkdirs();
+    gold = Boolean.TRUE.equals(getConfigParameterValue(PARAM_GOLD));
+
+    GoldNGramIndex goldIndex;
+    IdfTable idfTable;
+    try {
+      goldIndex = (GoldNGramIndex) getUimaContext().getResourceObject(GoldNGramIndex.RESOURCE_KEY);
+      idfTable = (IdfTable) getUimaContext().getResourceObject(IdfTable.RESOURCE_KEY);
+    } catch (ResourceAccessException e) {
+      throw new ResourceInitializationException(e);
+    }
+    features = new AnswerFeatures(goldIndex, idfTable);
+    table = new FeatureTable(((idfTable != null) ? FeatureTable.FLAG_IDF : 0)
+            | (gold ? FeatureTable.FLAG_GOLD : 0));
+  }
+
+  public synchronized void processCas(CAS aCAS) throws ResourceProcessException {
+    JCas jcas;
+    try {
+      jcas = aCAS.getJCas();
+    } catch (CASException e) {
+      throw new ResourceProcessException(e);
+    }
+    if (table == null)
+      return;
+
+    Iterator<Annotation> questionIter = jcas.getAnnotationIndex(Question.type).iterator();
+    if (!questionIter.hasNext())
+      return;
+    String input = jcas.getDocumentText();
+    Question q = (Question) questionIter.next();
+    features.setQuestion(input.substring(q.getBegin(), q.getEnd()));
+
+    // Named entities as CASEvaluator takes them; degraded documents are ranked without
+    boolean withEntities = (jcas.getTypeSystem().getType(NamedEntityMention.class.getName())
+            != null) && !jcas.getAnnotationIndex(DegradedScoring.type).iterator().hasNext();
+    if (withEntities)
+      table.setFlag(FeatureTable.FLAG_NER);
+    FSIterator<Annotation> neIter = withEntities ? jcas.getAnnotationIndex(
+            NamedEntityMention.type).iterator() : null;
+    ArrayList<NamedEntityMention> ners = withEntities ? NerDistance.nextMentions(neIter, q
+            .getEnd()) : new ArrayList<NamedEntityMention>();
+
+    ArrayList<Answer> answers = new ArrayList<Answer>();
+    ArrayList<Double> nerScores = new ArrayList<Double>();
+    ArrayList<Integer> shared = new ArrayList<Integer>();
+    Iterator<Annotation> answerIter = jcas.getAnnotationIndex(Answer.type).iterator();
+    while (answerIter.hasNext()) {
+      Answer a = (Answer) answerIter.next();
+      // Empty answers are never scored
+      if (a.getBegin() >= a.getEnd())
+        continue;
+      String text = input.substring(a.getBegin(), a.getEnd());
+      if (a.getIsCorrect())
+        features.addCorrect(text, gold);
+      features.add(text);
+      answers.add(a);
+      if (withEntities) {
+        ArrayList<NamedEntityMention> anem = NerDistance.nextMentions(neIter, a.getEnd());
+        nerScores.add(NerDistance.score(ners, anem));
+        shared.add(sharedEntities(ners, anem));
+      } else {
+        nerScores.add(0.0);
+        shared.add(0);
+      }
+    }
+
+    double[] overlaps = features.overlaps();
+    table.startQuestion();
+    for (int i = 0; i < answers.size(); i++) {
+      table.addAnswer(answers.get(i).getIsCorrect(), overlaps, i, nerScores.get(i), shared
+              .get(i));
+    }
+  }
+
+  public void collectionProcessComplete(ProcessTrace aTrace) throws ResourceProcessException,
+          IOException {
+    write();
+  }
+
+  public void destroy() {
+    // The CPE calls destroy without collectionProcessComplete when it is stopped
+    try {
+      write();
+    } catch (IOException e) {
+      System.out.println("Feature table not written: " + e.getMessage());
+    }
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private synchronized void write() throws IOException {
+    if (table == null)
+      return;
+    table.write(output);
+    System.out.printf("Feature table: %d answers of %d questions written to %s%n", table
+            .getAnswers(), table.getQuestions(), output);
+    table = null;
+  }
+
+  // Question entities the answer mentions as well
+  private static int sharedEntities(ArrayList<NamedEntityMention> ners,
+          ArrayList<NamedEntityMention> anem) {
+    HashSet<String> mentioned = new HashSet<String>();
+    for (NamedEntityMention n : anem) {
+      mentioned.add(n.getCoveredText());
+    }
+    int shared = 0;
+    for (NamedEntityMention n : ners) {
+      if (mentioned.contains(n.getCoveredText()))
+        shared++;
+    }
+    return shared;
+  }
+}
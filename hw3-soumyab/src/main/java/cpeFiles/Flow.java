@@ -0,0 +1,58 @@
+/**
+ * Reactive streams interfaces of java.util.concurrent.Flow, for the Java 6 build
+ */
+package cpeFiles;
+
+/**
+ * The interfaces of <code>java.util.concurrent.Flow</code>, which only exists from Java 9 on,
+ * with the same names, signatures and rules. Subscribers written against them move to the JDK
+ * interfaces by changing the import once the build targets Java 9.
+ *
+ * @author Soumya Batra
+ *
+ */
+public final class Flow {
+
+  private Flow() {
+  }
+
+  /**
+   * Producer of items that subscribers receive as they request them.
+   */
+  public interface Publisher<T> {
+    void subscribe(Subscriber<? super T> subscriber);
+  }
+
+  /**
+   * Receiver of items. onSubscribe is called first, then onNext at most as many times as
+   * requested, then onComplete or onError at most once.
+   */
+  public interface Subscriber<T> {
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+  }
+
+  /**
+   * Link between a publisher and one subscriber.
+   */
+  public interface Subscription {
+    /**
+     * Adds n items to the demand. A non-positive n fails the subscription with an
+     * IllegalArgumentException.
+     */
+    void request(long n);
+
+    void cancel();
+  }
+
+  /**
+   * Subscriber that publishes what it makes of its items.
+   */
+  public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+  }
+}
@@ -0,0 +1,241 @@
+/**
+ * Synchronous NER client behind a circuit breaker
+ */
+package cpeFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.ResourceSpecifier;
+import org.apache.uima.resource.metadata.ProcessingResourceMetaData;
+import org.apache.uima.util.XMLInputSource;
+
+import annotators.Deadline;
+import annotators.Replay;
+import tools.DescriptorCache;
+
+import edu.cmu.deiis.types.DegradedScoring;
+
+/**
+ * Runs the JMS client of scnlp-soumyab-client.xml on every CAS unless the {@link CircuitBreaker}
+ * is open. A CAS the service fails on or that skips the service is marked with a DegradedScoring
+ * annotation instead of failing the CPE, and CASEvaluator ranks its answers on NGram scores
+ * alone. Every call is bounded by the client's timeout while the breaker is closed and costs
+ * nothing while it is open.
+ * <p>
+ * Parameters:
+ * <ul>
+ * <li><code>ClientDescriptor</code> - path of the client descriptor</li>
+ * <li><code>LatencyBudgetMillis</code> - 99th percentile latency above which the breaker opens</li>
+ * <li><code>BreakerOpenMillis</code> - time the breaker stays open before a trial request</li>
+ * <li><code>MetadataCache</code> - directory in which the service metadata is kept</li>
+ * </ul>
+ * Creating the client blocks on the service's getMeta reply, for up to the client descriptor's
+ * getmetatimeout, so it is created in the background and the rest of the pipeline initializes
+ * meanwhile. If the service cannot be reached the failure is logged and every document is
+ * degraded, rather than failing the CPE. With <code>MetadataCache</code> set, the metadata the
+ * service returns is kept under the checksum of the client descriptor. Without a cached copy the
+ * first document waits for the client. With one, the cached type system is checked at
+ * initialization in place of getMeta, and the service is confirmed lazily: the first document
+ * waits at most the latency budget for the client, and documents that come while it is still
+ * starting are degraded instead of waiting.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class GuardedNerClient extends JCasAnnotator_ImplBase {
+
+  public static final String PARAM_CLIENT_DESCRIPTOR = "ClientDescriptor";
+
+  public static final String PARAM_LATENCY_BUDGET = "LatencyBudgetMillis";
+
+  public static final String PARAM_OPEN_MILLIS = "BreakerOpenMillis";
+
+  public static final String PARAM_METADATA_CACHE = "MetadataCache";
+
+  // Name of the current annotator
+  static final String annotator = "NerCircuitBreaker";
+
+  // Latency budget when LatencyBudgetMillis is not set
+  private static final int defaultBudgetMillis = 2000;
+
+  // Type every NER service must output
+  private static final String mentionType = "org.cleartk.ne.type.NamedEntityMention";
+
+  // Synchronous client of the NER service
+  private AnalysisEngine client;
+
+  // Client being created in the background, until process first needs it
+  private FutureTask<AnalysisEngine> pending;
+
+  // Cache of the service metadata and its key, null without MetadataCache
+  private DescriptorCache cache;
+
+  private String metadataKey;
+
+  // Metadata of the service from the cache, null if there was none
+  private ProcessingResourceMetaData cachedMetadata;
+
+  // Longest wait of the first document for a client started from cached metadata
+  private long budgetMillis;
+
+  // Whether a document already waited for the client
+  private boolean waited = false;
+
+  private CircuitBreaker breaker;
+
+  // Documents ranked without named entities, and how many of them came while the client was
+  // starting
+  private long degraded = 0;
+
+  private long degradedStarting = 0;
+
+  @Override
+  public void initialize(UimaContext aContext) throws ResourceInitializationException {
+    super.initialize(aContext);
+    breaker = newBreaker(aContext);
+    Integer budget = (Integer) aContext.getConfigParameterValue(PARAM_LATENCY_BUDGET);
+    budgetMillis = (budget != null) ? budget : defaultBudgetMillis;
+    File descriptor = new File((String) aContext.getConfigParameterValue(PARAM_CLIENT_DESCRIPTOR));
+    String cacheDir = (String) aContext.getConfigParameterValue(PARAM_METADATA_CACHE);
+    try {
+      final ResourceSpecifier spec = UIMAFramework.getXMLParser().parseResourceSpecifier(
+              new XMLInputSource(descriptor));
+      if (cacheDir != null) {
+        cache = new DescriptorCache(new File(cacheDir));
+        metadataKey = DescriptorCache.checksum(descriptor) + "-meta";
+        cachedMetadata = (ProcessingResourceMetaData) cache.load(metadataKey);
+      }
+      if (cachedMetadata != null)
+        checkMetadata(cachedMetadata);
+
+      pending = new FutureTask<AnalysisEngine>(new Callable<AnalysisEngine>() {
+        public AnalysisEngine call() throws ResourceInitializationException {
+          return UIMAFramework.produceAnalysisEngine(spec);
+        }
+      });
+      Thread starter = new Thread(pending, annotator + " client");
+      starter.setDaemon(true);
+      starter.start();
+    } catch (Exception e) {
+      throw new ResourceInitializationException(e);
+    }
+  }
+
+  @Override
+  public void process(JCas jcas) throws AnalysisEngineProcessException {
+    // The named entities of an unchanged document come from the result store
+    if (Replay.isReplayed(jcas))
+      return;
+    // A document out of time is not sent, and is ranked on its n-gram scores
+    if (!Deadline.hasExpired(jcas) && (client(clientWaitMillis()) != null)
+            && breaker.allowRequest()) {
+      long start = System.nanoTime();
+      try {
+        client.process(jcas);
+        breaker.success(System.nanoTime() - start);
+        return;
+      } catch (Exception e) {
+        // Any failure, not only a process exception, ends the request the breaker let through
+        breaker.failure();
+      }
+    }
+    markDegraded(jcas);
+    degraded++;
+    if (pending != null)
+      degradedStarting++;
+  }
+
+  @Override
+  public void destroy() {
+    System.out.println(breaker.report() + ", " + degraded + " documents degraded ("
+            + degradedStarting + " while the client was starting)");
+    if (client(-1) != null)
+      client.destroy();
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // How long this document may wait for a client still being created: until it is created
+  // without cached metadata, the latency budget for the first document with it, and not at all
+  // for the next ones
+  private long clientWaitMillis() {
+    if (cachedMetadata == null)
+      return -1;
+    long wait = waited ? 0 : budgetMillis;
+    waited = true;
+    return wait;
+  }
+
+  // The client, waiting up to waitMillis (-1 for as long as it takes) if it is still being
+  // created. Null while it is still being created, and for good if creating it failed
+  private AnalysisEngine client(long waitMillis) {
+    if (pending == null)
+      return client;
+    try {
+      client = (waitMillis < 0) ? pending.get() : pending.get(waitMillis, TimeUnit.MILLISECONDS);
+      storeMetadata();
+    } catch (TimeoutException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      System.err.println(annotator + ": NER client failed to start: " + e.getCause());
+    }
+    pending = null;
+    return client;
+  }
+
+  // Checks the metadata the service returned and keeps it for the next start
+  private void storeMetadata() {
+    ProcessingResourceMetaData metadata = client.getProcessingResourceMetaData();
+    if (cachedMetadata == null)
+      checkMetadata(metadata);
+    if (cache == null)
+      return;
+    try {
+      cache.store(metadataKey, metadata);
+    } catch (IOException e) {
+      System.err.println(annotator + ": cannot cache NER service metadata: " + e);
+    }
+  }
+
+  // Warns when the service cannot produce the named entities CASEvaluator scores
+  private static void checkMetadata(ProcessingResourceMetaData metadata) {
+    if ((metadata.getTypeSystem() != null)
+            && (metadata.getTypeSystem().getType(mentionType) == null))
+      System.err.println(annotator + ": NER service metadata has no " + mentionType
+              + ", documents will be ranked without named entities");
+  }
+
+  // Breaker configured by the LatencyBudgetMillis and BreakerOpenMillis parameters
+  static CircuitBreaker newBreaker(UimaContext aContext) {
+    Integer budget = (Integer) aContext.getConfigParameterValue(PARAM_LATENCY_BUDGET);
+    Integer open = (Integer) aContext.getConfigParameterValue(PARAM_OPEN_MILLIS);
+    return new CircuitBreaker((budget != null) ? budget : defaultBudgetMillis, (open != null) ? open
+            : 30000);
+  }
+
+  // Flags the document as ranked without named entities
+  static void markDegraded(JCas jcas) {
+    DegradedScoring flag = new DegradedScoring(jcas, 0, jcas.getDocumentText().length());
+    flag.setCasProcessorId(annotator);
+    flag.setConfidence(0.0);
+    flag.addToIndexes();
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Reads the input documents and replays the results of those unchanged since an earlier run
+ */
+package cpeFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader_ImplBase;
+import org.apache.uima.examples.SourceDocumentInformation;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+
+import tools.TextFiles;
+
+import edu.cmu.deiis.types.ResultKey;
+
+/**
+ * Reads the input files like the file system reader and keys every document by the SHA-1 of its
+ * text and the SHA-1 of the pipeline configuration, in a ResultKey annotation. When the
+ * {@link ResultStore} holds results under that key, they are added to the CAS and the key is
+ * marked replayed: the NER client and the annotators then skip the document, and CASEvaluator
+ * ranks it from the replayed annotations. Only new and changed documents pay for NER and NGram
+ * scoring, and {@link ResultRecorder} stores their results for the next run. Stored results that
+ * cannot be read back are deleted and the document is analyzed as if they were missing.
+ * <p>
+ * The configuration hash covers the files named by <code>ConfigurationFiles</code>, normally the
+ * descriptors of the pipeline, and the files the resources declared in them are loaded from, such
+ * as a bound gold n-gram index or IDF table. A change to the annotator code itself is not seen,
+ * and needs the store directory to be cleared.
+ * <p>
+ * hw3-soumyab-memo-CPE.xml uses this reader in place of the file system reader. Parameters:
+ * <ul>
+ * <li><code>InputDirectory</code> - directory of the input text files</li>
+ * <li><code>StoreDirectory</code> - directory of the result store, shared with ResultRecorder</li>
+ * <li><code>ConfigurationFiles</code> - files whose contents make up the configuration hash</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class MemoizingCollectionReader extends CollectionReader_ImplBase {
+
+  public static final String PARAM_INPUTDIR = "InputDirectory";
+
+  public static final String PARAM_STORE_DIR = "StoreDirectory";
+
+  public static final String PARAM_CONFIGURATION_FILES = "ConfigurationFiles";
+
+  // Input files in the order they are handed to the CPE
+  private List<File> files;
+
+  private int delivered = 0;
+
+  private ResultStore store;
+
+  // Hash of the configuration files, the same for every document of the run
+  private String configurationHash;
+
+  // Documents replayed, and analyzed because they changed, were not seen before, or were seen
+  // unchanged without results stored for this configuration
+  private int replayed = 0;
+
+  private int changed = 0;
+
+  private int added = 0;
+
+  private int unstored = 0;
+
+  private int corrupt = 0;
+
+  @Override
+  public void initialize() throws ResourceInitializationException {
+    try {
+      files = TextFiles.list(new File((String) getConfigParameterValue(PARAM_INPUTDIR)));
+      store = new ResultStore(new File((String) getConfigParameterValue(PARAM_STORE_DIR)));
+      configurationHash = ResultStore
+              .configurationHash((String[]) getConfigParameterValue(PARAM_CONFIGURATION_FILES));
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+  }
+
+  public boolean hasNext() {
+    return delivered < files.size();
+  }
+
+  public void getNext(CAS aCAS) throws IOException, CollectionException {
+    File file = files.get(delivered);
+    String text = TextFiles.read(file);
+    String hash = ResultStore.hash(text);
+    try {
+      JCas jcas = aCAS.getJCas();
+      ResultKey key = addDocument(jcas, text, hash, store.contains(configurationHash, hash));
+      String previous = store.previousHash(file.getName());
+      if (key.getReplayed() && !replay(jcas, key)) {
+        // The CAS may hold part of the stored annotations, it starts over without them
+        aCAS.reset();
+        jcas = aCAS.getJCas();
+        addDocument(jcas, text, hash, false);
+        corrupt++;
+      } else if (key.getReplayed()) {
+        replayed++;
+      } else if (previous == null) {
+        added++;
+      } else if (!previous.equals(hash)) {
+        changed++;
+      } else {
+        unstored++;
+      }
+      store.record(file.getName(), hash);
+
+      // Also store location of source document in CAS, as the file system reader does
+      SourceDocumentInformation srcDocInfo = new SourceDocumentInformation(jcas);
+      srcDocInfo.setUri(file.getAbsoluteFile().toURI().toURL().toString());
+      srcDocInfo.setOffsetInSource(0);
+      srcDocInfo.setDocumentSize((int) file.length());
+      srcDocInfo.setLastSegment(delivered == files.size() - 1);
+      srcDocInfo.addToIndexes();
+    } catch (CASException e) {
+      throw new CollectionException(e);
+    } finally {
+      delivered++;
+    }
+  }
+
+  public Progress[] getProgress() {
+    return new Progress[] { new ProgressImpl(delivered, files.size(), Progress.ENTITIES) };
+  }
+
+  public void close() throws IOException {
+    System.out.println("Result store: " + replayed + " of " + delivered + " documents replayed, "
+            + changed + " changed, " + added + " new, " + unstored + " not stored, " + corrupt
+            + " corrupt");
+    store.writeManifest();
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Sets the text of the document and its key
+  private ResultKey addDocument(JCas jcas, String text, String hash, boolean replayed) {
+    jcas.setDocumentText(text);
+    jcas.setDocumentLanguage("en");
+    ResultKey key = new ResultKey(jcas, 0, text.length());
+    key.setDocumentHash(hash);
+    key.setConfigurationHash(configurationHash);
+    key.setReplayed(replayed);
+    key.addToIndexes();
+    return key;
+  }
+
+  // Adds the stored results of the document to the CAS, or deletes them when they cannot be read
+  private boolean replay(JCas jcas, ResultKey key) {
+    try {
+      store.replay(jcas, key);
+      return true;
+    } catch (IOException e) {
+      System.out.println("Result store: " + e.getMessage() + ", analyzing the document again");
+      store.remove(key.getConfigurationHash(), key.getDocumentHash());
+      return false;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Flow controller that runs independent delegates of an aggregate on the same CAS in parallel
+ */
+package cpeFiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.flow.CasFlowController_ImplBase;
+import org.apache.uima.flow.CasFlow_ImplBase;
+import org.apache.uima.flow.FinalStep;
+import org.apache.uima.flow.Flow;
+import org.apache.uima.flow.FlowControllerContext;
+import org.apache.uima.flow.ParallelStep;
+import org.apache.uima.flow.SimpleStep;
+import org.apache.uima.flow.Step;
+import org.apache.uima.resource.ResourceInitializationException;
+
+/**
+ * Every value of the <code>Steps</code> parameter is one step of the flow, a comma separated list
+ * of delegate keys. A step with several keys is issued as a ParallelStep: UIMA-AS sends the CAS to
+ * all of those delegates at once and merges their results before the next step, so the step takes
+ * as long as its slowest delegate rather than the sum of all of them. In hw3-soumyab-parallel-aae
+ * the NER service and the QA / NGram branch, which does not read named entities, form one such
+ * step, and CASEvaluator sees the joined CAS. An in-process aggregate runs the delegates of a
+ * parallel step one after the other.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ParallelFlowController extends CasFlowController_ImplBase {
+
+  public static final String PARAM_STEPS = "Steps";
+
+  // Delegate keys of every step, in order
+  private final List<List<String>> steps = new ArrayList<List<String>>();
+
+  @Override
+  public void initialize(FlowControllerContext aContext) throws ResourceInitializationException {
+    super.initialize(aContext);
+    String[] values = (String[]) aContext.getConfigParameterValue(PARAM_STEPS);
+    for (String value : values) {
+      List<String> step = new ArrayList<String>();
+      for (String key : value.split(",")) {
+        key = key.trim();
+        if (!aContext.getAnalysisEngineMetaDataMap().containsKey(key))
+          throw new ResourceInitializationException(new IllegalArgumentException(
+                  "Unknown delegate in " + PARAM_STEPS + ": " + key));
+        step.add(key);
+      }
+      steps.add(step);
+    }
+  }
+
+  @Override
+  public Flow computeFlow(CAS aCAS) throws AnalysisEngineProcessException {
+    return new StepFlow();
+  }
+
+  // Goes through the steps once for a CAS
+  class StepFlow extends CasFlow_ImplBase {
+    private int next = 0;
+
+    public Step next() {
+      if (next == steps.size())
+        return new FinalStep();
+      List<String> step = steps.get(next++);
+      if (step.size() == 1)
+        return new SimpleStep(step.get(0));
+      return new ParallelStep(step);
+    }
+  }
+}
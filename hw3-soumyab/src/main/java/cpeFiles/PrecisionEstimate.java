@@ -0,0 +1,146 @@
+/**
+ * Running estimate of the average precision of a run from the rankings seen so far
+ */
+package cpeFiles;
+
+/**
+ * Subscribes to the {@link RankingStream} of a run and keeps the mean and variance of the
+ * per-question precisions (Welford's update), and from them a confidence interval for the average
+ * precision of the whole collection. A question without correct answers has no precision (0 / 0)
+ * and is left out. Precisions lie between 0 and 1, and a run of equal ones has a sample variance of
+ * 0 that says nothing about the next, so the interval is the Agresti-Coull one: z * z more
+ * precisions are counted, half of them 0 and half 1, which for precisions of only 0 and 1 gives
+ * about the Wilson interval. Documents are sampled without replacement from a collection of known
+ * size, so the interval is narrowed by the finite population correction and is empty once every
+ * document is scored. The estimate converges once at least <code>minDocuments</code> precisions
+ * are in and the interval is narrower than <code>epsilon</code>.
+ *
+ * @author Soumya Batra
+ *
+ */
+class PrecisionEstimate implements Flow.Subscriber<RankedQuestion> {
+
+  // Coefficients of the rational approximation of the normal quantile, Abramowitz and Stegun
+  // 26.2.23, absolute error below 4.5e-4
+  private static final double[] c = { 2.515517, 0.802853, 0.010328 };
+
+  private static final double[] d = { 1.432788, 0.189269, 0.001308 };
+
+  // Documents in the collection
+  private final int population;
+
+  private final double confidence;
+
+  // Normal quantile of the confidence level
+  private final double z;
+
+  private final double epsilon;
+
+  private final int minDocuments;
+
+  private int n = 0;
+
+  // Questions left out for having no precision
+  private int skipped = 0;
+
+  private double mean = 0.0;
+
+  // Sum of squared differences from the mean
+  private double m2 = 0.0;
+
+  // Precisions seen when the estimate converged, -1 until it does
+  private int convergedAt = -1;
+
+  PrecisionEstimate(int population, double confidence, double epsilon, int minDocuments) {
+    if ((confidence <= 0.0) || (confidence >= 1.0))
+      throw new IllegalArgumentException("Confidence must be between 0 and 1: " + confidence);
+    this.population = population;
+    this.confidence = confidence;
+    this.z = quantile(1.0 - (1.0 - confidence) / 2);
+    this.epsilon = epsilon;
+    this.minDocuments = Math.max(2, minDocuments);
+  }
+
+  public void onSubscribe(Flow.Subscription subscription) {
+    subscription.request(Long.MAX_VALUE);
+  }
+
+  public void onNext(RankedQuestion item) {
+    add(item.getPrecision());
+  }
+
+  public void onError(Throwable throwable) {
+    System.out.println("Precision estimate: stream failed, " + throwable);
+  }
+
+  public void onComplete() {
+    System.out.println(report());
+  }
+
+  synchronized void add(double precision) {
+    if (Double.isNaN(precision) || Double.isInfinite(precision)) {
+      skipped++;
+      return;
+    }
+    n++;
+    double delta = precision - mean;
+    mean += delta / n;
+    m2 += delta * (precision - mean);
+    if ((convergedAt < 0) && (n >= minDocuments) && (2 * halfWidth() < epsilon))
+      convergedAt = n;
+  }
+
+  synchronized boolean isConverged() {
+    return convergedAt >= 0;
+  }
+
+  synchronized int getDocuments() {
+    return n;
+  }
+
+  synchronized int getSkipped() {
+    return skipped;
+  }
+
+  synchronized double getMean() {
+    return mean;
+  }
+
+  /**
+   * Half the width of the confidence interval, infinite before two precisions are in.
+   */
+  synchronized double halfWidth() {
+    if (n < 2)
+      return Double.POSITIVE_INFINITY;
+    double fpc = (population > 1) ? Math.sqrt(Math.max(0, population - n)
+            / (double) (population - 1)) : 1.0;
+    // Mean and squared differences with the added precisions, k / 2 of them 0 and k / 2 of them 1
+    double k = z * z;
+    double total = n + k;
+    double centre = (n * mean + k / 2) / total;
+    double squares = m2 + n * (mean - centre) * (mean - centre) + k / 2
+            * (centre * centre + (1 - centre) * (1 - centre));
+    return z * Math.sqrt(squares / (total - 1) / total) * fpc;
+  }
+
+  synchronized String report() {
+    String estimate = String.format("Precision estimate: %.3f +- %.3f (%.0f%% confidence) from "
+            + "%d of %d documents", mean, halfWidth(), confidence * 100, n, population);
+    if (skipped > 0)
+      estimate += String.format(" (%d without correct answers left out)", skipped);
+    if (convergedAt < 0)
+      return estimate + ", interval never narrower than " + epsilon;
+    return estimate + String.format(", narrower than %s after %d documents", epsilon,
+            convergedAt);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Standard normal quantile of p, for p above 0.5
+  private static double quantile(double p) {
+    double t = Math.sqrt(-2 * Math.log(1 - p));
+    return t - (c[0] + c[1] * t + c[2] * t * t) / (1 + d[0] * t + d[1] * t * t + d[2] * t * t * t);
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * Ranked answers of one question, as streamed by RankingStream
+ */
+package cpeFiles;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What CASEvaluator writes to the output file of a document: its question, the answers in rank
+ * order with their final scores, and the precision at the number of correct answers.
+ *
+ * @author Soumya Batra
+ *
+ */
+public final class RankedQuestion {
+
+  /**
+   * One line of the ranking.
+   */
+  public static final class Answer {
+    private final String text;
+
+    private final double score;
+
+    private final boolean correct;
+
+    public Answer(String text, double score, boolean correct) {
+      this.text = text;
+      this.score = score;
+      this.correct = correct;
+    }
+
+    public String getText() {
+      return text;
+    }
+
+    public double getScore() {
+      return score;
+    }
+
+    public boolean isCorrect() {
+      return correct;
+    }
+  }
+
+  // Name of the output file of the document
+  private final String document;
+
+  private final String question;
+
+  private final List<Answer> answers;
+
+  private final double precision;
+
+  // Ranked on NGram scores alone
+  private final boolean degraded;
+
+  public RankedQuestion(String document, String question, List<Answer> answers,
+          double precision, boolean degraded) {
+    this.document = document;
+    this.question = question;
+    this.answers = Collections.unmodifiableList(answers);
+    this.precision = precision;
+    this.degraded = degraded;
+  }
+
+  public String getDocument() {
+    return document;
+  }
+
+  public String getQuestion() {
+    return question;
+  }
+
+  public List<Answer> getAnswers() {
+    return answers;
+  }
+
+  public double getPrecision() {
+    return precision;
+  }
+
+  public boolean isDegraded() {
+    return degraded;
+  }
+}
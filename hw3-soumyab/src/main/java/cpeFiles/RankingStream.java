@@ -0,0 +1,246 @@
+/**
+ * Publisher of the rankings of a CPE run, one item per question as soon as it is ranked
+ */
+package cpeFiles;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CASEvaluator writes every ranking to a file once it is done with the document; with its
+ * <code>Stream</code> parameter set it also submits the ranking here, so that an application
+ * embedding the CPE can consume results while the collection is still being processed:
+ *
+ * <pre>
+ * RankingStream.named(&quot;results&quot;).subscribe(subscriber);
+ * cpe.process();
+ * </pre>
+ *
+ * Delivery follows the demand of each subscriber. Items a subscriber has not requested yet wait
+ * in its buffer of <code>capacity</code> items, and when that is full submit blocks, so a slow
+ * subscriber slows the CPE down rather than making the stream buffer the whole output. onNext
+ * runs on the CPE thread that submitted the item or on the thread that requested it, never on
+ * two threads at once for the same subscriber. A subscriber only sees items submitted after it
+ * subscribed. The stream completes when every CASEvaluator instance that opened it has closed it
+ * at the end of the collection, and it is then dropped, so the next run under the same name
+ * starts a new stream.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class RankingStream implements Flow.Publisher<RankedQuestion> {
+
+  // Streams by name, from the first open or subscribe until completed
+  private static final Map<String, RankingStream> streams = new HashMap<String, RankingStream>();
+
+  // Items buffered per subscriber before submit blocks
+  private static final int defaultCapacity = 256;
+
+  private final String name;
+
+  private final int capacity;
+
+  private final List<RankingSubscription> subscriptions = new ArrayList<RankingSubscription>();
+
+  // CASEvaluator instances submitting to the stream
+  private int producers = 0;
+
+  private boolean closed = false;
+
+  RankingStream(String name, int capacity) {
+    this.name = name;
+    this.capacity = Math.max(1, capacity);
+  }
+
+  /**
+   * The stream of the given name, created if needed.
+   */
+  public static RankingStream named(String name) {
+    synchronized (streams) {
+      RankingStream stream = streams.get(name);
+      if (stream == null) {
+        stream = new RankingStream(name, defaultCapacity);
+        streams.put(name, stream);
+      }
+      return stream;
+    }
+  }
+
+  // Called by every producer before its first submit
+  static RankingStream open(String name) {
+    RankingStream stream = named(name);
+    synchronized (stream) {
+      stream.producers++;
+    }
+    return stream;
+  }
+
+  public void subscribe(Flow.Subscriber<? super RankedQuestion> subscriber) {
+    if (subscriber == null)
+      throw new NullPointerException();
+    RankingSubscription s = new RankingSubscription(subscriber);
+    boolean completed;
+    synchronized (this) {
+      completed = closed;
+      if (!completed)
+        subscriptions.add(s);
+    }
+    subscriber.onSubscribe(s);
+    if (completed) {
+      s.closed = true;
+      s.drain();
+    }
+  }
+
+  /**
+   * Hands the ranking to every subscriber, waiting while a subscriber's buffer is full.
+   */
+  void submit(RankedQuestion item) throws InterruptedException {
+    RankingSubscription[] current;
+    synchronized (this) {
+      current = subscriptions.toArray(new RankingSubscription[subscriptions.size()]);
+    }
+    for (RankingSubscription s : current) {
+      s.offer(item);
+      // Delivered right away by this thread if it is requested and no other thread is draining
+      s.drain();
+    }
+  }
+
+  // Called by every producer at the end of the collection; the last one completes the stream
+  void close() {
+    RankingSubscription[] current;
+    synchronized (this) {
+      if (--producers > 0)
+        return;
+      closed = true;
+      current = subscriptions.toArray(new RankingSubscription[subscriptions.size()]);
+      subscriptions.clear();
+    }
+    synchronized (streams) {
+      if (streams.get(name) == this)
+        streams.remove(name);
+    }
+    for (RankingSubscription s : current) {
+      s.complete();
+    }
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private synchronized void remove(RankingSubscription s) {
+    subscriptions.remove(s);
+  }
+
+  // Buffer and demand of one subscriber. Only the thread that wins the drain counter calls the
+  // subscriber, so onNext is never called concurrently or recursively
+  class RankingSubscription implements Flow.Subscription {
+    private final Flow.Subscriber<? super RankedQuestion> subscriber;
+
+    private final LinkedList<RankedQuestion> buffer = new LinkedList<RankedQuestion>();
+
+    private final AtomicInteger drains = new AtomicInteger();
+
+    private long demand = 0;
+
+    private boolean cancelled = false;
+
+    // Set when no more items come; onComplete follows once the buffer is delivered
+    volatile boolean closed = false;
+
+    private Throwable error;
+
+    private boolean terminated = false;
+
+    RankingSubscription(Flow.Subscriber<? super RankedQuestion> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    public void request(long n) {
+      synchronized (this) {
+        if (n <= 0)
+          error = new IllegalArgumentException("Non-positive request " + n);
+        else
+          demand = (demand + n < 0) ? Long.MAX_VALUE : demand + n;
+      }
+      drain();
+    }
+
+    public void cancel() {
+      synchronized (this) {
+        cancelled = true;
+        buffer.clear();
+        notifyAll();
+      }
+      remove(this);
+    }
+
+    synchronized void offer(RankedQuestion item) throws InterruptedException {
+      while ((buffer.size() >= capacity) && !cancelled) {
+        wait();
+      }
+      if (cancelled)
+        return;
+      buffer.addLast(item);
+    }
+
+    void complete() {
+      closed = true;
+      drain();
+    }
+
+    // Delivers what is buffered and requested; called outside the lock after every change
+    void drain() {
+      if (drains.getAndIncrement() != 0)
+        return;
+      int missed = 1;
+      do {
+        while (true) {
+          RankedQuestion item = null;
+          Throwable failure = null;
+          boolean finish = false;
+          synchronized (this) {
+            if (cancelled || terminated) {
+              buffer.clear();
+              notifyAll();
+            } else if (error != null) {
+              failure = error;
+              terminated = true;
+              cancelled = true;
+              buffer.clear();
+              // A submit blocked on the full buffer returns now instead of waiting forever
+              notifyAll();
+            } else if ((demand > 0) && !buffer.isEmpty()) {
+              item = buffer.removeFirst();
+              demand--;
+              // Room for a blocked submit
+              notifyAll();
+            } else if (closed && buffer.isEmpty()) {
+              finish = true;
+              terminated = true;
+            }
+          }
+          if (failure != null) {
+            remove(this);
+            subscriber.onError(failure);
+            break;
+          }
+          if (finish) {
+            subscriber.onComplete();
+            break;
+          }
+          if (item == null)
+            break;
+          subscriber.onNext(item);
+        }
+        missed = drains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+  }
+}
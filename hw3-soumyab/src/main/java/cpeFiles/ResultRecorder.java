@@ -0,0 +1,91 @@
+/**
+ * Stores the results of the analyzed documents for MemoizingCollectionReader to replay
+ */
+package cpeFiles;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.collection.CasConsumer_ImplBase;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.ResourceProcessException;
+
+import annotators.Deadline;
+
+import edu.cmu.deiis.types.DegradedScoring;
+import edu.cmu.deiis.types.ResultKey;
+
+/**
+ * Saves the Questions, Answers, AnswerScores and named entity mentions of every document that was
+ * analyzed in this run into the {@link ResultStore}, under the key MemoizingCollectionReader put
+ * in the CAS. Replayed documents are already stored, and documents ranked without named entities
+ * or only partially scored before their deadline are left out so that the next run scores them
+ * again.
+ * <p>
+ * CASEvaluator adds the named entity score to the AnswerScores in place, so this consumer must come
+ * before it in the CPE. It takes one parameter:
+ * <ul>
+ * <li><code>StoreDirectory</code> - directory of the result store, as given to the reader</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ResultRecorder extends CasConsumer_ImplBase {
+
+  public static final String PARAM_STORE_DIR = "StoreDirectory";
+
+  private ResultStore store;
+
+  // Documents stored, and analyzed ones left out because they were degraded
+  private int saved = 0;
+
+  private int skipped = 0;
+
+  public void initialize() throws ResourceInitializationException {
+    try {
+      store = new ResultStore(new File((String) getConfigParameterValue(PARAM_STORE_DIR)));
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+  }
+
+  public void processCas(CAS aCAS) throws ResourceProcessException {
+    JCas jcas;
+    try {
+      jcas = aCAS.getJCas();
+    } catch (CASException e) {
+      throw new ResourceProcessException(e);
+    }
+
+    FSIterator<Annotation> it = jcas.getAnnotationIndex(ResultKey.type).iterator();
+    if (!it.hasNext())
+      throw new ResourceProcessException(new IllegalStateException(
+              "No ResultKey in the CAS, read the documents with MemoizingCollectionReader"));
+    ResultKey key = (ResultKey) it.next();
+    if (key.getReplayed())
+      return;
+    if (jcas.getAnnotationIndex(DegradedScoring.type).iterator().hasNext()
+            || Deadline.isPartial(jcas)) {
+      skipped++;
+      return;
+    }
+
+    try {
+      store.save(jcas, key);
+      saved++;
+    } catch (IOException e) {
+      throw new ResourceProcessException(e);
+    }
+  }
+
+  public void destroy() {
+    System.out.println("Result store: " + saved + " documents stored, " + skipped
+            + " degraded or partially scored documents not stored");
+  }
+}
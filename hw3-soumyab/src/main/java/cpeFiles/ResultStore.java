@@ -0,0 +1,355 @@
+/**
+ * Persistent store of the rankings of documents, keyed by content and configuration hashes
+ */
+package cpeFiles;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.cleartk.ne.type.NamedEntityMention;
+
+import edu.cmu.deiis.types.Answer;
+import edu.cmu.deiis.types.AnswerScore;
+import edu.cmu.deiis.types.Question;
+import edu.cmu.deiis.types.ResultKey;
+
+/**
+ * A directory holding a manifest of the input documents, <code>manifest.tsv</code> with the name
+ * and SHA-1 of the text of every document seen by the last run, and one subdirectory per pipeline
+ * configuration hash. A subdirectory holds one file per document hash with what CASEvaluator reads
+ * from the CAS: the Question and Answer annotations, the AnswerScores as NGramAnnotator left them,
+ * before the named entity score is added, and the spans of the named entity mentions. Replaying
+ * that file into a CAS gives CASEvaluator the same ranking as analyzing the document again.
+ * <p>
+ * Documents are keyed by their text and not their name, so a renamed document is replayed, and a
+ * change to any configuration file starts a new subdirectory rather than reusing stale rankings.
+ * Files are written to a temporary name first and renamed only when every write succeeded, so a
+ * run that is killed or runs out of disk leaves no partial result behind. A result file ends with
+ * an <code>E</code> line, and one without it is reported as corrupt.
+ *
+ * @author Soumya Batra
+ *
+ */
+class ResultStore {
+
+  // Name of the manifest in the store directory
+  private static final String manifestName = "manifest.tsv";
+
+  // Location of the data of a resource declared in a descriptor
+  private static final Pattern fileUrl = Pattern.compile("<fileUrl>\\s*([^<]+?)\\s*</fileUrl>");
+
+  private final File dir;
+
+  // Document hashes by name, as of the last run and as seen by this one
+  private final Map<String, String> previous = new HashMap<String, String>();
+
+  private final Map<String, String> current = new LinkedHashMap<String, String>();
+
+  ResultStore(File dir) throws IOException {
+    this.dir = dir;
+    if (!dir.isDirectory() && !dir.mkdirs())
+      throw new IOException("Cannot create result store " + dir);
+    File manifest = new File(dir, manifestName);
+    if (manifest.isFile()) {
+      BufferedReader in = reader(manifest);
+      try {
+        String line;
+        while ((line = in.readLine()) != null) {
+          int tab = line.lastIndexOf('\t');
+          if (tab > 0)
+            previous.put(line.substring(0, tab), line.substring(tab + 1));
+        }
+      } finally {
+        in.close();
+      }
+    }
+  }
+
+  /**
+   * Hash the document had in the last run, or null if it was not in the input.
+   */
+  String previousHash(String name) {
+    return previous.get(name);
+  }
+
+  /**
+   * Adds the document to the manifest written by writeManifest.
+   */
+  void record(String name, String hash) {
+    current.put(name, hash);
+  }
+
+  void writeManifest() throws IOException {
+    File tmp = new File(dir, manifestName + ".tmp");
+    PrintWriter out = writer(tmp);
+    try {
+      for (Map.Entry<String, String> entry : current.entrySet()) {
+        out.print(entry.getKey() + "\t" + entry.getValue() + "\n");
+      }
+    } finally {
+      out.close();
+    }
+    checkWritten(out, tmp);
+    commit(tmp, new File(dir, manifestName));
+  }
+
+  /**
+   * Whether results are stored for the document under the configuration.
+   */
+  boolean contains(String configurationHash, String documentHash) {
+    return file(configurationHash, documentHash).isFile();
+  }
+
+  /**
+   * Deletes the results of the document under the configuration.
+   */
+  void remove(String configurationHash, String documentHash) {
+    file(configurationHash, documentHash).delete();
+  }
+
+  /**
+   * Adds the stored annotations of the document to the CAS, which holds its text.
+   *
+   * @throws IOException
+   *           if the file cannot be read or is corrupt, in which case the CAS may hold some of
+   *           the annotations
+   */
+  void replay(JCas jcas, ResultKey key) throws IOException {
+    List<Answer> answers = new ArrayList<Answer>();
+    BufferedReader in = reader(file(key.getConfigurationHash(), key.getDocumentHash()));
+    try {
+      String line;
+      boolean ended = false;
+      while ((line = in.readLine()) != null) {
+        if (ended)
+          throw new IOException("Corrupt result file for " + key.getDocumentHash() + ": " + line);
+        String[] f = line.split("\t", -1);
+        if ("E".equals(f[0])) {
+          ended = true;
+          continue;
+        }
+        int begin = Integer.parseInt(f[1]), end = Integer.parseInt(f[2]);
+        if ("Q".equals(f[0])) {
+          Question q = new Question(jcas, begin, end);
+          q.setCasProcessorId(f[3]);
+          q.setConfidence(Double.parseDouble(f[4]));
+          q.addToIndexes();
+        } else if ("A".equals(f[0])) {
+          Answer a = new Answer(jcas, begin, end);
+          a.setIsCorrect(Boolean.parseBoolean(f[3]));
+          a.setCasProcessorId(f[4]);
+          a.setConfidence(Double.parseDouble(f[5]));
+          a.addToIndexes();
+          answers.add(a);
+        } else if ("S".equals(f[0])) {
+          AnswerScore as = new AnswerScore(jcas, begin, end);
+          as.setAnswer(answers.get(Integer.parseInt(f[3])));
+          as.setScore(Double.parseDouble(f[4]));
+          as.setCasProcessorId(f[5]);
+          as.setConfidence(Double.parseDouble(f[6]));
+          as.addToIndexes();
+        } else if ("N".equals(f[0])) {
+          NamedEntityMention ne = new NamedEntityMention(jcas, begin, end);
+          if (f[3].length() > 0)
+            ne.setMentionType(f[3]);
+          ne.addToIndexes();
+        } else {
+          throw new IOException("Corrupt result file for " + key.getDocumentHash() + ": " + line);
+        }
+      }
+      if (!ended)
+        throw new IOException("Truncated result file for " + key.getDocumentHash());
+    } catch (RuntimeException e) {
+      // A truncated or hand edited file
+      throw new IOException("Corrupt result file for " + key.getDocumentHash() + ": " + e);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Stores the annotations CASEvaluator reads from the CAS, which must not have been through
+   * CASEvaluator yet.
+   */
+  void save(JCas jcas, ResultKey key) throws IOException {
+    File subdir = new File(dir, key.getConfigurationHash());
+    if (!subdir.isDirectory() && !subdir.mkdirs())
+      throw new IOException("Cannot create " + subdir);
+    File tmp = new File(subdir, key.getDocumentHash() + ".tmp");
+    PrintWriter out = writer(tmp);
+    try {
+      FSIterator<Annotation> it = jcas.getAnnotationIndex(Question.type).iterator();
+      while (it.hasNext()) {
+        Question q = (Question) it.next();
+        out.print("Q\t" + q.getBegin() + "\t" + q.getEnd() + "\t" + q.getCasProcessorId() + "\t"
+                + q.getConfidence() + "\n");
+      }
+
+      // Answers are numbered in index order, and the AnswerScores refer to them by number
+      Map<Answer, Integer> numbers = new HashMap<Answer, Integer>();
+      it = jcas.getAnnotationIndex(Answer.type).iterator();
+      while (it.hasNext()) {
+        Answer a = (Answer) it.next();
+        numbers.put(a, numbers.size());
+        out.print("A\t" + a.getBegin() + "\t" + a.getEnd() + "\t" + a.getIsCorrect() + "\t"
+                + a.getCasProcessorId() + "\t" + a.getConfidence() + "\n");
+      }
+      it = jcas.getAnnotationIndex(AnswerScore.type).iterator();
+      while (it.hasNext()) {
+        AnswerScore as = (AnswerScore) it.next();
+        out.print("S\t" + as.getBegin() + "\t" + as.getEnd() + "\t" + numbers.get(as.getAnswer())
+                + "\t" + as.getScore() + "\t" + as.getCasProcessorId() + "\t"
+                + as.getConfidence() + "\n");
+      }
+
+      // Only the spans of the mentions are read by NerDistance
+      it = jcas.getAnnotationIndex(NamedEntityMention.type).iterator();
+      while (it.hasNext()) {
+        NamedEntityMention ne = (NamedEntityMention) it.next();
+        String type = ne.getMentionType();
+        out.print("N\t" + ne.getBegin() + "\t" + ne.getEnd() + "\t" + ((type != null) ? type : "")
+                + "\n");
+      }
+      out.print("E\n");
+    } finally {
+      out.close();
+    }
+    checkWritten(out, tmp);
+    commit(tmp, file(key.getConfigurationHash(), key.getDocumentHash()));
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  /**
+   * Hex SHA-1 of the UTF-8 bytes of a document text.
+   */
+  static String hash(String text) {
+    MessageDigest md = sha1();
+    try {
+      md.update(text.getBytes("UTF-8"));
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+    return hex(md.digest());
+  }
+
+  /**
+   * Hex SHA-1 over the contents of the configuration files, in the given order. The files that
+   * resources declared in a configuration file are loaded from (its <code>fileUrl</code>s, such as
+   * a bound GoldNGramIndex or IdfTable) are hashed after it, so rebuilding one of them changes the
+   * hash without it being listed.
+   */
+  static String configurationHash(String[] files) throws IOException {
+    MessageDigest md = sha1();
+    byte[] buf = new byte[8192];
+    if (files != null) {
+      for (String name : files) {
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        digest(new File(name), md, buf, contents);
+        Matcher m = fileUrl.matcher(contents.toString("UTF-8"));
+        while (m.find()) {
+          md.update(m.group(1).getBytes("UTF-8"));
+          md.update((byte) 0);
+          File resource = resourceFile(m.group(1));
+          // A missing file fails the pipeline when the resource loads, its URL alone is hashed
+          if (resource.isFile())
+            digest(resource, md, buf, null);
+        }
+      }
+    }
+    return hex(md.digest());
+  }
+
+  // Adds the contents of the file to the digest, and to the given stream unless it is null
+  private static void digest(File file, MessageDigest md, byte[] buf, OutputStream copy)
+          throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        md.update(buf, 0, n);
+        if (copy != null)
+          copy.write(buf, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+    // Separates the files, so moving bytes from one file to the next changes the hash
+    md.update((byte) 0);
+  }
+
+  // File named by the fileUrl of a resource, relative to the working directory as UIMA resolves
+  // a relative file URL
+  private static File resourceFile(String url) {
+    return new File(url.startsWith("file:") ? url.substring("file:".length()) : url);
+  }
+
+  private File file(String configurationHash, String documentHash) {
+    return new File(new File(dir, configurationHash), documentHash);
+  }
+
+  private static MessageDigest sha1() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String hex(byte[] digest) {
+    StringBuilder sb = new StringBuilder(2 * digest.length);
+    for (byte b : digest) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  private static BufferedReader reader(File file) throws IOException {
+    return new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+  }
+
+  private static PrintWriter writer(File file) throws IOException {
+    return new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+  }
+
+  // PrintWriter keeps its I/O errors to itself, so a temporary file that failed to be written in
+  // full is deleted here instead of being committed
+  private static void checkWritten(PrintWriter out, File tmp) throws IOException {
+    if (out.checkError()) {
+      tmp.delete();
+      throw new IOException("Cannot write " + tmp);
+    }
+  }
+
+  // Moves a fully written temporary file over the target
+  private static void commit(File tmp, File target) throws IOException {
+    if (target.exists() && !target.delete())
+      throw new IOException("Cannot replace " + target);
+    if (!tmp.renameTo(target))
+      throw new IOException("Cannot rename " + tmp + " to " + target);
+  }
+}
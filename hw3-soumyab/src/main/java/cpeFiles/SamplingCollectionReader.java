@@ -0,0 +1,134 @@
+/**
+ * Reads the input documents in random order until the average precision is known well enough
+ */
+package cpeFiles;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader_ImplBase;
+import org.apache.uima.examples.SourceDocumentInformation;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+
+import tools.TextFiles;
+
+/**
+ * A regression check only needs the average precision to within a few points, and the running
+ * average settles long before the end of the corpus. This reader hands the documents out in a
+ * random order, so that any prefix of the run is a sample of the collection, and subscribes a
+ * {@link PrecisionEstimate} to the {@link RankingStream} CASEvaluator publishes to. As soon as the
+ * confidence interval of the estimate is narrower than <code>Epsilon</code> the reader reports no
+ * more documents and the CPE ends normally; the documents already handed out are still scored
+ * and counted. The estimate, its interval and the number of documents it took are printed when
+ * the stream completes.
+ * <p>
+ * hw3-soumyab-sampling-CPE.xml uses this reader and sets the <code>Stream</code> parameter of
+ * CASEvaluator to the same name. Parameters:
+ * <ul>
+ * <li><code>InputDirectory</code> - directory of the input text files</li>
+ * <li><code>Stream</code> - name of the RankingStream CASEvaluator publishes to</li>
+ * <li><code>Epsilon</code> - width of the confidence interval to stop at, default 0.05</li>
+ * <li><code>Confidence</code> - confidence level of the interval, default 0.95</li>
+ * <li><code>MinDocuments</code> - documents scored before the interval is trusted, default 30</li>
+ * <li><code>Seed</code> - seed of the random order; a new one every run if not set, printed at
+ * the end so that a run can be repeated</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class SamplingCollectionReader extends CollectionReader_ImplBase {
+
+  public static final String PARAM_INPUTDIR = "InputDirectory";
+
+  public static final String PARAM_STREAM = "Stream";
+
+  public static final String PARAM_EPSILON = "Epsilon";
+
+  public static final String PARAM_CONFIDENCE = "Confidence";
+
+  public static final String PARAM_MIN_DOCUMENTS = "MinDocuments";
+
+  public static final String PARAM_SEED = "Seed";
+
+  // Input files in the order they are handed to the CPE
+  private List<File> files;
+
+  private PrecisionEstimate estimate;
+
+  private long seed;
+
+  private int delivered = 0;
+
+  @Override
+  public void initialize() throws ResourceInitializationException {
+    File dir = new File((String) getConfigParameterValue(PARAM_INPUTDIR));
+    String stream = (String) getConfigParameterValue(PARAM_STREAM);
+    Float epsilon = (Float) getConfigParameterValue(PARAM_EPSILON);
+    Float confidence = (Float) getConfigParameterValue(PARAM_CONFIDENCE);
+    Integer minDocuments = (Integer) getConfigParameterValue(PARAM_MIN_DOCUMENTS);
+    Integer seedParam = (Integer) getConfigParameterValue(PARAM_SEED);
+    if ((stream == null) || (stream.length() == 0))
+      throw new ResourceInitializationException(new IllegalArgumentException(PARAM_STREAM
+              + " must name the RankingStream CASEvaluator publishes to"));
+
+    try {
+      files = TextFiles.list(dir);
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+    seed = (seedParam != null) ? seedParam : new Random().nextInt();
+    Collections.shuffle(files, new Random(seed));
+
+    try {
+      estimate = new PrecisionEstimate(files.size(), (confidence != null) ? confidence : 0.95,
+              (epsilon != null) ? epsilon : 0.05, (minDocuments != null) ? minDocuments : 30);
+    } catch (IllegalArgumentException e) {
+      throw new ResourceInitializationException(e);
+    }
+    RankingStream.named(stream).subscribe(estimate);
+  }
+
+  public boolean hasNext() {
+    return (delivered < files.size()) && !estimate.isConverged();
+  }
+
+  public void getNext(CAS aCAS) throws IOException, CollectionException {
+    File file = files.get(delivered);
+    aCAS.setDocumentText(TextFiles.read(file));
+    aCAS.setDocumentLanguage("en");
+
+    // Also store location of source document in CAS, as the file system reader does
+    try {
+      JCas jcas = aCAS.getJCas();
+      SourceDocumentInformation srcDocInfo = new SourceDocumentInformation(jcas);
+      srcDocInfo.setUri(file.getAbsoluteFile().toURI().toURL().toString());
+      srcDocInfo.setOffsetInSource(0);
+      srcDocInfo.setDocumentSize((int) file.length());
+      srcDocInfo.setLastSegment(delivered == files.size() - 1);
+      srcDocInfo.addToIndexes();
+    } catch (CASException e) {
+      throw new CollectionException(e);
+    } finally {
+      delivered++;
+    }
+  }
+
+  public Progress[] getProgress() {
+    return new Progress[] { new ProgressImpl(delivered, files.size(), Progress.ENTITIES) };
+  }
+
+  public void close() throws IOException {
+    System.out.printf("Sampling reader: %d of %d documents handed out, seed %d%s%n", delivered,
+            files.size(), seed, estimate.isConverged() ? ", stopped early" : "");
+  }
+}
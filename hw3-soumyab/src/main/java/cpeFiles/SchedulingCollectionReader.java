@@ -0,0 +1,173 @@
+/**
+ * Reads the input documents in an order chosen from their sizes rather than their names
+ */
+package cpeFiles;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader_ImplBase;
+import org.apache.uima.examples.SourceDocumentInformation;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+
+import tools.TextFiles;
+
+/**
+ * The file system reader hands documents out in name order, so a few large questions near the
+ * end of the directory keep one processing unit busy while the others have nothing left to do.
+ * This reader measures every document before the run and hands them out by <code>Policy</code>:
+ * <ul>
+ * <li><code>largest-first</code> - longest processing time first, the classic rule for a short
+ * makespan: the large documents start while there is still small work to fill the other threads
+ * around them</li>
+ * <li><code>shortest-first</code> - shortest processing time first, for the lowest mean latency
+ * per document</li>
+ * <li><code>directory</code> - name order, as the file system reader</li>
+ * </ul>
+ * Documents of equal size keep their name order. tools.RunStatistics reports the idle time of
+ * every processing unit thread, which shows whether the tail at the end of the run is gone.
+ * <p>
+ * hw3-soumyab-scheduled-CPE.xml uses this reader with four processing units. Parameters:
+ * <ul>
+ * <li><code>InputDirectory</code> - directory of the input text files</li>
+ * <li><code>Policy</code> - as above, default largest-first</li>
+ * <li><code>Measure</code> - <code>bytes</code> (the default) takes the file size,
+ * <code>answers</code> counts the answer lines, which is closer to the scoring work but reads
+ * every file once more</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class SchedulingCollectionReader extends CollectionReader_ImplBase {
+
+  public static final String PARAM_INPUTDIR = "InputDirectory";
+
+  public static final String PARAM_POLICY = "Policy";
+
+  public static final String PARAM_MEASURE = "Measure";
+
+  // An input file with its estimated cost
+  static class Job {
+    final File file;
+
+    final long size;
+
+    Job(File file, long size) {
+      this.file = file;
+      this.size = size;
+    }
+  }
+
+  // Input files in the order they are handed to the CPE
+  private List<Job> jobs;
+
+  private String policy;
+
+  private int delivered = 0;
+
+  @Override
+  public void initialize() throws ResourceInitializationException {
+    File dir = new File((String) getConfigParameterValue(PARAM_INPUTDIR));
+    policy = (String) getConfigParameterValue(PARAM_POLICY);
+    if (policy == null)
+      policy = "largest-first";
+    boolean answers = "answers".equals(getConfigParameterValue(PARAM_MEASURE));
+
+    jobs = new ArrayList<Job>();
+    try {
+      for (File f : TextFiles.list(dir)) {
+        jobs.add(new Job(f, answers ? countAnswers(f) : f.length()));
+      }
+    } catch (IOException e) {
+      throw new ResourceInitializationException(e);
+    }
+
+    // The sort is stable, so equal sizes stay in name order
+    if ("largest-first".equals(policy))
+      Collections.sort(jobs, Collections.reverseOrder(bySize()));
+    else if ("shortest-first".equals(policy))
+      Collections.sort(jobs, bySize());
+    else if (!"directory".equals(policy))
+      throw new ResourceInitializationException(new IllegalArgumentException("Unknown "
+              + PARAM_POLICY + " " + policy + ", expected largest-first, shortest-first or "
+              + "directory"));
+  }
+
+  public boolean hasNext() {
+    return delivered < jobs.size();
+  }
+
+  public void getNext(CAS aCAS) throws IOException, CollectionException {
+    File file = jobs.get(delivered).file;
+    aCAS.setDocumentText(TextFiles.read(file));
+    aCAS.setDocumentLanguage("en");
+
+    // Also store location of source document in CAS, as the file system reader does
+    try {
+      JCas jcas = aCAS.getJCas();
+      SourceDocumentInformation srcDocInfo = new SourceDocumentInformation(jcas);
+      srcDocInfo.setUri(file.getAbsoluteFile().toURI().toURL().toString());
+      srcDocInfo.setOffsetInSource(0);
+      srcDocInfo.setDocumentSize((int) file.length());
+      srcDocInfo.setLastSegment(delivered == jobs.size() - 1);
+      srcDocInfo.addToIndexes();
+    } catch (CASException e) {
+      throw new CollectionException(e);
+    } finally {
+      delivered++;
+    }
+  }
+
+  public Progress[] getProgress() {
+    return new Progress[] { new ProgressImpl(delivered, jobs.size(), Progress.ENTITIES) };
+  }
+
+  public void close() throws IOException {
+    if (!jobs.isEmpty())
+      System.out.printf("Scheduling reader: %d documents %s, first %s, last %s%n", delivered,
+              policy, jobs.get(0).file.getName(), jobs.get(jobs.size() - 1).file.getName());
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private static Comparator<Job> bySize() {
+    return new Comparator<Job>() {
+      public int compare(Job a, Job b) {
+        return (a.size < b.size) ? -1 : ((a.size > b.size) ? 1 : 0);
+      }
+    };
+  }
+
+  // Non-empty lines other than questions, the answers QAAnnotator will find
+  private static long countAnswers(File file) throws IOException {
+    BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+            "UTF-8"));
+    long answers = 0;
+    try {
+      String line;
+      while ((line = in.readLine()) != null) {
+        if ((line.length() > 0) && ("Qq".indexOf(line.charAt(0)) == -1))
+          answers++;
+      }
+    } finally {
+      in.close();
+    }
+    return answers;
+  }
+}
@@ -112,6 +112,42 @@ public class NGram extends Annotation {
     if (NGram_Type.featOkTst && ((NGram_Type)jcasType).casFeat_elementType == null)
       jcasType.jcas.throwFeatMissing("elementType", "edu.cmu.deiis.types.NGram");
     jcasType.ll_cas.ll_setStringValue(addr, ((NGram_Type)jcasType).casFeatCode_elementType, v);}    
+   
+    
+  //*--------------*
+  //* Feature: hash
+
+  /** getter for hash - gets FNV-1a hash of the case folded tokens, as computed by annotators.NGramHash
+   * @generated */
+  public long getHash() {
+    if (NGram_Type.featOkTst && ((NGram_Type)jcasType).casFeat_hash == null)
+      jcasType.jcas.throwFeatMissing("hash", "edu.cmu.deiis.types.NGram");
+    return jcasType.ll_cas.ll_getLongValue(addr, ((NGram_Type)jcasType).casFeatCode_hash);}
+    
+  /** setter for hash - sets FNV-1a hash of the case folded tokens, as computed by annotators.NGramHash 
+   * @generated */
+  public void setHash(long v) {
+    if (NGram_Type.featOkTst && ((NGram_Type)jcasType).casFeat_hash == null)
+      jcasType.jcas.throwFeatMissing("hash", "edu.cmu.deiis.types.NGram");
+    jcasType.ll_cas.ll_setLongValue(addr, ((NGram_Type)jcasType).casFeatCode_hash, v);}    
+   
+    
+  //*--------------*
+  //* Feature: order
+
+  /** getter for order - gets Number of elements of the NGram
+   * @generated */
+  public int getOrder() {
+    if (NGram_Type.featOkTst && ((NGram_Type)jcasType).casFeat_order == null)
+      jcasType.jcas.throwFeatMissing("order", "edu.cmu.deiis.types.NGram");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((NGram_Type)jcasType).casFeatCode_order);}
+    
+  /** setter for order - sets Number of elements of the NGram 
+   * @generated */
+  public void setOrder(int v) {
+    if (NGram_Type.featOkTst && ((NGram_Type)jcasType).casFeat_order == null)
+      jcasType.jcas.throwFeatMissing("order", "edu.cmu.deiis.types.NGram");
+    jcasType.ll_cas.ll_setIntValue(addr, ((NGram_Type)jcasType).casFeatCode_order, v);}    
   }
 
     
\ No newline at end of file
@@ -97,6 +97,42 @@ public class NGram_Type extends Annotation_Type {
     ll_cas.ll_setStringValue(addr, casFeatCode_elementType, v);}
     
   
+ 
+  /** @generated */
+  final Feature casFeat_hash;
+  /** @generated */
+  final int     casFeatCode_hash;
+  /** @generated */ 
+  public long getHash(int addr) {
+        if (featOkTst && casFeat_hash == null)
+      jcas.throwFeatMissing("hash", "edu.cmu.deiis.types.NGram");
+    return ll_cas.ll_getLongValue(addr, casFeatCode_hash);
+  }
+  /** @generated */    
+  public void setHash(int addr, long v) {
+        if (featOkTst && casFeat_hash == null)
+      jcas.throwFeatMissing("hash", "edu.cmu.deiis.types.NGram");
+    ll_cas.ll_setLongValue(addr, casFeatCode_hash, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_order;
+  /** @generated */
+  final int     casFeatCode_order;
+  /** @generated */ 
+  public int getOrder(int addr) {
+        if (featOkTst && casFeat_order == null)
+      jcas.throwFeatMissing("order", "edu.cmu.deiis.types.NGram");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_order);
+  }
+  /** @generated */    
+  public void setOrder(int addr, int v) {
+        if (featOkTst && casFeat_order == null)
+      jcas.throwFeatMissing("order", "edu.cmu.deiis.types.NGram");
+    ll_cas.ll_setIntValue(addr, casFeatCode_order, v);}
+    
+  
 
 
 
@@ -114,6 +150,14 @@ public class NGram_Type extends Annotation_Type {
     casFeat_elementType = jcas.getRequiredFeatureDE(casType, "elementType", "uima.cas.String", featOkTst);
     casFeatCode_elementType  = (null == casFeat_elementType) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_elementType).getCode();
 
+ 
+    casFeat_hash = jcas.getRequiredFeatureDE(casType, "hash", "uima.cas.Long", featOkTst);
+    casFeatCode_hash  = (null == casFeat_hash) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_hash).getCode();
+
+ 
+    casFeat_order = jcas.getRequiredFeatureDE(casType, "order", "uima.cas.Integer", featOkTst);
+    casFeatCode_order  = (null == casFeat_order) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_order).getCode();
+
   }
 }
 
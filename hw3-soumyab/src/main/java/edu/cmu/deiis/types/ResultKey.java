@@ -0,0 +1,118 @@
+
+
+/* First created by JCasGen Mon Oct 19 14:02:17 EDT 2026 */
+package edu.cmu.deiis.types;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+
+
+/** Content hash of a document and configuration hash of the pipeline, the key of its results in the result store
+ * Updated by JCasGen Mon Oct 19 14:02:17 EDT 2026
+ * XML source: src/main/resources/analysisEngineDescriptors/deiis_types.xml
+ * @generated */
+public class ResultKey extends Annotation {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(ResultKey.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated  */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected ResultKey() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated */
+  public ResultKey(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated */
+  public ResultKey(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** @generated */  
+  public ResultKey(JCas jcas, int begin, int end) {
+    super(jcas);
+    setBegin(begin);
+    setEnd(end);
+    readObject();
+  }   
+
+  /** <!-- begin-user-doc -->
+    * Write your own initialization here
+    * <!-- end-user-doc -->
+  @generated modifiable */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: documentHash
+
+  /** getter for documentHash - gets SHA-1 of the document text
+   * @generated */
+  public String getDocumentHash() {
+    if (ResultKey_Type.featOkTst && ((ResultKey_Type)jcasType).casFeat_documentHash == null)
+      jcasType.jcas.throwFeatMissing("documentHash", "edu.cmu.deiis.types.ResultKey");
+    return jcasType.ll_cas.ll_getStringValue(addr, ((ResultKey_Type)jcasType).casFeatCode_documentHash);}
+    
+  /** setter for documentHash - sets SHA-1 of the document text 
+   * @generated */
+  public void setDocumentHash(String v) {
+    if (ResultKey_Type.featOkTst && ((ResultKey_Type)jcasType).casFeat_documentHash == null)
+      jcasType.jcas.throwFeatMissing("documentHash", "edu.cmu.deiis.types.ResultKey");
+    jcasType.ll_cas.ll_setStringValue(addr, ((ResultKey_Type)jcasType).casFeatCode_documentHash, v);}    
+   
+    
+  //*--------------*
+  //* Feature: configurationHash
+
+  /** getter for configurationHash - gets SHA-1 of the pipeline configuration files
+   * @generated */
+  public String getConfigurationHash() {
+    if (ResultKey_Type.featOkTst && ((ResultKey_Type)jcasType).casFeat_configurationHash == null)
+      jcasType.jcas.throwFeatMissing("configurationHash", "edu.cmu.deiis.types.ResultKey");
+    return jcasType.ll_cas.ll_getStringValue(addr, ((ResultKey_Type)jcasType).casFeatCode_configurationHash);}
+    
+  /** setter for configurationHash - sets SHA-1 of the pipeline configuration files 
+   * @generated */
+  public void setConfigurationHash(String v) {
+    if (ResultKey_Type.featOkTst && ((ResultKey_Type)jcasType).casFeat_configurationHash == null)
+      jcasType.jcas.throwFeatMissing("configurationHash", "edu.cmu.deiis.types.ResultKey");
+    jcasType.ll_cas.ll_setStringValue(addr, ((ResultKey_Type)jcasType).casFeatCode_configurationHash, v);}    
+   
+    
+  //*--------------*
+  //* Feature: replayed
+
+  /** getter for replayed - gets Whether the annotations were replayed from the store instead of computed
+   * @generated */
+  public boolean getReplayed() {
+    if (ResultKey_Type.featOkTst && ((ResultKey_Type)jcasType).casFeat_replayed == null)
+      jcasType.jcas.throwFeatMissing("replayed", "edu.cmu.deiis.types.ResultKey");
+    return jcasType.ll_cas.ll_getBooleanValue(addr, ((ResultKey_Type)jcasType).casFeatCode_replayed);}
+    
+  /** setter for replayed - sets Whether the annotations were replayed from the store instead of computed 
+   * @generated */
+  public void setReplayed(boolean v) {
+    if (ResultKey_Type.featOkTst && ((ResultKey_Type)jcasType).casFeat_replayed == null)
+      jcasType.jcas.throwFeatMissing("replayed", "edu.cmu.deiis.types.ResultKey");
+    jcasType.ll_cas.ll_setBooleanValue(addr, ((ResultKey_Type)jcasType).casFeatCode_replayed, v);}    
+  }
+
+    
\ No newline at end of file
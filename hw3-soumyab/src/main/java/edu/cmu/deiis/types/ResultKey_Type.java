@@ -0,0 +1,125 @@
+
+/* First created by JCasGen Mon Oct 19 14:02:17 EDT 2026 */
+package edu.cmu.deiis.types;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+
+/** Content hash of a document and configuration hash of the pipeline, the key of its results in the result store
+ * Updated by JCasGen Mon Oct 19 14:02:17 EDT 2026
+ * @generated */
+public class ResultKey_Type extends Annotation_Type {
+  /** @generated */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (ResultKey_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = ResultKey_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new ResultKey(addr, ResultKey_Type.this);
+  			   ResultKey_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new ResultKey(addr, ResultKey_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = ResultKey.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("edu.cmu.deiis.types.ResultKey");
+ 
+  /** @generated */
+  final Feature casFeat_documentHash;
+  /** @generated */
+  final int     casFeatCode_documentHash;
+  /** @generated */ 
+  public String getDocumentHash(int addr) {
+        if (featOkTst && casFeat_documentHash == null)
+      jcas.throwFeatMissing("documentHash", "edu.cmu.deiis.types.ResultKey");
+    return ll_cas.ll_getStringValue(addr, casFeatCode_documentHash);
+  }
+  /** @generated */    
+  public void setDocumentHash(int addr, String v) {
+        if (featOkTst && casFeat_documentHash == null)
+      jcas.throwFeatMissing("documentHash", "edu.cmu.deiis.types.ResultKey");
+    ll_cas.ll_setStringValue(addr, casFeatCode_documentHash, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_configurationHash;
+  /** @generated */
+  final int     casFeatCode_configurationHash;
+  /** @generated */ 
+  public String getConfigurationHash(int addr) {
+        if (featOkTst && casFeat_configurationHash == null)
+      jcas.throwFeatMissing("configurationHash", "edu.cmu.deiis.types.ResultKey");
+    return ll_cas.ll_getStringValue(addr, casFeatCode_configurationHash);
+  }
+  /** @generated */    
+  public void setConfigurationHash(int addr, String v) {
+        if (featOkTst && casFeat_configurationHash == null)
+      jcas.throwFeatMissing("configurationHash", "edu.cmu.deiis.types.ResultKey");
+    ll_cas.ll_setStringValue(addr, casFeatCode_configurationHash, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_replayed;
+  /** @generated */
+  final int     casFeatCode_replayed;
+  /** @generated */ 
+  public boolean getReplayed(int addr) {
+        if (featOkTst && casFeat_replayed == null)
+      jcas.throwFeatMissing("replayed", "edu.cmu.deiis.types.ResultKey");
+    return ll_cas.ll_getBooleanValue(addr, casFeatCode_replayed);
+  }
+  /** @generated */    
+  public void setReplayed(int addr, boolean v) {
+        if (featOkTst && casFeat_replayed == null)
+      jcas.throwFeatMissing("replayed", "edu.cmu.deiis.types.ResultKey");
+    ll_cas.ll_setBooleanValue(addr, casFeatCode_replayed, v);}
+    
+  
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	* @generated */
+  public ResultKey_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_documentHash = jcas.getRequiredFeatureDE(casType, "documentHash", "uima.cas.String", featOkTst);
+    casFeatCode_documentHash  = (null == casFeat_documentHash) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_documentHash).getCode();
+
+ 
+    casFeat_configurationHash = jcas.getRequiredFeatureDE(casType, "configurationHash", "uima.cas.String", featOkTst);
+    casFeatCode_configurationHash  = (null == casFeat_configurationHash) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_configurationHash).getCode();
+
+ 
+    casFeat_replayed = jcas.getRequiredFeatureDE(casType, "replayed", "uima.cas.Boolean", featOkTst);
+    casFeatCode_replayed  = (null == casFeat_replayed) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_replayed).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
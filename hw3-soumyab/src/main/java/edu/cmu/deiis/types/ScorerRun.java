@@ -0,0 +1,135 @@
+
+
+/* First created by JCasGen Mon Oct 19 16:40:05 EDT 2026 */
+package edu.cmu.deiis.types;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+import org.apache.uima.jcas.cas.FSArray;
+
+
+
+/** Scores one scorer configuration gives the answers of a document, kept out of the AnswerScore index
+ * Updated by JCasGen Mon Oct 19 16:40:05 EDT 2026
+ * XML source: src/main/resources/analysisEngineDescriptors/deiis_types.xml
+ * @generated */
+public class ScorerRun extends Annotation {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(ScorerRun.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated  */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected ScorerRun() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated */
+  public ScorerRun(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated */
+  public ScorerRun(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** @generated */  
+  public ScorerRun(JCas jcas, int begin, int end) {
+    super(jcas);
+    setBegin(begin);
+    setEnd(end);
+    readObject();
+  }   
+
+  /** <!-- begin-user-doc -->
+    * Write your own initialization here
+    * <!-- end-user-doc -->
+  @generated modifiable */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: scorerId
+
+  /** getter for scorerId - gets Name of the scorer configuration
+   * @generated */
+  public String getScorerId() {
+    if (ScorerRun_Type.featOkTst && ((ScorerRun_Type)jcasType).casFeat_scorerId == null)
+      jcasType.jcas.throwFeatMissing("scorerId", "edu.cmu.deiis.types.ScorerRun");
+    return jcasType.ll_cas.ll_getStringValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_scorerId);}
+    
+  /** setter for scorerId - sets Name of the scorer configuration 
+   * @generated */
+  public void setScorerId(String v) {
+    if (ScorerRun_Type.featOkTst && ((ScorerRun_Type)jcasType).casFeat_scorerId == null)
+      jcasType.jcas.throwFeatMissing("scorerId", "edu.cmu.deiis.types.ScorerRun");
+    jcasType.ll_cas.ll_setStringValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_scorerId, v);}    
+   
+    
+  //*--------------*
+  //* Feature: nerWeight
+
+  /** getter for nerWeight - gets Weight CASEvaluator gives the named entity score
+   * @generated */
+  public double getNerWeight() {
+    if (ScorerRun_Type.featOkTst && ((ScorerRun_Type)jcasType).casFeat_nerWeight == null)
+      jcasType.jcas.throwFeatMissing("nerWeight", "edu.cmu.deiis.types.ScorerRun");
+    return jcasType.ll_cas.ll_getDoubleValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_nerWeight);}
+    
+  /** setter for nerWeight - sets Weight CASEvaluator gives the named entity score 
+   * @generated */
+  public void setNerWeight(double v) {
+    if (ScorerRun_Type.featOkTst && ((ScorerRun_Type)jcasType).casFeat_nerWeight == null)
+      jcasType.jcas.throwFeatMissing("nerWeight", "edu.cmu.deiis.types.ScorerRun");
+    jcasType.ll_cas.ll_setDoubleValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_nerWeight, v);}    
+   
+    
+  //*--------------*
+  //* Feature: scores
+
+  /** getter for scores - gets AnswerScore of every scored answer, not added to the indexes
+   * @generated */
+  public FSArray getScores() {
+    if (ScorerRun_Type.featOkTst && ((ScorerRun_Type)jcasType).casFeat_scores == null)
+      jcasType.jcas.throwFeatMissing("scores", "edu.cmu.deiis.types.ScorerRun");
+    return (FSArray)(jcasType.ll_cas.ll_getFSForRef(jcasType.ll_cas.ll_getRefValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_scores)));}
+    
+  /** setter for scores - sets AnswerScore of every scored answer, not added to the indexes 
+   * @generated */
+  public void setScores(FSArray v) {
+    if (ScorerRun_Type.featOkTst && ((ScorerRun_Type)jcasType).casFeat_scores == null)
+      jcasType.jcas.throwFeatMissing("scores", "edu.cmu.deiis.types.ScorerRun");
+    jcasType.ll_cas.ll_setRefValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_scores, jcasType.ll_cas.ll_getFSRef(v));}    
+    
+  /** indexed getter for scores - gets an indexed value - AnswerScore of every scored answer, not added to the indexes
+   * @generated */
+  public AnswerScore getScores(int i) {
+    if (ScorerRun_Type.featOkTst && ((ScorerRun_Type)jcasType).casFeat_scores == null)
+      jcasType.jcas.throwFeatMissing("scores", "edu.cmu.deiis.types.ScorerRun");
+    jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_scores), i);
+    return (AnswerScore)(jcasType.ll_cas.ll_getFSForRef(jcasType.ll_cas.ll_getRefArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_scores), i)));}
+
+  /** indexed setter for scores - sets an indexed value - AnswerScore of every scored answer, not added to the indexes
+   * @generated */
+  public void setScores(int i, AnswerScore v) { 
+    if (ScorerRun_Type.featOkTst && ((ScorerRun_Type)jcasType).casFeat_scores == null)
+      jcasType.jcas.throwFeatMissing("scores", "edu.cmu.deiis.types.ScorerRun");
+    jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_scores), i);
+    jcasType.ll_cas.ll_setRefArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((ScorerRun_Type)jcasType).casFeatCode_scores), i, jcasType.ll_cas.ll_getFSRef(v));}
+  }
+
+    
\ No newline at end of file
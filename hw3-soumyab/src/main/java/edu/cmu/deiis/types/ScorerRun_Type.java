@@ -0,0 +1,144 @@
+
+/* First created by JCasGen Mon Oct 19 16:40:05 EDT 2026 */
+package edu.cmu.deiis.types;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+
+/** Scores one scorer configuration gives the answers of a document, kept out of the AnswerScore index
+ * Updated by JCasGen Mon Oct 19 16:40:05 EDT 2026
+ * @generated */
+public class ScorerRun_Type extends Annotation_Type {
+  /** @generated */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (ScorerRun_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = ScorerRun_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new ScorerRun(addr, ScorerRun_Type.this);
+  			   ScorerRun_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new ScorerRun(addr, ScorerRun_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = ScorerRun.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("edu.cmu.deiis.types.ScorerRun");
+ 
+  /** @generated */
+  final Feature casFeat_scorerId;
+  /** @generated */
+  final int     casFeatCode_scorerId;
+  /** @generated */ 
+  public String getScorerId(int addr) {
+        if (featOkTst && casFeat_scorerId == null)
+      jcas.throwFeatMissing("scorerId", "edu.cmu.deiis.types.ScorerRun");
+    return ll_cas.ll_getStringValue(addr, casFeatCode_scorerId);
+  }
+  /** @generated */    
+  public void setScorerId(int addr, String v) {
+        if (featOkTst && casFeat_scorerId == null)
+      jcas.throwFeatMissing("scorerId", "edu.cmu.deiis.types.ScorerRun");
+    ll_cas.ll_setStringValue(addr, casFeatCode_scorerId, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_nerWeight;
+  /** @generated */
+  final int     casFeatCode_nerWeight;
+  /** @generated */ 
+  public double getNerWeight(int addr) {
+        if (featOkTst && casFeat_nerWeight == null)
+      jcas.throwFeatMissing("nerWeight", "edu.cmu.deiis.types.ScorerRun");
+    return ll_cas.ll_getDoubleValue(addr, casFeatCode_nerWeight);
+  }
+  /** @generated */    
+  public void setNerWeight(int addr, double v) {
+        if (featOkTst && casFeat_nerWeight == null)
+      jcas.throwFeatMissing("nerWeight", "edu.cmu.deiis.types.ScorerRun");
+    ll_cas.ll_setDoubleValue(addr, casFeatCode_nerWeight, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_scores;
+  /** @generated */
+  final int     casFeatCode_scores;
+  /** @generated */ 
+  public int getScores(int addr) {
+        if (featOkTst && casFeat_scores == null)
+      jcas.throwFeatMissing("scores", "edu.cmu.deiis.types.ScorerRun");
+    return ll_cas.ll_getRefValue(addr, casFeatCode_scores);
+  }
+  /** @generated */    
+  public void setScores(int addr, int v) {
+        if (featOkTst && casFeat_scores == null)
+      jcas.throwFeatMissing("scores", "edu.cmu.deiis.types.ScorerRun");
+    ll_cas.ll_setRefValue(addr, casFeatCode_scores, v);}
+    
+   /** @generated */
+  public int getScores(int addr, int i) {
+        if (featOkTst && casFeat_scores == null)
+      jcas.throwFeatMissing("scores", "edu.cmu.deiis.types.ScorerRun");
+    if (lowLevelTypeChecks)
+      return ll_cas.ll_getRefArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_scores), i, true);
+    jcas.checkArrayBounds(ll_cas.ll_getRefValue(addr, casFeatCode_scores), i);
+	return ll_cas.ll_getRefArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_scores), i);
+  }
+   
+  /** @generated */ 
+  public void setScores(int addr, int i, int v) {
+        if (featOkTst && casFeat_scores == null)
+      jcas.throwFeatMissing("scores", "edu.cmu.deiis.types.ScorerRun");
+    if (lowLevelTypeChecks)
+      ll_cas.ll_setRefArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_scores), i, v, true);
+    jcas.checkArrayBounds(ll_cas.ll_getRefValue(addr, casFeatCode_scores), i);
+    ll_cas.ll_setRefArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_scores), i, v);
+  }
+  
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	* @generated */
+  public ScorerRun_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_scorerId = jcas.getRequiredFeatureDE(casType, "scorerId", "uima.cas.String", featOkTst);
+    casFeatCode_scorerId  = (null == casFeat_scorerId) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_scorerId).getCode();
+
+ 
+    casFeat_nerWeight = jcas.getRequiredFeatureDE(casType, "nerWeight", "uima.cas.Double", featOkTst);
+    casFeatCode_nerWeight  = (null == casFeat_nerWeight) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_nerWeight).getCode();
+
+ 
+    casFeat_scores = jcas.getRequiredFeatureDE(casType, "scores", "uima.cas.FSArray", featOkTst);
+    casFeatCode_scores  = (null == casFeat_scores) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_scores).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
@@ -0,0 +1,118 @@
+
+
+/* First created by JCasGen Mon Oct 19 16:40:05 EDT 2026 */
+package edu.cmu.deiis.types;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+
+
+/** Time budget of a document; the annotators stop scoring when it expires and record how far they got
+ * Updated by JCasGen Mon Oct 19 16:40:05 EDT 2026
+ * XML source: src/main/resources/analysisEngineDescriptors/deiis_types.xml
+ * @generated */
+public class ScoringDeadline extends Annotation {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(ScoringDeadline.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated  */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected ScoringDeadline() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated */
+  public ScoringDeadline(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated */
+  public ScoringDeadline(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** @generated */  
+  public ScoringDeadline(JCas jcas, int begin, int end) {
+    super(jcas);
+    setBegin(begin);
+    setEnd(end);
+    readObject();
+  }   
+
+  /** <!-- begin-user-doc -->
+    * Write your own initialization here
+    * <!-- end-user-doc -->
+  @generated modifiable */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: expiresAt
+
+  /** getter for expiresAt - gets Wall clock time in milliseconds since the epoch at which scoring stops
+   * @generated */
+  public long getExpiresAt() {
+    if (ScoringDeadline_Type.featOkTst && ((ScoringDeadline_Type)jcasType).casFeat_expiresAt == null)
+      jcasType.jcas.throwFeatMissing("expiresAt", "edu.cmu.deiis.types.ScoringDeadline");
+    return jcasType.ll_cas.ll_getLongValue(addr, ((ScoringDeadline_Type)jcasType).casFeatCode_expiresAt);}
+    
+  /** setter for expiresAt - sets Wall clock time in milliseconds since the epoch at which scoring stops 
+   * @generated */
+  public void setExpiresAt(long v) {
+    if (ScoringDeadline_Type.featOkTst && ((ScoringDeadline_Type)jcasType).casFeat_expiresAt == null)
+      jcasType.jcas.throwFeatMissing("expiresAt", "edu.cmu.deiis.types.ScoringDeadline");
+    jcasType.ll_cas.ll_setLongValue(addr, ((ScoringDeadline_Type)jcasType).casFeatCode_expiresAt, v);}    
+   
+    
+  //*--------------*
+  //* Feature: expired
+
+  /** getter for expired - gets Whether scoring stopped before every answer was scored
+   * @generated */
+  public boolean getExpired() {
+    if (ScoringDeadline_Type.featOkTst && ((ScoringDeadline_Type)jcasType).casFeat_expired == null)
+      jcasType.jcas.throwFeatMissing("expired", "edu.cmu.deiis.types.ScoringDeadline");
+    return jcasType.ll_cas.ll_getBooleanValue(addr, ((ScoringDeadline_Type)jcasType).casFeatCode_expired);}
+    
+  /** setter for expired - sets Whether scoring stopped before every answer was scored 
+   * @generated */
+  public void setExpired(boolean v) {
+    if (ScoringDeadline_Type.featOkTst && ((ScoringDeadline_Type)jcasType).casFeat_expired == null)
+      jcasType.jcas.throwFeatMissing("expired", "edu.cmu.deiis.types.ScoringDeadline");
+    jcasType.ll_cas.ll_setBooleanValue(addr, ((ScoringDeadline_Type)jcasType).casFeatCode_expired, v);}    
+   
+    
+  //*--------------*
+  //* Feature: scoredAnswers
+
+  /** getter for scoredAnswers - gets Number of answers that got an n-gram score before the deadline
+   * @generated */
+  public int getScoredAnswers() {
+    if (ScoringDeadline_Type.featOkTst && ((ScoringDeadline_Type)jcasType).casFeat_scoredAnswers == null)
+      jcasType.jcas.throwFeatMissing("scoredAnswers", "edu.cmu.deiis.types.ScoringDeadline");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((ScoringDeadline_Type)jcasType).casFeatCode_scoredAnswers);}
+    
+  /** setter for scoredAnswers - sets Number of answers that got an n-gram score before the deadline 
+   * @generated */
+  public void setScoredAnswers(int v) {
+    if (ScoringDeadline_Type.featOkTst && ((ScoringDeadline_Type)jcasType).casFeat_scoredAnswers == null)
+      jcasType.jcas.throwFeatMissing("scoredAnswers", "edu.cmu.deiis.types.ScoringDeadline");
+    jcasType.ll_cas.ll_setIntValue(addr, ((ScoringDeadline_Type)jcasType).casFeatCode_scoredAnswers, v);}
+  }
+
+    
\ No newline at end of file
@@ -0,0 +1,125 @@
+
+/* First created by JCasGen Mon Oct 19 16:40:05 EDT 2026 */
+package edu.cmu.deiis.types;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+
+/** Time budget of a document; the annotators stop scoring when it expires and record how far they got
+ * Updated by JCasGen Mon Oct 19 16:40:05 EDT 2026
+ * @generated */
+public class ScoringDeadline_Type extends Annotation_Type {
+  /** @generated */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (ScoringDeadline_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = ScoringDeadline_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new ScoringDeadline(addr, ScoringDeadline_Type.this);
+  			   ScoringDeadline_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new ScoringDeadline(addr, ScoringDeadline_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = ScoringDeadline.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("edu.cmu.deiis.types.ScoringDeadline");
+ 
+  /** @generated */
+  final Feature casFeat_expiresAt;
+  /** @generated */
+  final int     casFeatCode_expiresAt;
+  /** @generated */ 
+  public long getExpiresAt(int addr) {
+        if (featOkTst && casFeat_expiresAt == null)
+      jcas.throwFeatMissing("expiresAt", "edu.cmu.deiis.types.ScoringDeadline");
+    return ll_cas.ll_getLongValue(addr, casFeatCode_expiresAt);
+  }
+  /** @generated */    
+  public void setExpiresAt(int addr, long v) {
+        if (featOkTst && casFeat_expiresAt == null)
+      jcas.throwFeatMissing("expiresAt", "edu.cmu.deiis.types.ScoringDeadline");
+    ll_cas.ll_setLongValue(addr, casFeatCode_expiresAt, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_expired;
+  /** @generated */
+  final int     casFeatCode_expired;
+  /** @generated */ 
+  public boolean getExpired(int addr) {
+        if (featOkTst && casFeat_expired == null)
+      jcas.throwFeatMissing("expired", "edu.cmu.deiis.types.ScoringDeadline");
+    return ll_cas.ll_getBooleanValue(addr, casFeatCode_expired);
+  }
+  /** @generated */    
+  public void setExpired(int addr, boolean v) {
+        if (featOkTst && casFeat_expired == null)
+      jcas.throwFeatMissing("expired", "edu.cmu.deiis.types.ScoringDeadline");
+    ll_cas.ll_setBooleanValue(addr, casFeatCode_expired, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_scoredAnswers;
+  /** @generated */
+  final int     casFeatCode_scoredAnswers;
+  /** @generated */ 
+  public int getScoredAnswers(int addr) {
+        if (featOkTst && casFeat_scoredAnswers == null)
+      jcas.throwFeatMissing("scoredAnswers", "edu.cmu.deiis.types.ScoringDeadline");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_scoredAnswers);
+  }
+  /** @generated */    
+  public void setScoredAnswers(int addr, int v) {
+        if (featOkTst && casFeat_scoredAnswers == null)
+      jcas.throwFeatMissing("scoredAnswers", "edu.cmu.deiis.types.ScoringDeadline");
+    ll_cas.ll_setIntValue(addr, casFeatCode_scoredAnswers, v);}
+    
+  
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	* @generated */
+  public ScoringDeadline_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_expiresAt = jcas.getRequiredFeatureDE(casType, "expiresAt", "uima.cas.Long", featOkTst);
+    casFeatCode_expiresAt  = (null == casFeat_expiresAt) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_expiresAt).getCode();
+
+ 
+    casFeat_expired = jcas.getRequiredFeatureDE(casType, "expired", "uima.cas.Boolean", featOkTst);
+    casFeatCode_expired  = (null == casFeat_expired) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_expired).getCode();
+
+ 
+    casFeat_scoredAnswers = jcas.getRequiredFeatureDE(casType, "scoredAnswers", "uima.cas.Integer", featOkTst);
+    casFeatCode_scoredAnswers  = (null == casFeat_scoredAnswers) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_scoredAnswers).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
@@ -0,0 +1,118 @@
+
+
+/* First created by JCasGen Mon Oct 19 16:40:05 EDT 2026 */
+package edu.cmu.deiis.types;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+
+
+/** Processing unit thread that analyzed a document and when, recorded by UnitTimer
+ * Updated by JCasGen Mon Oct 19 16:40:05 EDT 2026
+ * XML source: src/main/resources/analysisEngineDescriptors/deiis_types.xml
+ * @generated */
+public class UnitTiming extends Annotation {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(UnitTiming.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated  */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected UnitTiming() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated */
+  public UnitTiming(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated */
+  public UnitTiming(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** @generated */  
+  public UnitTiming(JCas jcas, int begin, int end) {
+    super(jcas);
+    setBegin(begin);
+    setEnd(end);
+    readObject();
+  }   
+
+  /** <!-- begin-user-doc -->
+    * Write your own initialization here
+    * <!-- end-user-doc -->
+  @generated modifiable */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: thread
+
+  /** getter for thread - gets Name of the processing unit thread
+   * @generated */
+  public String getThread() {
+    if (UnitTiming_Type.featOkTst && ((UnitTiming_Type)jcasType).casFeat_thread == null)
+      jcasType.jcas.throwFeatMissing("thread", "edu.cmu.deiis.types.UnitTiming");
+    return jcasType.ll_cas.ll_getStringValue(addr, ((UnitTiming_Type)jcasType).casFeatCode_thread);}
+    
+  /** setter for thread - sets Name of the processing unit thread 
+   * @generated */
+  public void setThread(String v) {
+    if (UnitTiming_Type.featOkTst && ((UnitTiming_Type)jcasType).casFeat_thread == null)
+      jcasType.jcas.throwFeatMissing("thread", "edu.cmu.deiis.types.UnitTiming");
+    jcasType.ll_cas.ll_setStringValue(addr, ((UnitTiming_Type)jcasType).casFeatCode_thread, v);}    
+   
+    
+  //*--------------*
+  //* Feature: startNanos
+
+  /** getter for startNanos - gets System.nanoTime() when the first UnitTimer saw the document
+   * @generated */
+  public long getStartNanos() {
+    if (UnitTiming_Type.featOkTst && ((UnitTiming_Type)jcasType).casFeat_startNanos == null)
+      jcasType.jcas.throwFeatMissing("startNanos", "edu.cmu.deiis.types.UnitTiming");
+    return jcasType.ll_cas.ll_getLongValue(addr, ((UnitTiming_Type)jcasType).casFeatCode_startNanos);}
+    
+  /** setter for startNanos - sets System.nanoTime() when the first UnitTimer saw the document 
+   * @generated */
+  public void setStartNanos(long v) {
+    if (UnitTiming_Type.featOkTst && ((UnitTiming_Type)jcasType).casFeat_startNanos == null)
+      jcasType.jcas.throwFeatMissing("startNanos", "edu.cmu.deiis.types.UnitTiming");
+    jcasType.ll_cas.ll_setLongValue(addr, ((UnitTiming_Type)jcasType).casFeatCode_startNanos, v);}    
+   
+    
+  //*--------------*
+  //* Feature: endNanos
+
+  /** getter for endNanos - gets System.nanoTime() when the last UnitTimer saw the document
+   * @generated */
+  public long getEndNanos() {
+    if (UnitTiming_Type.featOkTst && ((UnitTiming_Type)jcasType).casFeat_endNanos == null)
+      jcasType.jcas.throwFeatMissing("endNanos", "edu.cmu.deiis.types.UnitTiming");
+    return jcasType.ll_cas.ll_getLongValue(addr, ((UnitTiming_Type)jcasType).casFeatCode_endNanos);}
+    
+  /** setter for endNanos - sets System.nanoTime() when the last UnitTimer saw the document 
+   * @generated */
+  public void setEndNanos(long v) {
+    if (UnitTiming_Type.featOkTst && ((UnitTiming_Type)jcasType).casFeat_endNanos == null)
+      jcasType.jcas.throwFeatMissing("endNanos", "edu.cmu.deiis.types.UnitTiming");
+    jcasType.ll_cas.ll_setLongValue(addr, ((UnitTiming_Type)jcasType).casFeatCode_endNanos, v);}
+  }
+
+    
\ No newline at end of file
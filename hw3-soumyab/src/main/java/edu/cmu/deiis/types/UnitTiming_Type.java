@@ -0,0 +1,124 @@
+
+/* First created by JCasGen Mon Oct 19 16:40:05 EDT 2026 */
+package edu.cmu.deiis.types;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+
+/** Processing unit thread that analyzed a document and when, recorded by UnitTimer
+ * Updated by JCasGen Mon Oct 19 16:40:05 EDT 2026
+ * @generated */
+public class UnitTiming_Type extends Annotation_Type {
+  /** @generated */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (UnitTiming_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = UnitTiming_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new UnitTiming(addr, UnitTiming_Type.this);
+  			   UnitTiming_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new UnitTiming(addr, UnitTiming_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = UnitTiming.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("edu.cmu.deiis.types.UnitTiming");
+ 
+  /** @generated */
+  final Feature casFeat_thread;
+  /** @generated */
+  final int     casFeatCode_thread;
+  /** @generated */ 
+  public String getThread(int addr) {
+        if (featOkTst && casFeat_thread == null)
+      jcas.throwFeatMissing("thread", "edu.cmu.deiis.types.UnitTiming");
+    return ll_cas.ll_getStringValue(addr, casFeatCode_thread);
+  }
+  /** @generated */    
+  public void setThread(int addr, String v) {
+        if (featOkTst && casFeat_thread == null)
+      jcas.throwFeatMissing("thread", "edu.cmu.deiis.types.UnitTiming");
+    ll_cas.ll_setStringValue(addr, casFeatCode_thread, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_startNanos;
+  /** @generated */
+  final int     casFeatCode_startNanos;
+  /** @generated */ 
+  public long getStartNanos(int addr) {
+        if (featOkTst && casFeat_startNanos == null)
+      jcas.throwFeatMissing("startNanos", "edu.cmu.deiis.types.UnitTiming");
+    return ll_cas.ll_getLongValue(addr, casFeatCode_startNanos);
+  }
+  /** @generated */    
+  public void setStartNanos(int addr, long v) {
+        if (featOkTst && casFeat_startNanos == null)
+      jcas.throwFeatMissing("startNanos", "edu.cmu.deiis.types.UnitTiming");
+    ll_cas.ll_setLongValue(addr, casFeatCode_startNanos, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_endNanos;
+  /** @generated */
+  final int     casFeatCode_endNanos;
+  /** @generated */ 
+  public long getEndNanos(int addr) {
+        if (featOkTst && casFeat_endNanos == null)
+      jcas.throwFeatMissing("endNanos", "edu.cmu.deiis.types.UnitTiming");
+    return ll_cas.ll_getLongValue(addr, casFeatCode_endNanos);
+  }
+  /** @generated */    
+  public void setEndNanos(int addr, long v) {
+        if (featOkTst && casFeat_endNanos == null)
+      jcas.throwFeatMissing("endNanos", "edu.cmu.deiis.types.UnitTiming");
+    ll_cas.ll_setLongValue(addr, casFeatCode_endNanos, v);}
+  
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	* @generated */
+  public UnitTiming_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_thread = jcas.getRequiredFeatureDE(casType, "thread", "uima.cas.String", featOkTst);
+    casFeatCode_thread  = (null == casFeat_thread) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_thread).getCode();
+
+ 
+    casFeat_startNanos = jcas.getRequiredFeatureDE(casType, "startNanos", "uima.cas.Long", featOkTst);
+    casFeatCode_startNanos  = (null == casFeat_startNanos) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_startNanos).getCode();
+
+ 
+    casFeat_endNanos = jcas.getRequiredFeatureDE(casType, "endNanos", "uima.cas.Long", featOkTst);
+    casFeatCode_endNanos  = (null == casFeat_endNanos) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_endNanos).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
@@ -0,0 +1,82 @@
+/**
+ * Minimal "--name value" command line parsing shared by the tools
+ */
+package tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Soumya Batra
+ *
+ */
+public class Arguments {
+
+  // Option values by name, without the leading dashes
+  private final Map<String, String> options = new HashMap<String, String>();
+
+  // Arguments that are not options, in the order given
+  private final List<String> positional = new ArrayList<String>();
+
+  public Arguments(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].startsWith("--")) {
+        String name = args[i].substring(2);
+        // An option directly followed by another option (or nothing) is a switch
+        if ((i + 1 < args.length) && !args[i + 1].startsWith("--"))
+          options.put(name, args[++i]);
+        else
+          options.put(name, "true");
+      } else
+        positional.add(args[i]);
+    }
+  }
+
+  public boolean has(String name) {
+    return options.containsKey(name);
+  }
+
+  public String get(String name, String defaultValue) {
+    String value = options.get(name);
+    return (value != null) ? value : defaultValue;
+  }
+
+  public int getInt(String name, int defaultValue) {
+    String value = options.get(name);
+    return (value != null) ? Integer.parseInt(value) : defaultValue;
+  }
+
+  public long getLong(String name, long defaultValue) {
+    String value = options.get(name);
+    return (value != null) ? Long.parseLong(value) : defaultValue;
+  }
+
+  public double getDouble(String name, double defaultValue) {
+    String value = options.get(name);
+    return (value != null) ? Double.parseDouble(value) : defaultValue;
+  }
+
+  public boolean getBoolean(String name, boolean defaultValue) {
+    String value = options.get(name);
+    return (value != null) ? Boolean.parseBoolean(value) : defaultValue;
+  }
+
+  // Comma separated list of integers, e.g. --threads 1,2,4
+  public int[] getInts(String name, int[] defaultValue) {
+    String value = options.get(name);
+    if (value == null)
+      return defaultValue;
+    String[] parts = value.split(",");
+    int[] result = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      result[i] = Integer.parseInt(parts[i].trim());
+    }
+    return result;
+  }
+
+  public List<String> positional() {
+    return positional;
+  }
+}
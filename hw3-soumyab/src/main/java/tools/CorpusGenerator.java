@@ -0,0 +1,218 @@
+/**
+ * Writes a synthetic collection of question files in the "Q ..." / "A 0|1 ..." input format
+ */
+package tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Deterministic generator of input documents for capacity planning. Token frequencies follow a
+ * Zipfian distribution over a synthetic vocabulary, so a few words are very common and most are
+ * rare, like in real text. The same settings and seed always produce the same files.
+ * <p>
+ * Options:
+ * <ul>
+ * <li><code>--questions</code> - number of documents (one question each)</li>
+ * <li><code>--answers</code> - answers per question</li>
+ * <li><code>--tokens</code> - tokens per answer</li>
+ * <li><code>--vocabulary</code> - number of distinct words</li>
+ * <li><code>--zipf</code> - exponent of the Zipfian rank distribution</li>
+ * <li><code>--gold</code> - fraction of answers marked correct (at least one per question)</li>
+ * <li><code>--seed</code> - random seed</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class CorpusGenerator {
+
+  // Words are built from consonant-vowel syllables so that they tokenize as single words
+  private static final String consonants = "bcdfghklmnprstvz";
+
+  private static final String vowels = "aeiou";
+
+  // Every n-th word of the vocabulary is capitalized and so looks like a named entity
+  private static final int nameEvery = 7;
+
+  int questions = 100;
+
+  int answersPerQuestion = 8;
+
+  int tokensPerAnswer = 6;
+
+  int vocabularySize = 5000;
+
+  double zipfExponent = 1.0;
+
+  double goldRatio = 0.5;
+
+  long seed = 1L;
+
+  // Vocabulary ordered by rank, most frequent word first
+  private String[] vocabulary;
+
+  // Cumulative Zipfian probability of every rank
+  private double[] cumulative;
+
+  public CorpusGenerator() {
+  }
+
+  public CorpusGenerator(Arguments args) {
+    questions = args.getInt("questions", questions);
+    answersPerQuestion = args.getInt("answers", answersPerQuestion);
+    tokensPerAnswer = args.getInt("tokens", tokensPerAnswer);
+    vocabularySize = args.getInt("vocabulary", vocabularySize);
+    zipfExponent = args.getDouble("zipf", zipfExponent);
+    goldRatio = args.getDouble("gold", goldRatio);
+    seed = args.getLong("seed", seed);
+  }
+
+  /**
+   * Writes <code>questions</code> files named q00001.txt, q00002.txt, ... into the directory and
+   * returns the total number of bytes written.
+   */
+  public long generate(File dir) throws IOException {
+    prepare();
+    if (!dir.exists()) {
+      dir.mkdirs();
+    }
+
+    Random random = new Random(seed);
+    long bytes = 0;
+    for (int i = 1; i <= questions; i++) {
+      String doc = document(random);
+      PrintWriter out = new PrintWriter(new File(dir, String.format("q%05d.txt", i)), "UTF-8");
+      try {
+        out.print(doc);
+      } finally {
+        out.close();
+      }
+      bytes += doc.length();
+    }
+    return bytes;
+  }
+
+  /**
+   * Builds one document. Correct answers take half of their words from the question, so that
+   * n-gram overlap carries some signal.
+   */
+  String document(Random random) {
+    prepare();
+    StringBuilder doc = new StringBuilder();
+
+    String[] question = new String[Math.max(3, tokensPerAnswer)];
+    for (int i = 0; i < question.length; i++) {
+      question[i] = vocabulary[nextRank(random)];
+    }
+    doc.append("Q ");
+    appendWords(doc, question);
+    doc.append("?\n");
+
+    // At least one correct answer per question, otherwise precision is undefined
+    int gold = Math.max(1, (int) Math.round(goldRatio * answersPerQuestion));
+    boolean[] correct = new boolean[answersPerQuestion];
+    for (int i = 0; i < gold && i < answersPerQuestion; i++) {
+      correct[i] = true;
+    }
+    shuffle(correct, random);
+
+    String[] answer = new String[tokensPerAnswer];
+    for (int i = 0; i < answersPerQuestion; i++) {
+      for (int j = 0; j < answer.length; j++) {
+        if (correct[i] && random.nextBoolean())
+          answer[j] = question[random.nextInt(question.length)];
+        else
+          answer[j] = vocabulary[nextRank(random)];
+      }
+      doc.append("A ").append(correct[i] ? '1' : '0').append(' ');
+      appendWords(doc, answer);
+      doc.append(".\n");
+    }
+    return doc.toString();
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Builds the vocabulary and the rank distribution once
+  private void prepare() {
+    if (vocabulary != null)
+      return;
+
+    vocabulary = new String[vocabularySize];
+    cumulative = new double[vocabularySize];
+    double total = 0.0;
+    for (int rank = 0; rank < vocabularySize; rank++) {
+      vocabulary[rank] = word(rank);
+      total += 1.0 / Math.pow(rank + 1, zipfExponent);
+      cumulative[rank] = total;
+    }
+    for (int rank = 0; rank < vocabularySize; rank++) {
+      cumulative[rank] /= total;
+    }
+  }
+
+  // Draws a rank from the Zipfian distribution by inverting the cumulative probabilities
+  private int nextRank(Random random) {
+    int pos = Arrays.binarySearch(cumulative, random.nextDouble());
+    if (pos < 0)
+      pos = -pos - 1;
+    return Math.min(pos, vocabularySize - 1);
+  }
+
+  // Spells the rank in base (consonants x vowels), with at least two syllables
+  static String word(int rank) {
+    int base = consonants.length() * vowels.length();
+    StringBuilder w = new StringBuilder();
+    int n = rank;
+    do {
+      int syllable = n % base;
+      w.append(consonants.charAt(syllable / vowels.length()));
+      w.append(vowels.charAt(syllable % vowels.length()));
+      n /= base;
+    } while ((n > 0) || (w.length() < 4));
+    if (rank % nameEvery == 0)
+      w.setCharAt(0, Character.toUpperCase(w.charAt(0)));
+    return w.toString();
+  }
+
+  private static void appendWords(StringBuilder doc, String[] words) {
+    for (int i = 0; i < words.length; i++) {
+      if (i > 0)
+        doc.append(' ');
+      doc.append(words[i]);
+    }
+  }
+
+  private static void shuffle(boolean[] values, Random random) {
+    for (int i = values.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      boolean v = values[i];
+      values[i] = values[j];
+      values[j] = v;
+    }
+  }
+
+  /**
+   * Usage: CorpusGenerator &lt;output directory&gt; [--questions n] [--answers n] [--tokens n]
+   * [--vocabulary n] [--zipf s] [--gold ratio] [--seed n]
+   */
+  public static void main(String[] args) throws IOException {
+    Arguments arguments = new Arguments(args);
+    if (arguments.positional().isEmpty()) {
+      System.err.println("Usage: CorpusGenerator <output directory> [--questions n] [--answers n]"
+              + " [--tokens n] [--vocabulary n] [--zipf s] [--gold ratio] [--seed n]");
+      System.exit(1);
+    }
+    File dir = new File(arguments.positional().get(0));
+    CorpusGenerator generator = new CorpusGenerator(arguments);
+    long bytes = generator.generate(dir);
+    System.out.printf("Wrote %d documents (%d bytes) to %s%n", generator.questions, bytes,
+            dir.getAbsolutePath());
+  }
+}
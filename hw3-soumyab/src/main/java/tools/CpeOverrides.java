@@ -0,0 +1,96 @@
+/**
+ * Loads a CPE descriptor and overrides the settings that change between runs
+ */
+package tools;
+
+import java.io.File;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.collection.impl.metadata.cpe.CpeDescriptorFactory;
+import org.apache.uima.collection.metadata.CasProcessorConfigurationParameterSettings;
+import org.apache.uima.collection.metadata.CpeCasProcessor;
+import org.apache.uima.collection.metadata.CpeCollectionReaderIterator;
+import org.apache.uima.collection.metadata.CpeDescription;
+import org.apache.uima.collection.metadata.CpeDescriptorException;
+import org.apache.uima.util.InvalidXMLException;
+import org.apache.uima.util.XMLInputSource;
+
+/**
+ * The CPE descriptors carry machine specific paths (the InputDirectory is a Windows path), so
+ * the command line tools load them through here and replace input, output and thread settings.
+ * 
+ * @author Soumya Batra
+ *
+ */
+public final class CpeOverrides {
+
+  // Parameter of the FileSystemCollectionReader
+  public static final String PARAM_INPUTDIR = "InputDirectory";
+
+  // Parameter of the ArchiveCollectionReader
+  public static final String PARAM_INPUT_ARCHIVE = "InputArchive";
+
+  // Parameter of the CASEvaluator consumer
+  public static final String PARAM_OUTPUTDIR = "OutputDirectory";
+
+  // Name of the consumer in the CPE descriptors
+  public static final String CONSUMER = "casConsumerDescriptor";
+
+  private CpeOverrides() {
+  }
+
+  public static CpeDescription load(File descriptor) throws java.io.IOException,
+          InvalidXMLException {
+    return UIMAFramework.getXMLParser().parseCpeDescription(new XMLInputSource(descriptor));
+  }
+
+  /**
+   * Sets the input of the collection reader: the InputDirectory of a directory, or the
+   * InputArchive of the archive reader for a file.
+   */
+  public static void setInputDirectory(CpeDescription cpe, File dir) throws CpeDescriptorException {
+    CpeCollectionReaderIterator iterator = cpe.getAllCollectionCollectionReaders()[0]
+            .getCollectionIterator();
+    CasProcessorConfigurationParameterSettings settings = iterator
+            .getConfigurationParameterSettings();
+    if (settings == null) {
+      settings = CpeDescriptorFactory.produceCasProcessorConfigurationParameterSettings();
+      iterator.setConfigurationParameterSettings(settings);
+    }
+    settings.setParameterValue(dir.isFile() ? PARAM_INPUT_ARCHIVE : PARAM_INPUTDIR, dir
+            .getAbsolutePath());
+  }
+
+  public static void setOutputDirectory(CpeDescription cpe, File dir)
+          throws CpeDescriptorException {
+    setParameter(cpe, CONSUMER, PARAM_OUTPUTDIR, dir.getAbsolutePath());
+  }
+
+  /**
+   * Sets a configuration parameter of the CAS processor with the given name. Processors that are
+   * not part of the CPE are ignored, so the same override works for every CPE descriptor.
+   */
+  public static void setParameter(CpeDescription cpe, String processor, String name, Object value)
+          throws CpeDescriptorException {
+    for (CpeCasProcessor p : cpe.getCpeCasProcessors().getAllCpeCasProcessors()) {
+      if (processor.equals(p.getName())) {
+        CasProcessorConfigurationParameterSettings settings = p
+                .getConfigurationParameterSettings();
+        if (settings == null) {
+          settings = CpeDescriptorFactory.produceCasProcessorConfigurationParameterSettings();
+          p.setConfigurationParameterSettings(settings);
+        }
+        settings.setParameterValue(name, value);
+      }
+    }
+  }
+
+  /**
+   * Sets the number of processing unit threads. The CAS pool gets two extra CASes so that the
+   * collection reader can fill the next CAS while every thread is busy.
+   */
+  public static void setThreads(CpeDescription cpe, int threads) throws CpeDescriptorException {
+    cpe.setProcessingUnitThreadCount(threads);
+    cpe.getCpeCasProcessors().setPoolSize(threads + 2);
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Headless entry point that runs a CPE descriptor once and reports how long it took to start
+ */
+package tools;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.collection.CollectionProcessingEngine;
+import org.apache.uima.collection.metadata.CpeDescription;
+
+import cpeFiles.GuardedNerClient;
+
+/**
+ * Runs the pipeline without the CPE GUI or the Document Analyzer, for scripts and short batch
+ * jobs. The descriptor is loaded through {@link CpeOverrides}, so input, output and thread
+ * settings can be given on the command line, and the run ends with one line of startup timings
+ * measured from JVM start: until main, until the CPE finished initializing and until the first
+ * document came out of it. The last one, time to first CAS, is what run-cpe.sh cuts with a class
+ * data sharing archive. The idle time of every processing unit thread follows.
+ * <p>
+ * Options:
+ * <ul>
+ * <li><code>--cpe</code> - CPE descriptor to run (default hw3-soumyab-CPE.xml)</li>
+ * <li><code>--input</code> - input directory, instead of the descriptor's InputDirectory, or input
+ * archive for hw3-soumyab-archive-CPE.xml</li>
+ * <li><code>--output</code> - output directory, instead of the consumer's OutputDirectory</li>
+ * <li><code>--threads</code> - processing unit threads, instead of the descriptor's count</li>
+ * <li><code>--descriptor-cache</code> - directory of a {@link DescriptorCache}: the analysis
+ * engines are loaded from their resolved descriptors and the guarded NER client keeps the service
+ * metadata there</li>
+ * </ul>
+ * The exit status is 1 if any document failed.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class CpeRunner {
+
+  private static final String defaultCpe = "src/main/resources/hw3-soumyab-CPE.xml";
+
+  // Name of the guarded NER client in the CPE descriptors
+  private static final String nerClient = "scnlp-soumyab-guarded";
+
+  public static void main(String[] args) throws Exception {
+    // Milliseconds from JVM start to here, the part of startup class data sharing speeds up most
+    long mainMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    long mainNanos = System.nanoTime();
+
+    Arguments arguments = new Arguments(args);
+    CpeDescription desc = CpeOverrides.load(new File(arguments.get("cpe", defaultCpe)));
+    if (arguments.has("input"))
+      CpeOverrides.setInputDirectory(desc, new File(arguments.get("input", null)));
+    if (arguments.has("output"))
+      CpeOverrides.setOutputDirectory(desc, new File(arguments.get("output", null)));
+    if (arguments.has("threads"))
+      CpeOverrides.setThreads(desc, arguments.getInt("threads", 1));
+    DescriptorCache cache = null;
+    if (arguments.has("descriptor-cache")) {
+      File dir = new File(arguments.get("descriptor-cache", null));
+      cache = new DescriptorCache(dir);
+      cache.apply(desc);
+      CpeOverrides.setParameter(desc, nerClient, GuardedNerClient.PARAM_METADATA_CACHE,
+              dir.getAbsolutePath());
+    }
+
+    CollectionProcessingEngine cpe = UIMAFramework.produceCollectionProcessingEngine(desc);
+    RunStatistics stats = new RunStatistics();
+    cpe.addStatusCallbackListener(stats);
+    cpe.process();
+    stats.await();
+
+    System.out.println();
+    if (cache != null)
+      System.out.println(cache.report());
+    System.out.printf("%d documents, %d errors in %.2f s%n", stats.getDocuments(),
+            stats.getErrors(), (System.nanoTime() - mainNanos) / 1e9);
+    System.out.printf("Startup: main at %d ms, CPE ready at %d ms, first CAS at %d ms%n",
+            mainMillis, sinceStart(mainMillis, mainNanos, stats.getInitializedNanos()),
+            sinceStart(mainMillis, mainNanos, stats.getFirstCasNanos()));
+    System.out.println(stats.getThreadReport());
+
+    // Service clients can leave non-daemon threads behind
+    System.exit((stats.getErrors() > 0) ? 1 : 0);
+  }
+
+  // Milliseconds from JVM start to the given System.nanoTime(), -1 if it never happened
+  private static long sinceStart(long mainMillis, long mainNanos, long nanos) {
+    return (nanos == 0) ? -1 : mainMillis + (nanos - mainNanos) / 1000000L;
+  }
+}
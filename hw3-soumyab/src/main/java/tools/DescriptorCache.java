@@ -0,0 +1,277 @@
+/**
+ * Local cache of resolved descriptors and service metadata, keyed by descriptor checksums
+ */
+package tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.collection.metadata.CpeCasProcessor;
+import org.apache.uima.collection.metadata.CpeComponentDescriptor;
+import org.apache.uima.collection.metadata.CpeDescription;
+import org.apache.uima.collection.metadata.CpeDescriptorException;
+import org.apache.uima.resource.ResourceConfigurationException;
+import org.apache.uima.resource.ResourceManager;
+import org.apache.uima.resource.ResourceSpecifier;
+import org.apache.uima.resource.metadata.Import;
+import org.apache.uima.resource.metadata.MetaDataObject;
+import org.apache.uima.resource.metadata.impl.Import_impl;
+import org.apache.uima.util.InvalidXMLException;
+import org.apache.uima.util.XMLInputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Every start of a CPE parses the analysis engine descriptors again and resolves their imports:
+ * hw2-soumyab-aae.xml alone pulls in qa_annotator.xml, ngram_annotator.xml, deiis_indexes.xml and
+ * deiis_types.xml twice. This cache writes each analysis engine descriptor once as a single
+ * resolved file, with the type systems, indexes and delegates of all its imports inlined, and
+ * {@link #apply} points the CAS processors of a CPE description at those files, so later starts
+ * read one file per processor and resolve nothing.
+ * <p>
+ * A cached file is named after the checksum of the descriptor and of every file it imports by
+ * location, directly or not, so editing any of them makes a new entry. Imports by name come from
+ * jars and only their names are part of the checksum. The cache also keeps serialized objects,
+ * such as the metadata GuardedNerClient gets from the NER service, under keys derived from the
+ * same checksums.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class DescriptorCache {
+
+  // Imports by location and by name in a descriptor
+  private static final Pattern locationImport = Pattern
+          .compile("<import\\s+location\\s*=\\s*\"([^\"]+)\"");
+
+  private static final Pattern nameImport = Pattern.compile("<import\\s+name\\s*=\\s*\"([^\"]+)\"");
+
+  private static final Pattern analysisEngine = Pattern.compile("<analysisEngineDescription\\b");
+
+  private final File dir;
+
+  // Descriptors found in the cache and resolved in this run
+  private int hits = 0;
+
+  private int misses = 0;
+
+  public DescriptorCache(File dir) throws IOException {
+    this.dir = dir;
+    if (!dir.isDirectory() && !dir.mkdirs())
+      throw new IOException("Cannot create descriptor cache " + dir);
+  }
+
+  /**
+   * The resolved version of an analysis engine descriptor, written on first use. Other
+   * descriptors are returned as they are.
+   */
+  public File resolve(File descriptor) throws IOException, InvalidXMLException, SAXException {
+    if (!analysisEngine.matcher(TextFiles.read(descriptor)).find())
+      return descriptor;
+    String checksum = checksum(descriptor);
+    File cached = new File(dir, checksum + ".xml");
+    File unresolvable = new File(dir, checksum + ".skip");
+    if (cached.isFile()) {
+      hits++;
+      return cached;
+    }
+    if (unresolvable.isFile())
+      return descriptor;
+
+    AnalysisEngineDescription desc = UIMAFramework.getXMLParser().parseAnalysisEngineDescription(
+            new XMLInputSource(descriptor));
+    inline(desc, UIMAFramework.newDefaultResourceManager());
+    File tmp = new File(dir, cached.getName() + ".tmp");
+    Writer out = new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8");
+    try {
+      desc.toXML(out);
+    } finally {
+      out.close();
+    }
+
+    // An import left unresolved would be looked up next to the cached file, so such descriptors
+    // are remembered and used as they are
+    if (locationImport.matcher(TextFiles.read(tmp)).find()) {
+      commit(tmp, unresolvable);
+      return descriptor;
+    }
+    commit(tmp, cached);
+    misses++;
+    return cached;
+  }
+
+  /**
+   * Makes every CAS processor of the CPE import its resolved descriptor.
+   */
+  public void apply(CpeDescription cpe) throws CpeDescriptorException, IOException,
+          InvalidXMLException, SAXException {
+    ResourceManager resMgr = UIMAFramework.newDefaultResourceManager();
+    for (CpeCasProcessor p : cpe.getCpeCasProcessors().getAllCpeCasProcessors()) {
+      CpeComponentDescriptor component = p.getCpeComponentDescriptor();
+      File descriptor;
+      try {
+        descriptor = new File(component.findAbsoluteUrl(resMgr).toURI());
+      } catch (ResourceConfigurationException e) {
+        throw descriptorException(e);
+      } catch (URISyntaxException e) {
+        throw descriptorException(e);
+      } catch (IllegalArgumentException e) {
+        // Not a file, e.g. a descriptor inside a jar
+        continue;
+      }
+      File resolved = resolve(descriptor);
+      if (resolved != descriptor) {
+        Import imp = new Import_impl();
+        imp.setLocation(resolved.getAbsoluteFile().toURI().toURL().toString());
+        component.setImport(imp);
+      }
+    }
+  }
+
+  /**
+   * The object stored under the key, or null if there is none or it cannot be read.
+   */
+  public Object load(String key) {
+    File file = new File(dir, key + ".ser");
+    if (!file.isFile())
+      return null;
+    try {
+      ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
+      try {
+        return in.readObject();
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      return null;
+    } catch (ClassNotFoundException e) {
+      // Written by another version of the classes
+      return null;
+    }
+  }
+
+  public void store(String key, Serializable value) throws IOException {
+    File tmp = new File(dir, key + ".ser.tmp");
+    ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp));
+    try {
+      out.writeObject(value);
+    } finally {
+      out.close();
+    }
+    commit(tmp, new File(dir, key + ".ser"));
+  }
+
+  public String report() {
+    return "Descriptor cache: " + hits + " descriptors reused, " + misses + " resolved";
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // CpeDescriptorException only takes a message, the cause is kept through initCause
+  private static CpeDescriptorException descriptorException(Exception cause) {
+    CpeDescriptorException e = new CpeDescriptorException(cause.getMessage());
+    e.initCause(cause);
+    return e;
+  }
+
+  /**
+   * Hex SHA-1 over the descriptor and all files it imports by location, directly or through
+   * other imports, and the names of its imports by name.
+   */
+  public static String checksum(File descriptor) throws IOException {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    digest(descriptor.getCanonicalFile(), md, new HashSet<File>());
+    StringBuilder sb = new StringBuilder();
+    for (byte b : md.digest()) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  private static void digest(File file, MessageDigest md, Set<File> seen) throws IOException {
+    if (!seen.add(file))
+      return;
+    md.update(file.getPath().getBytes("UTF-8"));
+    md.update((byte) 0);
+    byte[] bytes = readBytes(file);
+    md.update(bytes);
+
+    String text = new String(bytes, "UTF-8");
+    Matcher m = nameImport.matcher(text);
+    while (m.find()) {
+      md.update(m.group(1).getBytes("UTF-8"));
+      md.update((byte) 0);
+    }
+    m = locationImport.matcher(text);
+    while (m.find()) {
+      File imported = new File(m.group(1));
+      if (!imported.isAbsolute())
+        imported = new File(file.getParentFile(), m.group(1));
+      if (imported.isFile())
+        digest(imported.getCanonicalFile(), md, seen);
+    }
+  }
+
+  // Resolves the imports of the descriptor and its delegates, replacing delegate imports by the
+  // delegate descriptors so that toXML writes them out in full
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static void inline(AnalysisEngineDescription desc, ResourceManager resMgr)
+          throws InvalidXMLException {
+    desc.resolveImports(resMgr);
+    if (desc.isPrimitive())
+      return;
+    Map<String, ResourceSpecifier> delegates = desc.getDelegateAnalysisEngineSpecifiers(resMgr);
+    for (ResourceSpecifier delegate : delegates.values()) {
+      if (delegate instanceof AnalysisEngineDescription)
+        inline((AnalysisEngineDescription) delegate, resMgr);
+    }
+    Map<String, MetaDataObject> withImports = desc.getDelegateAnalysisEngineSpecifiersWithImports();
+    withImports.clear();
+    withImports.putAll((Map) delegates);
+  }
+
+  private static byte[] readBytes(File file) throws IOException {
+    byte[] bytes = new byte[(int) file.length()];
+    InputStream in = new FileInputStream(file);
+    try {
+      int off = 0, n;
+      while ((off < bytes.length) && ((n = in.read(bytes, off, bytes.length - off)) > 0)) {
+        off += n;
+      }
+    } finally {
+      in.close();
+    }
+    return bytes;
+  }
+
+  private static void commit(File tmp, File target) throws IOException {
+    if (target.exists() && !target.delete())
+      throw new IOException("Cannot replace " + target);
+    if (!tmp.renameTo(target))
+      throw new IOException("Cannot rename " + tmp + " to " + target);
+  }
+}
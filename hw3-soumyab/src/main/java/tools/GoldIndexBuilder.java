@@ -0,0 +1,156 @@
+/**
+ * Compiles the gold answers of a collection into a memory mappable NGram index
+ */
+package tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import annotators.GoldNGramIndex_impl;
+import annotators.NGramHash;
+import annotators.QASentence;
+
+/**
+ * Reads every question file of a directory, splits it into question and answers the way
+ * QAAnnotator does, and writes the 1, 2 and 3 gram hashes of the correct answers of each question
+ * with {@link GoldNGramIndex_impl#write}. The resulting file is bound to the GoldNGramIndex
+ * resource of gold_pipeline and ngram_annotator.
+ * <p>
+ * A question is keyed with its gold answers by {@link NGramHash#goldKey}, so the same question
+ * with other gold answers gets an entry of its own, and an index built from other files than the
+ * pipeline reads is never used for documents whose gold answers changed. Documents that repeat a
+ * question with the same gold answers are indexed once; two different questions with the same key
+ * are rejected.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class GoldIndexBuilder {
+
+  // Gold NGram hashes of every question seen so far, by gold key
+  private final Map<Long, Set<Long>> hashes = new HashMap<Long, Set<Long>>();
+
+  // Number of gold NGrams of each order of every question
+  private final Map<Long, int[]> counts = new HashMap<Long, int[]>();
+
+  // Folded tokens of the question and of its sorted gold answers, to tell repeats from collisions
+  private final Map<Long, String> contents = new HashMap<Long, String>();
+
+  /**
+   * Adds the gold answers of one document.
+   *
+   * @throws IllegalArgumentException
+   *           if a question gets the gold key of another question or other gold answers
+   */
+  public void add(String input) {
+    String question = null;
+    List<String> gold = new ArrayList<String>();
+    for (QASentence sentence : QASentence.split(input)) {
+      if (sentence.isQuestion) {
+        if (question != null)
+          addQuestion(question, gold);
+        question = sentence.text(input);
+        gold.clear();
+      } else if ((question != null) && sentence.isCorrect) {
+        gold.add(sentence.text(input));
+      }
+    }
+    if (question != null)
+      addQuestion(question, gold);
+  }
+
+  private void addQuestion(String question, List<String> goldAnswers) {
+    long goldSum = 0;
+    List<String[]> tokens = new ArrayList<String[]>();
+    List<String> answers = new ArrayList<String>();
+    for (String answer : goldAnswers) {
+      String[] t = NGramHash.foldedTokens(answer);
+      goldSum += NGramHash.goldAnswerHash(t);
+      tokens.add(t);
+      answers.add(Arrays.toString(t));
+    }
+    Collections.sort(answers);
+    String content = Arrays.toString(NGramHash.foldedTokens(question)) + answers;
+    Long key = NGramHash.goldKey(NGramHash.questionKey(question), goldSum);
+
+    String known = contents.get(key);
+    if (known != null) {
+      if (!known.equals(content))
+        throw new IllegalArgumentException("Gold key " + Long.toHexString(key) + " of " + content
+                + " is already that of " + known);
+      return;
+    }
+    contents.put(key, content);
+    hashes.put(key, new HashSet<Long>());
+    counts.put(key, new int[NGramHash.MAX_ORDER]);
+    for (String[] t : tokens) {
+      addGoldAnswer(key, t);
+    }
+  }
+
+  private void addGoldAnswer(Long key, String[] tokens) {
+    Set<Long> set = hashes.get(key);
+    int[] count = counts.get(key);
+    for (int j = 1; j <= NGramHash.MAX_ORDER; j++) {
+      for (int i = 0; i + j <= tokens.length; i++) {
+        set.add(NGramHash.hash(tokens, i, j));
+        count[j - 1]++;
+      }
+    }
+  }
+
+  public void write(File file) throws IOException {
+    SortedMap<Long, long[]> sorted = new TreeMap<Long, long[]>();
+    for (Map.Entry<Long, Set<Long>> q : hashes.entrySet()) {
+      long[] h = new long[q.getValue().size()];
+      int i = 0;
+      for (Long v : q.getValue()) {
+        h[i++] = v;
+      }
+      Arrays.sort(h);
+      sorted.put(q.getKey(), h);
+    }
+    GoldNGramIndex_impl.write(file, sorted, counts);
+  }
+
+  public int questions() {
+    return hashes.size();
+  }
+
+  /**
+   * Usage: GoldIndexBuilder &lt;input directory&gt; &lt;index file&gt;
+   */
+  public static void main(String[] args) throws IOException {
+    Arguments arguments = new Arguments(args);
+    if (arguments.positional().size() < 2) {
+      System.err.println("Usage: GoldIndexBuilder <input directory> <index file>");
+      System.exit(1);
+    }
+    File input = new File(arguments.positional().get(0));
+    File output = new File(arguments.positional().get(1));
+
+    GoldIndexBuilder builder = new GoldIndexBuilder();
+    for (File f : TextFiles.list(input)) {
+      try {
+        builder.add(TextFiles.read(f));
+      } catch (IllegalArgumentException e) {
+        // No index is written, rather than one that gives a question the wrong gold NGrams
+        System.err.println(f + ": " + e.getMessage());
+        System.exit(1);
+      }
+    }
+    builder.write(output);
+    System.out.printf("Indexed gold answers of %d questions into %s%n", builder.questions(),
+            output.getAbsolutePath());
+  }
+}
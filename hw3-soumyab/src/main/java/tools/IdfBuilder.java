@@ -0,0 +1,136 @@
+/**
+ * Parallel pass over a corpus computing NGram document frequencies into a count-min sketch
+ */
+package tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import annotators.CountMinSketch;
+import annotators.IdfTable_impl;
+import annotators.NGramHash;
+import annotators.QASentence;
+
+/**
+ * The input files are split into one shard per thread. Every shard counts into its own off heap
+ * sketch, and finished shards are summed into the result as soon as they complete, so memory is
+ * bounded by (threads + 1) sketches however large the corpus and however many distinct NGrams it
+ * has. Each question and each answer is one document, and an NGram is counted at most once per
+ * document.
+ * <p>
+ * Options:
+ * <ul>
+ * <li><code>--threads</code> - number of shards counted in parallel</li>
+ * <li><code>--depth</code> - rows of the sketch</li>
+ * <li><code>--width</code> - counters per row, a power of two</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class IdfBuilder {
+
+  int threads = Runtime.getRuntime().availableProcessors();
+
+  int depth = 4;
+
+  // 4 rows of 2^20 counters, 16 MB, keep the overestimate small for a few million NGrams
+  int width = 1 << 20;
+
+  public IdfBuilder() {
+  }
+
+  public IdfBuilder(Arguments args) {
+    threads = args.getInt("threads", threads);
+    depth = args.getInt("depth", depth);
+    width = args.getInt("width", width);
+  }
+
+  // Result of one shard
+  static class Shard {
+    CountMinSketch sketch;
+
+    long documents;
+  }
+
+  /**
+   * Counts the document frequencies of all files and writes the table.
+   */
+  public long build(List<File> files, File output) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      CompletionService<Shard> shards = new ExecutorCompletionService<Shard>(pool);
+      for (int s = 0; s < threads; s++) {
+        shards.submit(count(files, s));
+      }
+
+      CountMinSketch total = new CountMinSketch(depth, width);
+      long documents = 0;
+      for (int s = 0; s < threads; s++) {
+        Shard shard = shards.take().get();
+        total.merge(shard.sketch);
+        documents += shard.documents;
+      }
+      IdfTable_impl.write(output, total, documents);
+      return documents;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  // Counts every threads-th file, starting at the shard number
+  private Callable<Shard> count(final List<File> files, final int shard) {
+    return new Callable<Shard>() {
+      public Shard call() throws IOException {
+        Shard result = new Shard();
+        result.sketch = new CountMinSketch(depth, width);
+        for (int i = shard; i < files.size(); i += threads) {
+          String input = TextFiles.read(files.get(i));
+          for (QASentence sentence : QASentence.split(input)) {
+            addDocument(result.sketch, sentence.text(input));
+            result.documents++;
+          }
+        }
+        return result;
+      }
+    };
+  }
+
+  // Adds every distinct NGram of the document once
+  static void addDocument(CountMinSketch sketch, String text) {
+    long[] hashes = NGramHash.ngramHashes(NGramHash.foldedTokens(text), NGramHash.MAX_ORDER);
+    Arrays.sort(hashes);
+    for (int i = 0; i < hashes.length; i++) {
+      if ((i == 0) || (hashes[i] != hashes[i - 1]))
+        sketch.add(hashes[i]);
+    }
+  }
+
+  /**
+   * Usage: IdfBuilder &lt;input directory&gt; &lt;table file&gt; [--threads n] [--depth n]
+   * [--width n]
+   */
+  public static void main(String[] args) throws Exception {
+    Arguments arguments = new Arguments(args);
+    if (arguments.positional().size() < 2) {
+      System.err.println("Usage: IdfBuilder <input directory> <table file> [--threads n]"
+              + " [--depth n] [--width n]");
+      System.exit(1);
+    }
+    File input = new File(arguments.positional().get(0));
+    File output = new File(arguments.positional().get(1));
+
+    IdfBuilder builder = new IdfBuilder(arguments);
+    long start = System.nanoTime();
+    long documents = builder.build(TextFiles.list(input), output);
+    System.out.printf("Counted %d documents with %d threads in %.2f s into %s%n", documents,
+            builder.threads, (System.nanoTime() - start) / 1e9, output.getAbsolutePath());
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Headless load test driver: runs the CPE over generated corpora and reports throughput and latency
+ */
+package tools;
+
+import java.io.File;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.collection.CollectionProcessingEngine;
+import org.apache.uima.collection.metadata.CpeDescription;
+
+/**
+ * For every corpus size a corpus is generated with {@link CorpusGenerator}, then the CPE is run
+ * once per thread count. Each run prints one line of a CSV table, so that scaling curves by
+ * thread count and corpus size can be plotted directly.
+ * <p>
+ * Options, besides those of {@link CorpusGenerator}:
+ * <ul>
+ * <li><code>--cpe</code> - CPE descriptor to run (default hw3-soumyab-CPE.xml)</li>
+ * <li><code>--threads</code> - comma separated processing unit thread counts</li>
+ * <li><code>--sizes</code> - comma separated corpus sizes (number of questions)</li>
+ * <li><code>--work</code> - directory for the generated input and the output files</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class LoadTest {
+
+  private static final String defaultCpe = "src/main/resources/hw3-soumyab-CPE.xml";
+
+  public static void main(String[] args) throws Exception {
+    Arguments arguments = new Arguments(args);
+    File cpeFile = new File(arguments.get("cpe", defaultCpe));
+    int[] threads = arguments.getInts("threads", new int[] { 1, 2, 4 });
+    int[] sizes = arguments.getInts("sizes", new int[] { 100, 1000 });
+    File work = new File(arguments.get("work", System.getProperty("java.io.tmpdir")
+            + File.separator + "hw3-soumyab-load"));
+
+    System.out.println("threads,documents,errors,seconds,docs_per_sec,p50_ms,p99_ms,peak_heap_mb");
+    for (int size : sizes) {
+      File input = new File(work, "input-" + size);
+      CorpusGenerator generator = new CorpusGenerator(arguments);
+      generator.questions = size;
+      generator.generate(input);
+
+      for (int t : threads) {
+        RunStatistics stats = run(cpeFile, input, new File(work, "output-" + size + "-" + t), t);
+        System.out.printf("%d,%d,%d,%.2f,%.1f,%d,%d,%.1f%n", t, stats.getDocuments(),
+                stats.getErrors(), stats.getSeconds(), stats.getDocsPerSecond(),
+                stats.getPercentile(0.50), stats.getPercentile(0.99),
+                stats.getPeakHeapBytes() / (1024.0 * 1024.0));
+      }
+    }
+  }
+
+  /**
+   * Runs the CPE once over the input directory and waits for it to finish.
+   */
+  static RunStatistics run(File cpeFile, File input, File output, int threads) throws Exception {
+    CpeDescription desc = CpeOverrides.load(cpeFile);
+    CpeOverrides.setInputDirectory(desc, input);
+    CpeOverrides.setOutputDirectory(desc, output);
+    CpeOverrides.setThreads(desc, threads);
+
+    CollectionProcessingEngine cpe = UIMAFramework.produceCollectionProcessingEngine(desc);
+    RunStatistics stats = new RunStatistics();
+    cpe.addStatusCallbackListener(stats);
+    stats.start();
+    cpe.process();
+    stats.await();
+    return stats;
+  }
+}
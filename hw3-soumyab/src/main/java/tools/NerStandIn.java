@@ -0,0 +1,56 @@
+/**
+ * Stand-in for the Stanford CoreNLP service with a configurable latency
+ */
+package tools;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.cleartk.ne.type.NamedEntityMention;
+
+/**
+ * Marks every capitalized word as a named entity mention after sleeping for
+ * <code>LatencyMillis</code>. Deployed on a local broker with ner-standin-deploy.xml, where the
+ * number of instances sets the capacity of the service, it stands in for the remote NER service
+ * in load tests of the synchronous and asynchronous clients.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class NerStandIn extends JCasAnnotator_ImplBase {
+
+  public static final String PARAM_LATENCY = "LatencyMillis";
+
+  private static final Pattern entity = Pattern.compile("\\b[A-Z][a-z]+\\b");
+
+  // Injected processing time of every document
+  private int latency = 0;
+
+  @Override
+  public void initialize(UimaContext aContext) throws ResourceInitializationException {
+    super.initialize(aContext);
+    Integer millis = (Integer) aContext.getConfigParameterValue(PARAM_LATENCY);
+    if (millis != null)
+      latency = millis;
+  }
+
+  @Override
+  public void process(JCas jcas) throws AnalysisEngineProcessException {
+    try {
+      Thread.sleep(latency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalysisEngineProcessException(e);
+    }
+
+    Matcher m = entity.matcher(jcas.getDocumentText());
+    while (m.find()) {
+      new NamedEntityMention(jcas, m.start(), m.end()).addToIndexes();
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/**
+ * Collects per document latency, throughput and heap usage of a CPE run
+ */
+package tools;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.collection.EntityProcessStatus;
+import org.apache.uima.collection.StatusCallbackListener;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.util.ProcessTraceEvent;
+
+import edu.cmu.deiis.types.UnitTiming;
+
+/**
+ * Status listener that records how long each document spent in the CAS processors, as reported
+ * by the per document process trace of the CPM.
+ * <p>
+ * With CAS consumers in the CPE the CPM calls the listener on the consumer thread, not on the
+ * processing unit that analyzed the document. The per thread report therefore comes from the
+ * UnitTiming annotation that annotators.UnitTimer, the first and last analysis CAS processor of
+ * hw3-soumyab-scheduled-CPE.xml, leaves in every CAS: its thread, and the time from the first to
+ * the last timer is the thread's busy time for the document. A thread's idle time is the run time
+ * it spent on no document, and its tail is the time from its last document to the end of the run:
+ * with a good document order every thread finishes close to the end.
+ * 
+ * @author Soumya Batra
+ *
+ */
+public class RunStatistics implements StatusCallbackListener {
+
+  // Per document latencies in milliseconds
+  private long[] latencies = new long[1024];
+
+  private int documents = 0;
+
+  private int errors = 0;
+
+  private long startNanos;
+
+  // When the CPE finished initializing and the first document came out of it
+  private long initializedNanos;
+
+  private long firstCasNanos;
+
+  private long endNanos;
+
+  private final CountDownLatch done = new CountDownLatch(1);
+
+  // Interval at which the heap is sampled, and the highest use seen since start()
+  private static final long heapSampleMillis = 10;
+
+  private volatile long peakHeapBytes = 0;
+
+  // Work of every processing unit thread, by thread name
+  private final Map<String, ThreadUsage> threads = new TreeMap<String, ThreadUsage>();
+
+  static class ThreadUsage {
+    int documents = 0;
+
+    long busyNanos = 0;
+
+    long lastNanos = 0;
+  }
+
+  /**
+   * Starts sampling the heap. Call right before CollectionProcessingEngine.process().
+   */
+  public void start() {
+    System.gc();
+    final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    peakHeapBytes = memory.getHeapMemoryUsage().getUsed();
+    Thread sampler = new Thread(new Runnable() {
+      public void run() {
+        try {
+          do {
+            peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+          } while (!done.await(heapSampleMillis, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }, "heap sampler");
+    sampler.setDaemon(true);
+    sampler.start();
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Blocks until the CPE has finished or aborted.
+   */
+  public void await() throws InterruptedException {
+    done.await();
+  }
+
+  public synchronized void entityProcessComplete(CAS aCas, EntityProcessStatus aStatus) {
+    if (firstCasNanos == 0)
+      firstCasNanos = System.nanoTime();
+    if (aStatus.isException()) {
+      errors++;
+      return;
+    }
+    long ms = 0;
+    for (Object event : aStatus.getProcessTrace().getEvents()) {
+      ms += ((ProcessTraceEvent) event).getDuration();
+    }
+    if (documents == latencies.length)
+      latencies = Arrays.copyOf(latencies, documents * 2);
+    latencies[documents++] = ms;
+
+    UnitTiming timing = unitTiming(aCas);
+    if (timing == null)
+      return;
+    ThreadUsage usage = threads.get(timing.getThread());
+    if (usage == null) {
+      usage = new ThreadUsage();
+      threads.put(timing.getThread(), usage);
+    }
+    usage.documents++;
+    usage.busyNanos += timing.getEndNanos() - timing.getStartNanos();
+    usage.lastNanos = Math.max(usage.lastNanos, timing.getEndNanos());
+  }
+
+  public void collectionProcessComplete() {
+    endNanos = System.nanoTime();
+    done.countDown();
+  }
+
+  public void aborted() {
+    endNanos = System.nanoTime();
+    done.countDown();
+  }
+
+  public void initializationComplete() {
+    initializedNanos = System.nanoTime();
+  }
+
+  public void batchProcessComplete() {
+  }
+
+  public void paused() {
+  }
+
+  public void resumed() {
+  }
+
+  public synchronized int getDocuments() {
+    return documents;
+  }
+
+  public synchronized int getErrors() {
+    return errors;
+  }
+
+  public double getSeconds() {
+    return (endNanos - startNanos) / 1e9;
+  }
+
+  /**
+   * System.nanoTime() when the CPE finished initializing, or 0.
+   */
+  public long getInitializedNanos() {
+    return initializedNanos;
+  }
+
+  /**
+   * System.nanoTime() when the first document, processed or failed, came out of the CPE, or 0.
+   */
+  public synchronized long getFirstCasNanos() {
+    return firstCasNanos;
+  }
+
+  public double getDocsPerSecond() {
+    return getDocuments() / getSeconds();
+  }
+
+  /**
+   * Latency in milliseconds below which the given fraction of documents finished, e.g. 0.99 for
+   * p99.
+   */
+  public synchronized long getPercentile(double fraction) {
+    if (documents == 0)
+      return 0;
+    long[] sorted = Arrays.copyOf(latencies, documents);
+    Arrays.sort(sorted);
+    int pos = (int) Math.ceil(fraction * documents) - 1;
+    return sorted[Math.max(0, Math.min(pos, documents - 1))];
+  }
+
+  /**
+   * One line per processing unit thread: documents, busy and idle time, and the tail from its
+   * last document to the end of the run. The run starts at start(), or at the end of the CPE
+   * initialization if start() was not called. Needs the UnitTimer of the scheduled CPE.
+   */
+  public synchronized String getThreadReport() {
+    if (threads.isEmpty())
+      return "No per thread report: the CPE has no unit_timer CAS processors";
+    long from = (startNanos != 0) ? startNanos : initializedNanos;
+    long to = (endNanos != 0) ? endNanos : System.nanoTime();
+    long runMillis = (to - from) / 1000000L;
+    StringBuilder report = new StringBuilder();
+    long idle = 0, tail = 0;
+    for (Map.Entry<String, ThreadUsage> t : threads.entrySet()) {
+      ThreadUsage u = t.getValue();
+      long busyMillis = u.busyNanos / 1000000L;
+      long threadIdle = Math.max(0, runMillis - busyMillis);
+      long threadTail = (to - u.lastNanos) / 1000000L;
+      idle += threadIdle;
+      tail = Math.max(tail, threadTail);
+      report.append(String.format("%s: %d documents, busy %d ms, idle %d ms, tail %d ms%n", t
+              .getKey(), u.documents, busyMillis, threadIdle, threadTail));
+    }
+    report.append(String.format("%d threads over %d ms: %d ms idle in total, longest tail %d ms",
+            threads.size(), runMillis, idle, tail));
+    return report.toString();
+  }
+
+  /**
+   * Highest total heap use sampled between start() and the end of the run. The heap pools peak at
+   * different times, so the sum of their peaks would overstate it.
+   */
+  public long getPeakHeapBytes() {
+    return peakHeapBytes;
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Timing UnitTimer left in the CAS, null without one
+  private static UnitTiming unitTiming(CAS aCas) {
+    if ((aCas == null) || (aCas.getTypeSystem().getType(UnitTiming.class.getName()) == null))
+      return null;
+    try {
+      FSIterator<Annotation> it = aCas.getJCas().getAnnotationIndex(UnitTiming.type).iterator();
+      return it.hasNext() ? (UnitTiming) it.next() : null;
+    } catch (CASException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/**
+ * Local client of the scoring daemon that checks its replies and measures round trips
+ */
+package tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sends the documents of a directory to a {@link ScoringDaemon} on localhost, one request at a
+ * time per connection, and prints the number of requests and failed replies, the request rate
+ * and the p50 / p99 round trip. A reply fails when it starts with <code>!</code>, is empty, or
+ * has more lines than the document has non-empty answers (fewer are expected with TopK). Input
+ * files are sent as they are, without their empty lines.
+ * <p>
+ * Options:
+ * <ul>
+ * <li><code>--port</code> - port of the daemon (default 7391)</li>
+ * <li><code>--input</code> - directory of input documents (default the bundled inputData)</li>
+ * <li><code>--repeat</code> - times every connection sends the whole directory (default 100)</li>
+ * <li><code>--connections</code> - concurrent connections (default 1)</li>
+ * <li><code>--print</code> - print the replies of the first pass of the first connection</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ScoringClient {
+
+  private static final String defaultInput = "src/main/resources/inputData";
+
+  public static void main(String[] args) throws Exception {
+    Arguments arguments = new Arguments(args);
+    final int port = arguments.getInt("port", 7391);
+    final int repeat = arguments.getInt("repeat", 100);
+    final boolean print = arguments.has("print");
+    int connections = arguments.getInt("connections", 1);
+
+    final List<String> documents = new ArrayList<String>();
+    for (File f : TextFiles.list(new File(arguments.get("input", defaultInput)))) {
+      documents.add(TextFiles.read(f).replaceAll("(\r?\n)+", "\n").trim() + "\n");
+    }
+
+    final long[][] latencies = new long[connections][];
+    final int[] failures = new int[connections];
+    Thread[] threads = new Thread[connections];
+    long start = System.nanoTime();
+    for (int c = 0; c < connections; c++) {
+      final int id = c;
+      threads[c] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            latencies[id] = new long[repeat * documents.size()];
+            failures[id] = send(port, documents, repeat, latencies[id], print && (id == 0));
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      };
+      threads[c].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    int failed = 0, n = 0;
+    for (int c = 0; c < connections; c++) {
+      failed += failures[c];
+      n += (latencies[c] != null) ? latencies[c].length : 0;
+    }
+    long[] all = new long[n];
+    n = 0;
+    for (long[] l : latencies) {
+      if (l != null) {
+        System.arraycopy(l, 0, all, n, l.length);
+        n += l.length;
+      }
+    }
+    Arrays.sort(all);
+    System.out.printf("%d requests, %d failed, %.0f requests/s, round trip p50 %.1f us "
+            + "p99 %.1f us%n", n, failed, n / seconds, percentile(all, 0.50) / 1e3,
+            percentile(all, 0.99) / 1e3);
+    if (failed > 0)
+      System.exit(1);
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Sends every document repeat times over one connection and returns the number of failures
+  static int send(int port, List<String> documents, int repeat, long[] latencies, boolean print)
+          throws IOException {
+    Socket socket = new Socket(InetAddress.getByName("127.0.0.1"), port);
+    socket.setTcpNoDelay(true);
+    int failures = 0, i = 0;
+    try {
+      Writer out = new OutputStreamWriter(socket.getOutputStream(), "UTF-8");
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+              "UTF-8"));
+      for (int r = 0; r < repeat; r++) {
+        for (String doc : documents) {
+          long sent = System.nanoTime();
+          out.write(doc);
+          out.write('\n');
+          out.flush();
+
+          List<String> reply = new ArrayList<String>();
+          String line;
+          while (((line = in.readLine()) != null) && (line.length() > 0)) {
+            reply.add(line);
+          }
+          latencies[i++] = System.nanoTime() - sent;
+          if (line == null)
+            throw new IOException("Daemon closed the connection");
+          if (!valid(doc, reply))
+            failures++;
+          if (print && (r == 0)) {
+            for (String l : reply) {
+              System.out.println(l);
+            }
+            System.out.println();
+          }
+        }
+      }
+    } finally {
+      socket.close();
+    }
+    return failures;
+  }
+
+  // At most one ranked line per answer with text, and no error
+  private static boolean valid(String doc, List<String> reply) {
+    if (!reply.isEmpty() && reply.get(0).startsWith("!"))
+      return false;
+    int answers = 0;
+    for (String line : doc.split("\n")) {
+      if (line.matches("A [01] .*\\S.*"))
+        answers++;
+    }
+    return !reply.isEmpty() && (reply.size() <= answers);
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0)
+      return 0;
+    int pos = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(pos, sorted.length - 1))];
+  }
+}
@@ -0,0 +1,483 @@
+/**
+ * Long running scoring service that keeps the analysis engine warm and answers over a line protocol
+ */
+package tools;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.util.XMLInputSource;
+
+import annotators.Deadline;
+import annotators.NGramAnnotator;
+import cpeFiles.CASEvaluator;
+import edu.cmu.deiis.types.Answer;
+import edu.cmu.deiis.types.AnswerScore;
+
+/**
+ * Starting a JVM and a CPE costs far more than scoring one question, so this daemon produces the
+ * hw2-soumyab-aae aggregate once and keeps it, and one CAS per worker thread, for as long as it
+ * runs. Requests come in over a localhost socket, or over stdin with <code>--stdin</code>, in a
+ * line protocol: a request is a document in the input format, <code>Q ...</code> and
+ * <code>A 0|1 ...</code> lines, ended by an empty line. The reply is one line per scored answer in
+ * CASEvaluator's order, <code>+|- score answer</code>, ended by an empty line, or a single
+ * <code>! message</code> line and an empty line if the document could not be scored. With
+ * <code>--budget-millis</code>, answers not scored before the deadline follow the ranking as
+ * <code>? answer</code> lines. A client may send several requests without waiting, and gets the
+ * replies in the order it sent them.
+ * <p>
+ * Workers take requests in micro-batches: after the first request of a batch they wait up to
+ * <code>--window-micros</code> for more, up to <code>--batch</code> requests. A batch costs one
+ * queue handoff and one flush per client, however many requests it holds. Answers are ranked on
+ * NGram scores, as CASEvaluator ranks degraded documents, since the NER service is not part of
+ * the aggregate. On shutdown the daemon prints the batch sizes and the per request overhead: the
+ * time from reading a request to sending its reply, less the time its worker spent scoring the
+ * batch up to it. Time spent queued while every worker is busy counts as overhead.
+ * <p>
+ * Options:
+ * <ul>
+ * <li><code>--aae</code> - aggregate descriptor (default hw2-soumyab-aae.xml)</li>
+ * <li><code>--port</code> - localhost port to listen on (default 7391)</li>
+ * <li><code>--stdin</code> - serve stdin and stdout instead, and exit at the end of stdin</li>
+ * <li><code>--threads</code> - worker threads and CASes (default: available processors)</li>
+ * <li><code>--batch</code>, <code>--window-micros</code> - micro-batching (default 16, 200)</li>
+ * <li><code>--budget-millis</code> - scoring deadline of a request, counted from when it was read
+ * (default none)</li>
+ * <li><code>--descriptor-cache</code> - load the aggregate through a {@link DescriptorCache}</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ScoringDaemon {
+
+  private static final String defaultAae = "src/main/resources/hw2-soumyab-aae.xml";
+
+  // Overhead samples kept for the report, the most recent ones
+  private static final int samples = 65536;
+
+  // A document to score and where its reply goes
+  static class Request {
+    final Client client;
+
+    final String text;
+
+    final long receivedAt = System.nanoTime();
+
+    // Reply lines, set when done
+    String reply;
+
+    long processNanos;
+
+    // Processing time of the batch up to and including this request, and when its reply was
+    // flushed to the client
+    long batchNanos;
+
+    long sentAt;
+
+    // Whether the deadline passed before every answer was scored
+    boolean partial;
+
+    Request(Client client, String text) {
+      this.client = client;
+      this.text = text;
+    }
+  }
+
+  // A connection, or stdin and stdout. Replies are written in request order
+  static class Client {
+    private final Writer out;
+
+    private final LinkedList<Request> pending = new LinkedList<Request>();
+
+    // Requests whose replies are written but not yet flushed
+    private final List<Request> written = new ArrayList<Request>();
+
+    Client(OutputStream out) throws IOException {
+      this.out = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+    }
+
+    synchronized void add(Request r) {
+      pending.addLast(r);
+    }
+
+    // Sets the reply of the request and writes the replies that are next in order, without
+    // flushing. A reply waits here while an earlier request of the client is still scored
+    synchronized void complete(Request r, String reply) throws IOException {
+      r.reply = reply;
+      while (!pending.isEmpty() && (pending.getFirst().reply != null)) {
+        Request next = pending.removeFirst();
+        out.write(next.reply);
+        written.add(next);
+      }
+      if (pending.isEmpty())
+        notifyAll();
+    }
+
+    // Waits until every request is answered, once the client sent its last one
+    synchronized void awaitReplies() throws IOException {
+      try {
+        while (!pending.isEmpty()) {
+          wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      out.flush();
+    }
+
+    // Flushes the written replies and returns their requests, stamped with the time they were sent
+    synchronized List<Request> flush() throws IOException {
+      List<Request> sent = new ArrayList<Request>(written);
+      written.clear();
+      out.flush();
+      long now = System.nanoTime();
+      for (Request r : sent) {
+        r.sentAt = now;
+      }
+      return sent;
+    }
+  }
+
+  private final AnalysisEngine aae;
+
+  private final BlockingQueue<Request> queue = new LinkedBlockingQueue<Request>();
+
+  private final int batchSize;
+
+  private final long windowNanos;
+
+  // Scoring budget of a request in milliseconds, 0 for none
+  private final long budgetMillis;
+
+  // Statistics over all workers
+  private long requests = 0;
+
+  private long batches = 0;
+
+  private long partial = 0;
+
+  private final long[] overheadNanos = new long[samples];
+
+  private final long[] processNanos = new long[samples];
+
+  ScoringDaemon(AnalysisEngine aae, int batchSize, long windowMicros) {
+    this(aae, batchSize, windowMicros, 0);
+  }
+
+  ScoringDaemon(AnalysisEngine aae, int batchSize, long windowMicros, long budgetMillis) {
+    this.aae = aae;
+    this.batchSize = Math.max(1, batchSize);
+    this.windowNanos = windowMicros * 1000L;
+    this.budgetMillis = Math.max(0, budgetMillis);
+  }
+
+  public static void main(String[] args) throws Exception {
+    Arguments arguments = new Arguments(args);
+    File descriptor = new File(arguments.get("aae", defaultAae));
+    if (arguments.has("descriptor-cache"))
+      descriptor = new DescriptorCache(new File(arguments.get("descriptor-cache", null)))
+              .resolve(descriptor);
+    int threads = arguments.getInt("threads", Runtime.getRuntime().availableProcessors());
+
+    // The aggregate keeps one instance of every annotator per worker
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put(AnalysisEngine.PARAM_NUM_SIMULTANEOUS_REQUESTS, threads);
+    AnalysisEngine aae = UIMAFramework.produceAnalysisEngine(UIMAFramework.getXMLParser()
+            .parseResourceSpecifier(new XMLInputSource(descriptor)), params);
+
+    final ScoringDaemon daemon = new ScoringDaemon(aae, arguments.getInt("batch", 16),
+            arguments.getLong("window-micros", 200), arguments.getLong("budget-millis", 0));
+    List<Thread> workers = daemon.start(threads);
+
+    if (arguments.has("stdin")) {
+      daemon.serve(System.in, System.out);
+      daemon.stop(workers);
+      System.err.println(daemon.report());
+      // The annotators report on System.out, which carries the replies here
+      System.out.flush();
+      System.setOut(System.err);
+      aae.destroy();
+      return;
+    }
+
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        System.err.println(daemon.report());
+      }
+    });
+    int port = arguments.getInt("port", 7391);
+    ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+    System.err.println("Scoring daemon listening on 127.0.0.1:" + port + " with " + threads
+            + " workers");
+    while (true) {
+      final Socket socket = server.accept();
+      socket.setTcpNoDelay(true);
+      new Thread("client " + socket.getPort()) {
+        @Override
+        public void run() {
+          try {
+            daemon.serve(socket.getInputStream(), socket.getOutputStream());
+          } catch (IOException e) {
+            // The client went away
+          } finally {
+            try {
+              socket.close();
+            } catch (IOException e) {
+              // Already closed
+            }
+          }
+        }
+      }.start();
+    }
+  }
+
+  /**
+   * Starts the given number of workers.
+   */
+  List<Thread> start(int threads) {
+    List<Thread> workers = new ArrayList<Thread>();
+    for (int i = 0; i < threads; i++) {
+      workers.add(startWorker(i));
+    }
+    return workers;
+  }
+
+  /**
+   * Stops the workers once the requests queued so far are scored: every worker takes exactly one
+   * stop request, however many its last batch could have held.
+   */
+  void stop(List<Thread> workers) throws InterruptedException {
+    for (int i = 0; i < workers.size(); i++) {
+      queue.add(new Request(null, null));
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+  }
+
+  /**
+   * Reads requests from the input until it ends and queues them for the workers, then waits for
+   * their replies.
+   */
+  void serve(InputStream in, OutputStream out) throws IOException {
+    Client client = new Client(out);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    StringBuilder text = new StringBuilder();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.length() > 0) {
+        text.append(line).append('\n');
+        continue;
+      }
+      if (text.length() == 0)
+        continue;
+      Request r = new Request(client, text.toString());
+      client.add(r);
+      queue.add(r);
+      text.setLength(0);
+    }
+    if (text.length() > 0) {
+      Request r = new Request(client, text.toString());
+      client.add(r);
+      queue.add(r);
+    }
+    client.awaitReplies();
+  }
+
+  String report() {
+    synchronized (overheadNanos) {
+      int n = (int) Math.min(requests, samples);
+      long[] overhead = Arrays.copyOf(overheadNanos, n);
+      long[] process = Arrays.copyOf(processNanos, n);
+      Arrays.sort(overhead);
+      Arrays.sort(process);
+      String report = String.format("Scoring daemon: %d requests in %d batches (%.1f per batch), "
+              + "overhead p50 %.1f us p99 %.1f us, processing p50 %.1f us", requests, batches,
+              (batches > 0) ? (double) requests / batches : 0.0, percentile(overhead, 0.50) / 1e3,
+              percentile(overhead, 0.99) / 1e3, percentile(process, 0.50) / 1e3);
+      if (budgetMillis > 0)
+        report += String.format(", %d partially scored within %d ms", partial, budgetMillis);
+      return report;
+    }
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private Thread startWorker(int id) {
+    Thread worker = new Thread("scoring worker " + id) {
+      @Override
+      public void run() {
+        try {
+          work();
+        } catch (InterruptedException e) {
+          // Shutting down
+        } catch (Exception e) {
+          e.printStackTrace();
+        }
+      }
+    };
+    worker.setDaemon(true);
+    worker.start();
+    return worker;
+  }
+
+  // Takes batches until a request without client asks the worker to stop. A batch ends at the
+  // first stop request, so that the others are left to the other workers
+  private void work() throws Exception {
+    JCas jcas = aae.newJCas();
+    List<Request> batch = new ArrayList<Request>(batchSize);
+    while (true) {
+      Request first = queue.take();
+      batch.add(first);
+      long deadline = System.nanoTime() + windowNanos;
+      while ((first.client != null) && (batch.size() < batchSize)) {
+        long wait = deadline - System.nanoTime();
+        Request r = (wait > 0) ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+        if (r == null)
+          break;
+        batch.add(r);
+        if (r.client == null)
+          break;
+      }
+
+      // A client's replies are flushed after its last request of the batch
+      Map<Client, Integer> last = new HashMap<Client, Integer>();
+      for (int i = 0; i < batch.size(); i++) {
+        if (batch.get(i).client != null)
+          last.put(batch.get(i).client, i);
+      }
+
+      // Replies this worker sent, which may include those of earlier requests other workers
+      // scored but could not write ahead of an unanswered one
+      List<Request> sent = new ArrayList<Request>();
+      boolean stop = false;
+      long batchNanos = 0;
+      for (int i = 0; i < batch.size(); i++) {
+        Request r = batch.get(i);
+        if (r.client == null) {
+          stop = true;
+          continue;
+        }
+        String reply = score(jcas, r);
+        batchNanos += r.processNanos;
+        r.batchNanos = batchNanos;
+        r.client.complete(r, reply);
+        if (last.get(r.client) == i)
+          sent.addAll(flush(r.client));
+      }
+      record(batch, sent);
+      batch.clear();
+      if (stop)
+        return;
+    }
+  }
+
+  // Sends the written replies of the client, and returns their requests
+  private static List<Request> flush(Client client) {
+    try {
+      return client.flush();
+    } catch (IOException e) {
+      // The client went away, its reader ends on its own, and its replies are not counted
+      return Collections.emptyList();
+    }
+  }
+
+  // Scores one document and formats its reply
+  private String score(JCas jcas, Request r) {
+    StringBuilder reply = new StringBuilder();
+    long start = System.nanoTime();
+    try {
+      jcas.reset();
+      jcas.setDocumentText(r.text);
+      jcas.setDocumentLanguage("en");
+      // The budget counts from when the request was read, time queued included
+      if (budgetMillis > 0)
+        Deadline.start(jcas, budgetMillis - (start - r.receivedAt) / 1000000L);
+      aae.process(jcas);
+      r.processNanos = System.nanoTime() - start;
+      r.partial = Deadline.isPartial(jcas);
+
+      FSIndex<FeatureStructure> scoreIndex = jcas.getFSIndexRepository().getIndex(
+              NGramAnnotator.SCORE_INDEX);
+      if (scoreIndex == null)
+        throw new IllegalStateException("No " + NGramAnnotator.SCORE_INDEX + " index");
+      Set<Answer> ranked = new HashSet<Answer>();
+      for (AnswerScore as : CASEvaluator.rank(scoreIndex)) {
+        Answer a = as.getAnswer();
+        ranked.add(a);
+        // The answer span ends with its line break, which would end the reply early
+        reply.append(a.getIsCorrect() ? '+' : '-').append(' ').append(as.getScore()).append(' ')
+                .append(r.text.substring(a.getBegin(), a.getEnd()).trim()).append('\n');
+      }
+      // Answers the deadline left without a score follow the ranking
+      if (r.partial) {
+        for (Annotation a : jcas.getAnnotationIndex(Answer.type)) {
+          if ((a.getBegin() < a.getEnd()) && !ranked.contains(a))
+            reply.append("? ").append(r.text.substring(a.getBegin(), a.getEnd()).trim())
+                    .append('\n');
+        }
+      }
+    } catch (Exception e) {
+      r.processNanos = System.nanoTime() - start;
+      reply.setLength(0);
+      reply.append("! ").append(String.valueOf(e).replace('\n', ' ')).append('\n');
+    }
+    return reply.append('\n').toString();
+  }
+
+  // Overhead is the time from receiving a request to sending its reply, less the time the worker
+  // spent scoring its batch up to it. Requests are counted when their replies are sent
+  private void record(List<Request> batch, List<Request> sent) {
+    synchronized (overheadNanos) {
+      // A batch of just a stop request is not counted
+      if ((batch.size() > 1) || (batch.get(0).client != null))
+        batches++;
+      for (Request r : sent) {
+        if (r.partial)
+          partial++;
+        int slot = (int) (requests++ % samples);
+        overheadNanos[slot] = (r.sentAt - r.receivedAt) - r.batchNanos;
+        processNanos[slot] = r.processNanos;
+      }
+    }
+  }
+
+  private static long percentile(long[] sorted, double fraction) {
+    if (sorted.length == 0)
+      return 0;
+    int pos = (int) Math.ceil(fraction * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(pos, sorted.length - 1))];
+  }
+}
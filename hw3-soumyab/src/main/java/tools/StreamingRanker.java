@@ -0,0 +1,186 @@
+/**
+ * Ranks input documents of any size by streaming their answers through a ChunkedRanker
+ */
+package tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import annotators.ChunkedRanker;
+import annotators.GoldNGramIndex_impl;
+import annotators.IdfTable_impl;
+
+/**
+ * Streaming mode for documents too large for a CAS. Every document is read twice, line by line
+ * and never whole: the first pass takes the question and the correct answers, the second hands
+ * every answer to a {@link ChunkedRanker}. The output file has the format of CASEvaluator, with
+ * only the first ranks: max(k, number of correct answers), so the precision line is exact. Input
+ * lines are taken as sentences, i.e. every question or answer is on a line of its own, and only
+ * the first question of a document is ranked, as in the pipeline.
+ * <p>
+ * Options:
+ * <ul>
+ * <li><code>--input</code> - input document or directory (default the bundled inputData)</li>
+ * <li><code>--output</code> - output directory (default src/main/resources/outputData)</li>
+ * <li><code>--top-k</code> - ranks kept besides those of the correct answers (default 10)</li>
+ * <li><code>--chunk</code> - answers scored at a time (default 4096)</li>
+ * <li><code>--gold</code> - match the NGrams of the correct answers too, as gold_pipeline does</li>
+ * <li><code>--gold-index</code> - gold NGram index of GoldIndexBuilder</li>
+ * <li><code>--idf</code> - IDF table of IdfBuilder</li>
+ * </ul>
+ *
+ * @author Soumya Batra
+ *
+ */
+public class StreamingRanker {
+
+  private static final String defaultInput = "src/main/resources/inputData";
+
+  private static final String defaultOutput = "src/main/resources/outputData";
+
+  private final ChunkedRanker ranker;
+
+  private final boolean gold;
+
+  // Sum of the precisions of the documents ranked so far
+  double precision = 0.0;
+
+  int documents = 0;
+
+  StreamingRanker(ChunkedRanker ranker, boolean gold) {
+    this.ranker = ranker;
+    this.gold = gold;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Arguments arguments = new Arguments(args);
+    GoldNGramIndex_impl goldIndex = null;
+    if (arguments.has("gold-index")) {
+      goldIndex = new GoldNGramIndex_impl();
+      goldIndex.load(new File(arguments.get("gold-index", null)));
+    }
+    IdfTable_impl idfTable = null;
+    if (arguments.has("idf")) {
+      idfTable = new IdfTable_impl();
+      idfTable.load(new File(arguments.get("idf", null)));
+    }
+    ChunkedRanker ranker = new ChunkedRanker(goldIndex, idfTable, arguments.getInt("top-k", 10),
+            arguments.getInt("chunk", 4096));
+    StreamingRanker streaming = new StreamingRanker(ranker, arguments.has("gold"));
+
+    File input = new File(arguments.get("input", defaultInput));
+    File output = new File(arguments.get("output", defaultOutput));
+    output.mkdirs();
+    List<File> files = input.isDirectory() ? TextFiles.list(input) : Collections
+            .singletonList(input);
+    long start = System.nanoTime();
+    for (File f : files) {
+      String name = f.getName().endsWith(".txt") ? f.getName() : f.getName() + ".txt";
+      streaming.rank(f, new File(output, name));
+    }
+
+    System.out.println(ranker.report());
+    System.out.printf("%d documents in %.2f s, Average Precision: %.2f%n", streaming.documents,
+            (System.nanoTime() - start) / 1e9, streaming.precision / streaming.documents);
+  }
+
+  /**
+   * Ranks the first question of a document and writes its first ranks to the output file.
+   */
+  void rank(File in, File out) throws IOException {
+    // First pass: the question, and the correct answers that make the gold NGrams
+    String question = null;
+    List<String> early = new ArrayList<String>();
+    BufferedReader reader = open(in);
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (isQuestion(line)) {
+          // Later questions are not ranked, but their answers are
+          if (question != null)
+            continue;
+          question = text(line, 2);
+          ranker.setQuestion(question);
+          for (String answer : early) {
+            ranker.addCorrect(answer, gold);
+          }
+        } else if (isCorrect(line)) {
+          // Correct answers before the question wait for it
+          if (question == null)
+            early.add(text(line, 4));
+          else
+            ranker.addCorrect(text(line, 4), gold);
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    if (question == null) {
+      System.out.println(in.getName() + ": no question, skipped");
+      return;
+    }
+
+    // Second pass: every answer, scored a chunk at a time
+    reader = open(in);
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!isQuestion(line) && (line.length() > 0))
+          ranker.add(text(line, 4), isCorrect(line));
+      }
+    } finally {
+      reader.close();
+    }
+    List<ChunkedRanker.Ranked> ranked = ranker.finish();
+    long answers = ranker.getAnswers();
+    int totCorrect = ranker.getCorrect();
+
+    PrintWriter outf = new PrintWriter(out, "UTF-8");
+    int predCorrect = 0;
+    try {
+      outf.println("Question: " + question);
+      for (int i = 0; i < ranked.size(); i++) {
+        ChunkedRanker.Ranked r = ranked.get(i);
+        if (r.correct && (i < totCorrect))
+          predCorrect++;
+        outf.printf("%c %.2f %s%n", r.correct ? '+' : '-', r.score, r.text);
+      }
+      if (answers > ranked.size())
+        outf.printf("(%d more answers)%n", answers - ranked.size());
+      double prec = (double) predCorrect / totCorrect;
+      outf.printf("Precision at %d: %.2f%n", totCorrect, prec);
+      precision += prec;
+      documents++;
+    } finally {
+      outf.close();
+    }
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private static BufferedReader open(File file) throws IOException {
+    return new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+  }
+
+  // Lines are told apart as QASentence tells sentences apart
+  private static boolean isQuestion(String line) {
+    return (line.length() > 0) && ("Qq".indexOf(line.charAt(0)) != -1);
+  }
+
+  private static boolean isCorrect(String line) {
+    return !isQuestion(line) && (line.length() > 2) && (line.charAt(2) == '1');
+  }
+
+  private static String text(String line, int from) {
+    return (line.length() > from) ? line.substring(from).trim() : "";
+  }
+}
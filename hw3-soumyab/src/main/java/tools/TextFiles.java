@@ -0,0 +1,55 @@
+/**
+ * Reading of input documents by the tools
+ */
+package tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Soumya Batra
+ *
+ */
+public final class TextFiles {
+
+  private TextFiles() {
+  }
+
+  public static String read(File file) throws IOException {
+    StringBuilder text = new StringBuilder((int) file.length());
+    Reader in = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    try {
+      char[] buf = new char[8192];
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        text.append(buf, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+    return text.toString();
+  }
+
+  /**
+   * Regular files of the directory, sorted by name like the FileSystemCollectionReader sees
+   * them.
+   */
+  public static List<File> list(File dir) throws IOException {
+    File[] files = dir.listFiles();
+    if (files == null)
+      throw new IOException("Not a directory: " + dir);
+    Arrays.sort(files);
+    List<File> result = new ArrayList<File>();
+    for (File f : files) {
+      if (f.isFile())
+        result.add(f);
+    }
+    return result;
+  }
+}
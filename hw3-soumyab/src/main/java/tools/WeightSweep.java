@@ -0,0 +1,320 @@
+/**
+ * Evaluates a grid of scoring weights on a feature table, in parallel and without the pipeline
+ */
+package tools;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cpeFiles.FeatureTable;
+
+/**
+ * Reads a {@link FeatureTable} written by FeatureWriter and computes the average precision the
+ * pipeline would reach with other weights. A setting is scored as NGramAnnotator and CASEvaluator
+ * score: the n-gram score is the sum over orders j of w_j * matched / total divided by the sum of
+ * the w_j and rounded to two decimals, to which the named entity score times its weight and the
+ * shared question entities times theirs are added. Answers are ranked as CASEvaluator ranks them,
+ * correct answers first among equal scores, and the precision of a question is taken at its number
+ * of correct answers. Questions without a correct answer are left out.
+ * <p>
+ * The matched / total ratios are computed once into one array per order. Every setting then reads
+ * only primitive arrays, and the settings are split over the threads. The default weights of the
+ * pipeline are always evaluated too, for comparison, while settings that give every answer the
+ * same score are skipped. Options, each either a value or a <code>from:to:step</code> range:
+ * <ul>
+ * <li><code>--w1</code>, <code>--w2</code>, <code>--w3</code> - weights of the 1, 2 and 3 gram
+ * overlap, 1, 2 and 3 by default</li>
+ * <li><code>--ner</code> - weight of the named entity score, 1 by default</li>
+ * <li><code>--entities</code> - weight of each shared question entity, 0 by default</li>
+ * </ul>
+ * and <code>--threads</code>, <code>--top</code> (settings listed, 10) and <code>--csv</code> (a
+ * file to write the precision of every setting to).
+ *
+ * @author Soumya Batra
+ *
+ */
+public class WeightSweep {
+
+  // Columns of a setting
+  static final int W1 = 0, W2 = 1, W3 = 2, NER = 3, ENTITIES = 4, COLUMNS = 5;
+
+  static final double[] pipelineSetting = { 1, 2, 3, 1, 0 };
+
+  private static final int orders = 3;
+
+  int threads = Runtime.getRuntime().availableProcessors();
+
+  // Rows of the questions that have a correct answer: question q spans rows[2q] to rows[2q + 1]
+  private final int[] rows;
+
+  private final int questions;
+
+  private final int maxAnswers;
+
+  private final boolean[] correct;
+
+  // matched / total of each order, 0 for an answer without NGrams of that order
+  private final double[][] ratios = new double[orders][];
+
+  private final double[] ner;
+
+  private final short[] entities;
+
+  public WeightSweep(FeatureTable table) {
+    int n = table.getAnswers();
+    correct = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      correct[i] = table.isCorrect(i);
+    }
+    for (int j = 1; j <= orders; j++) {
+      double[] matched = table.matched(j);
+      double[] total = table.total(j);
+      double[] ratio = new double[n];
+      for (int i = 0; i < n; i++) {
+        ratio[i] = (total[i] != 0) ? matched[i] / total[i] : 0.0;
+      }
+      ratios[j - 1] = ratio;
+    }
+    ner = table.ner();
+    entities = table.entities();
+
+    // Keeps the questions whose precision is defined, as first and end row pairs
+    int[] bounds = new int[2 * table.getQuestions()];
+    int k = 0, longest = 0;
+    for (int q = 0; q < table.getQuestions(); q++) {
+      int from = table.start(q), to = table.start(q + 1);
+      for (int i = from; i < to; i++) {
+        if (correct[i]) {
+          bounds[2 * k] = from;
+          bounds[2 * k + 1] = to;
+          k++;
+          longest = Math.max(longest, to - from);
+          break;
+        }
+      }
+    }
+    rows = Arrays.copyOf(bounds, 2 * k);
+    questions = k;
+    maxAnswers = longest;
+  }
+
+  public WeightSweep(FeatureTable table, Arguments args) {
+    this(table);
+    threads = args.getInt("threads", threads);
+  }
+
+  public int getQuestions() {
+    return questions;
+  }
+
+  /**
+   * Average precision of every setting, a row of COLUMNS values each.
+   */
+  public double[] evaluate(final double[][] settings) throws Exception {
+    final double[] precision = new double[settings.length];
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> parts = new ArrayList<Future<Void>>();
+      for (int t = 0; t < threads; t++) {
+        final int part = t;
+        parts.add(pool.submit(new Callable<Void>() {
+          public Void call() {
+            double[] right = new double[maxAnswers];
+            double[] wrong = new double[maxAnswers];
+            for (int s = part; s < settings.length; s += threads) {
+              precision[s] = precision(settings[s], right, wrong);
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> f : parts) {
+        f.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    return precision;
+  }
+
+  /**
+   * Every combination of the values of the given ranges, one per column.
+   */
+  public static double[][] grid(double[][] values) {
+    int n = 1;
+    for (double[] v : values) {
+      n *= v.length;
+    }
+    double[][] settings = new double[n][values.length];
+    for (int s = 0; s < n; s++) {
+      int rest = s;
+      for (int c = values.length - 1; c >= 0; c--) {
+        settings[s][c] = values[c][rest % values[c].length];
+        rest /= values[c].length;
+      }
+    }
+    return settings;
+  }
+
+  /**
+   * The values of a "from:to:step" range, both ends included, or of a single value.
+   */
+  public static double[] range(String spec) {
+    String[] parts = spec.split(":");
+    double from = Double.parseDouble(parts[0].trim());
+    if (parts.length == 1)
+      return new double[] { from };
+    if (parts.length != 3)
+      throw new IllegalArgumentException("Not a value or from:to:step range: " + spec);
+    double to = Double.parseDouble(parts[1].trim());
+    double step = Double.parseDouble(parts[2].trim());
+    if ((step <= 0) || (to < from))
+      throw new IllegalArgumentException("Empty range: " + spec);
+    // The small slack keeps the upper end despite rounding of the step
+    int n = (int) Math.floor((to - from) / step + 1e-9) + 1;
+    double[] values = new double[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = Math.round((from + i * step) * 1e9) / 1e9;
+    }
+    return values;
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Average precision of one setting; right and wrong are scratch arrays of maxAnswers
+  private double precision(double[] setting, double[] right, double[] wrong) {
+    double[] r1 = ratios[0], r2 = ratios[1], r3 = ratios[2];
+    double sum = setting[W1] + setting[W2] + setting[W3];
+    double sumPrecision = 0.0;
+    for (int q = 0; q < questions; q++) {
+      int from = rows[2 * q], to = rows[2 * q + 1];
+      int r = 0, n = 0;
+      for (int i = from; i < to; i++) {
+        double ngram = setting[W1] * r1[i] + setting[W2] * r2[i] + setting[W3] * r3[i];
+        double score = ((sum != 0) ? Math.round(ngram / sum * 100) / 100.0d : 0.0)
+                + setting[NER] * ner[i] + setting[ENTITIES] * entities[i];
+        if (correct[i])
+          right[r++] = score;
+        else
+          wrong[n++] = score;
+      }
+      Arrays.sort(right, 0, r);
+      Arrays.sort(wrong, 0, n);
+
+      // The k-th best correct answer is ranked after the k - 1 better ones and after every wrong
+      // answer with a strictly higher score; it counts if that is within the first r
+      int hits = 0, above = 0;
+      for (int k = 0; k < r; k++) {
+        double score = right[r - 1 - k];
+        while ((above < n) && (wrong[n - 1 - above] > score)) {
+          above++;
+        }
+        if (k + above < r)
+          hits++;
+        else
+          break;
+      }
+      sumPrecision += (double) hits / r;
+    }
+    return (questions > 0) ? sumPrecision / questions : 0.0;
+  }
+
+  private static String describe(double[] setting) {
+    return String.format("w1 %s, w2 %s, w3 %s, ner %s, entities %s", number(setting[W1]),
+            number(setting[W2]), number(setting[W3]), number(setting[NER]),
+            number(setting[ENTITIES]));
+  }
+
+  // A weight without trailing zeros
+  private static String number(double value) {
+    return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+  }
+
+  /**
+   * Usage: WeightSweep &lt;feature table&gt; [--w1 range] [--w2 range] [--w3 range] [--ner range]
+   * [--entities range] [--threads n] [--top n] [--csv file]
+   */
+  public static void main(String[] args) throws Exception {
+    Arguments arguments = new Arguments(args);
+    if (arguments.positional().size() < 1) {
+      System.err.println("Usage: WeightSweep <feature table> [--w1 from:to:step] [--w2 ..]"
+              + " [--w3 ..] [--ner ..] [--entities ..] [--threads n] [--top n] [--csv file]");
+      System.exit(1);
+    }
+    FeatureTable table = FeatureTable.read(new File(arguments.positional().get(0)));
+    WeightSweep sweep = new WeightSweep(table, arguments);
+
+    String[] names = { "w1", "w2", "w3", "ner", "entities" };
+    double[][] values = new double[COLUMNS][];
+    for (int c = 0; c < COLUMNS; c++) {
+      values[c] = range(arguments.get(names[c], Double.toString(pipelineSetting[c])));
+    }
+    // Without any weight on a feature that varies every answer scores the same, and the ties,
+    // ranked with the correct answers first, would make such a setting look perfect
+    boolean withEntities = (table.getFlags() & FeatureTable.FLAG_NER) != 0;
+    ArrayList<double[]> kept = new ArrayList<double[]>();
+    for (double[] setting : grid(values)) {
+      if ((setting[W1] != 0) || (setting[W2] != 0) || (setting[W3] != 0)
+              || (withEntities && ((setting[NER] != 0) || (setting[ENTITIES] != 0))))
+        kept.add(setting);
+    }
+    double[][] grid = kept.toArray(new double[kept.size()][]);
+    // The pipeline's own weights go last, so that they are measured in the same pass
+    double[][] settings = Arrays.copyOf(grid, grid.length + 1);
+    settings[grid.length] = pipelineSetting.clone();
+
+    long start = System.nanoTime();
+    double[] precision = sweep.evaluate(settings);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("Evaluated %d settings on %d questions (%d answers) with %d threads in"
+            + " %.2f s%n", grid.length, sweep.getQuestions(), table.getAnswers(), sweep.threads,
+            seconds);
+    if (!withEntities)
+      System.out.println("No named entities in the table, the ner and entities weights do nothing");
+    System.out.printf("Pipeline %s: %.4f%n", describe(pipelineSetting), precision[grid.length]);
+
+    // Best settings first, the smallest index first among equal precision
+    Integer[] order = new Integer[grid.length];
+    for (int s = 0; s < grid.length; s++) {
+      order[s] = s;
+    }
+    final double[] p = precision;
+    Arrays.sort(order, new Comparator<Integer>() {
+      public int compare(Integer x, Integer y) {
+        int c = Double.compare(p[y], p[x]);
+        return (c != 0) ? c : x - y;
+      }
+    });
+    int top = Math.min(arguments.getInt("top", 10), grid.length);
+    for (int i = 0; i < top; i++) {
+      System.out.printf("%3d. %s: %.4f%n", i + 1, describe(grid[order[i]]), precision[order[i]]);
+    }
+
+    if (arguments.has("csv")) {
+      PrintWriter csv = new PrintWriter(arguments.get("csv", null), "UTF-8");
+      try {
+        csv.println("w1,w2,w3,ner,entities,precision");
+        for (int s = 0; s < grid.length; s++) {
+          for (int c = 0; c < COLUMNS; c++) {
+            csv.print(grid[s][c]);
+            csv.print(',');
+          }
+          csv.println(precision[s]);
+        }
+      } finally {
+        csv.close();
+      }
+    }
+  }
+}
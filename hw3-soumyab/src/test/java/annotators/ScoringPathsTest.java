@@ -0,0 +1,314 @@
+/**
+ * Scores the bundled input through every scoring path and compares the rankings
+ */
+package annotators;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
+import org.apache.uima.resource.metadata.Import;
+import org.apache.uima.resource.metadata.MetaDataObject;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
+import org.apache.uima.util.XMLInputSource;
+import org.cleartk.ne.type.NamedEntityMention;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tools.TextFiles;
+import cpeFiles.CASEvaluator;
+import edu.cmu.deiis.types.Answer;
+import edu.cmu.deiis.types.AnswerScore;
+import edu.cmu.deiis.types.Question;
+import edu.cmu.deiis.types.ScorerRun;
+
+/**
+ * Every document of src/main/resources/inputData goes through QAAnnotator, optionally
+ * GoldAnswerToNGram, and NGramAnnotator configured for one scoring path, and its AnswerScores are
+ * ranked as CASEvaluator.rank ranks them. A ranking is compared as its <code>+|- score
+ * answer</code> lines, so two paths agree when they give every answer the same score and the
+ * same rank. The alternatives checked against the plain scan: the inverted index, top-k pruning,
+ * the ChunkedRanker of tools.StreamingRanker and the default configuration of MultiScorer.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ScoringPathsTest {
+
+  private static final String descriptors = "src/main/resources/analysisEngineDescriptors/";
+
+  private static final File inputData = new File("src/main/resources/inputData");
+
+  // Named entities are single capitalized words, as the benchmarks make them
+  private static final Pattern entity = Pattern.compile("\\b[A-Z][a-z]+\\b");
+
+  // Engines made by a test, destroyed after it
+  private final List<AnalysisEngine> engines = new ArrayList<AnalysisEngine>();
+
+  private List<String> documents;
+
+  private JCas jcas;
+
+  private AnalysisEngine qaAnnotator;
+
+  private AnalysisEngine goldAnnotator;
+
+  @Before
+  public void setUp() throws Exception {
+    documents = new ArrayList<String>();
+    for (File file : TextFiles.list(inputData)) {
+      documents.add(TextFiles.read(file));
+    }
+    assertTrue("no input documents", documents.size() > 0);
+
+    // One CAS holds the types and indexes of every engine, and the named entity types
+    TypeSystemDescription entities = UIMAFramework.getResourceSpecifierFactory()
+            .createTypeSystemDescription();
+    Import cleartk = UIMAFramework.getResourceSpecifierFactory().createImport();
+    cleartk.setName("org.cleartk.TypeSystem");
+    entities.setImports(new Import[] { cleartk });
+    List<MetaDataObject> metaData = new ArrayList<MetaDataObject>();
+    metaData.add(entities);
+    for (String name : Arrays.asList("qa_annotator.xml", "gold_pipeline.xml",
+            "ngram_annotator.xml", "multi_scorer.xml")) {
+      metaData.add(description(name));
+    }
+    jcas = CasCreationUtils.createCas(metaData).getJCas();
+
+    qaAnnotator = engine("qa_annotator.xml");
+    goldAnnotator = engine("gold_pipeline.xml");
+  }
+
+  @After
+  public void tearDown() {
+    for (AnalysisEngine engine : engines) {
+      engine.destroy();
+    }
+  }
+
+  @Test
+  public void invertedIndexRanksAsTheScan() throws Exception {
+    AnalysisEngine scan = engine("ngram_annotator.xml", NGramAnnotator.PARAM_SCORING_PATH, "scan");
+    AnalysisEngine inverted = engine("ngram_annotator.xml", NGramAnnotator.PARAM_SCORING_PATH,
+            "inverted");
+    for (boolean gold : new boolean[] { false, true }) {
+      for (String document : documents) {
+        List<String> expected = ranking(document, gold, false, scan);
+        assertEquals("gold " + gold, expected, ranking(document, gold, false, inverted));
+      }
+    }
+  }
+
+  @Test
+  public void topKKeepsTheFirstRanks() throws Exception {
+    AnalysisEngine full = engine("ngram_annotator.xml", NGramAnnotator.PARAM_SCORING_PATH,
+            "scan");
+    for (int k : new int[] { 1, 2, 3 }) {
+      AnalysisEngine topK = engine("ngram_annotator.xml", NGramAnnotator.PARAM_SCORING_PATH,
+              "scan", NGramAnnotator.PARAM_TOP_K, k);
+      for (boolean gold : new boolean[] { false, true }) {
+        for (String document : documents) {
+          List<String> expected = ranking(document, gold, true, full);
+          List<String> pruned = ranking(document, gold, true, topK);
+          int ranks = Math.max(k, correctAnswers(document));
+          assertEquals("k " + k + ", gold " + gold, expected.subList(0, ranks), pruned.subList(0,
+                  ranks));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void chunkedRankerRanksAsNGramAnnotator() throws Exception {
+    AnalysisEngine scan = engine("ngram_annotator.xml", NGramAnnotator.PARAM_SCORING_PATH, "scan");
+    int topK = 2;
+    for (int chunkSize : new int[] { 1, 3, 4096 }) {
+      for (boolean gold : new boolean[] { false, true }) {
+        for (String document : documents) {
+          List<String> expected = ranking(document, gold, false, scan);
+          List<String> chunked = chunkedRanking(document, gold, topK, chunkSize);
+          int ranks = Math.max(topK, correctAnswers(document));
+          assertEquals("chunk " + chunkSize + ", gold " + gold, expected.subList(0, ranks),
+                  chunked);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void defaultMultiScorerScoresAsThePipeline() throws Exception {
+    AnalysisEngine multi = engine("multi_scorer.xml", MultiScorer.PARAM_SCORERS,
+            new String[] { "baseline" });
+    AnalysisEngine scan = engine("ngram_annotator.xml", NGramAnnotator.PARAM_SCORING_PATH, "scan");
+    for (boolean gold : new boolean[] { false, true }) {
+      for (String document : documents) {
+        List<String> pipeline = ranking(document, gold, false, multi, scan);
+        ScorerRun run = (ScorerRun) jcas.getAnnotationIndex(ScorerRun.type).iterator().next();
+        assertEquals("baseline", run.getScorerId());
+
+        // The scores of the run, ranked as the pipeline's are
+        Map<Answer, Double> scores = new HashMap<Answer, Double>();
+        for (int a = 0; a < run.getScores().size(); a++) {
+          AnswerScore as = (AnswerScore) run.getScores().get(a);
+          scores.put(as.getAnswer(), as.getScore());
+        }
+        FSIndex<FeatureStructure> scoreIndex = scoreIndex();
+        List<AnswerScore> indexed = new ArrayList<AnswerScore>();
+        for (FeatureStructure fs : scoreIndex) {
+          indexed.add((AnswerScore) fs);
+        }
+        assertEquals(indexed.size(), scores.size());
+        for (AnswerScore as : indexed) {
+          Double score = scores.get(as.getAnswer());
+          assertNotNull(as.getAnswer().getCoveredText(), score);
+          as.removeFromIndexes();
+          as.setScore(score);
+          as.addToIndexes();
+        }
+        assertEquals("gold " + gold, pipeline, lines(document, CASEvaluator.rank(scoreIndex)));
+      }
+    }
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private AnalysisEngineDescription description(String name) throws Exception {
+    return UIMAFramework.getXMLParser().parseAnalysisEngineDescription(
+            new XMLInputSource(new File(descriptors + name)));
+  }
+
+  // The engine of the descriptor, with the given parameter name and value pairs overridden
+  private AnalysisEngine engine(String name, Object... settings) throws Exception {
+    AnalysisEngineDescription desc = description(name);
+    ConfigurationParameterSettings params = desc.getAnalysisEngineMetaData()
+            .getConfigurationParameterSettings();
+    for (int i = 0; i < settings.length; i += 2) {
+      params.setParameterValue((String) settings[i], settings[i + 1]);
+    }
+    AnalysisEngine engine = UIMAFramework.produceAnalysisEngine(desc);
+    engines.add(engine);
+    return engine;
+  }
+
+  // Ranking of the document after the given engines, with the named entity score of
+  // CASEvaluator added when entities is set
+  private List<String> ranking(String document, boolean gold, boolean entities,
+          AnalysisEngine... scorers) throws Exception {
+    jcas.reset();
+    jcas.setDocumentText(document);
+    jcas.setDocumentLanguage("en");
+    qaAnnotator.process(jcas);
+    if (gold)
+      goldAnnotator.process(jcas);
+    if (entities)
+      addNamedEntities();
+    for (AnalysisEngine scorer : scorers) {
+      scorer.process(jcas);
+    }
+    if (entities)
+      addNamedEntityScores();
+    return lines(document, CASEvaluator.rank(scoreIndex()));
+  }
+
+  private FSIndex<FeatureStructure> scoreIndex() {
+    return jcas.getFSIndexRepository().getIndex(NGramAnnotator.SCORE_INDEX);
+  }
+
+  private void addNamedEntities() {
+    Matcher m = entity.matcher(jcas.getDocumentText());
+    while (m.find()) {
+      new NamedEntityMention(jcas, m.start(), m.end()).addToIndexes();
+    }
+  }
+
+  // Adds the named entity score to every AnswerScore, as CASEvaluator does
+  private void addNamedEntityScores() {
+    FSIterator<Annotation> neIter = jcas.getAnnotationIndex(NamedEntityMention.type).iterator();
+    Question q = (Question) jcas.getAnnotationIndex(Question.type).iterator().next();
+    List<NamedEntityMention> question = NerDistance.nextMentions(neIter, q.getEnd());
+    Map<Answer, AnswerScore> scores = new HashMap<Answer, AnswerScore>();
+    for (Annotation a : jcas.getAnnotationIndex(AnswerScore.type)) {
+      scores.put(((AnswerScore) a).getAnswer(), (AnswerScore) a);
+    }
+    for (Annotation a : jcas.getAnnotationIndex(Answer.type)) {
+      if (a.getBegin() >= a.getEnd())
+        continue;
+      List<NamedEntityMention> answer = NerDistance.nextMentions(neIter, a.getEnd());
+      AnswerScore as = scores.get(a);
+      if (as == null)
+        continue;
+      as.removeFromIndexes();
+      as.setScore(as.getScore() + NerDistance.score(question, answer));
+      as.addToIndexes();
+    }
+  }
+
+  // First max(topK, correct answers) ranks of a ChunkedRanker, fed as tools.StreamingRanker does
+  private static List<String> chunkedRanking(String document, boolean gold, int topK,
+          int chunkSize) {
+    ChunkedRanker ranker = new ChunkedRanker(null, null, topK, chunkSize);
+    List<QASentence> sentences = QASentence.split(document);
+    for (QASentence s : sentences) {
+      if (s.isQuestion)
+        ranker.setQuestion(s.text(document));
+    }
+    for (QASentence s : sentences) {
+      if (!s.isQuestion && s.isCorrect)
+        ranker.addCorrect(s.text(document), gold);
+    }
+    for (QASentence s : sentences) {
+      if (!s.isQuestion)
+        ranker.add(s.text(document), s.isCorrect);
+    }
+    List<String> lines = new ArrayList<String>();
+    for (ChunkedRanker.Ranked r : ranker.finish()) {
+      lines.add(line(r.correct, r.score, r.text));
+    }
+    return lines;
+  }
+
+  private static List<String> lines(String document, List<AnswerScore> ranked) {
+    List<String> lines = new ArrayList<String>();
+    for (AnswerScore as : ranked) {
+      Answer a = as.getAnswer();
+      lines.add(line(a.getIsCorrect(), as.getScore(), document.substring(a.getBegin(), a
+              .getEnd())));
+    }
+    return lines;
+  }
+
+  private static String line(boolean correct, double score, String answer) {
+    return (correct ? "+ " : "- ") + score + " " + answer.trim();
+  }
+
+  private static int correctAnswers(String document) {
+    int correct = 0;
+    for (QASentence s : QASentence.split(document)) {
+      if (!s.isQuestion && s.isCorrect && (s.text(document).trim().length() > 0))
+        correct++;
+    }
+    return correct;
+  }
+}
@@ -0,0 +1,161 @@
+/**
+ * Drives the NER circuit breaker through trips, trials and closes
+ */
+package cpeFiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Latencies are handed to the breaker directly, in nanoseconds, against a budget of 100 ms. An
+ * open time of 0 lets the trial request through right away, a long one keeps the breaker open
+ * for the whole test.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class CircuitBreakerTest {
+
+  private static final long budgetMillis = 100;
+
+  private static final long fast = 10 * 1000000L;
+
+  private static final long slow = 500 * 1000000L;
+
+  // Open time no test waits out
+  private static final long longOpenMillis = 3600000;
+
+  @Test
+  public void tripsAfterThreeFailuresInARow() {
+    CircuitBreaker breaker = new CircuitBreaker(budgetMillis, longOpenMillis);
+    for (int i = 0; i < 2; i++) {
+      assertTrue(breaker.allowRequest());
+      breaker.failure();
+      assertFalse("open after " + (i + 1) + " failures", breaker.isOpen());
+    }
+    assertTrue(breaker.allowRequest());
+    breaker.failure();
+    assertTrue(breaker.isOpen());
+    assertFalse(breaker.allowRequest());
+    assertEquals(1, breaker.trips);
+    assertEquals(1, breaker.refused);
+  }
+
+  @Test
+  public void failuresBetweenSuccessesDoNotTrip() {
+    CircuitBreaker breaker = new CircuitBreaker(budgetMillis, longOpenMillis);
+    for (int i = 0; i < 300; i++) {
+      assertTrue(breaker.allowRequest());
+      if (i % 3 == 2)
+        breaker.success(fast);
+      else
+        breaker.failure();
+    }
+    assertFalse(breaker.isOpen());
+  }
+
+  @Test
+  public void percentileIsOnlyJudgedOnAFullWindow() {
+    CircuitBreaker breaker = new CircuitBreaker(budgetMillis, longOpenMillis);
+    // Slow requests only, but fewer than the 100 a 99th percentile needs
+    for (int i = 0; i < 99; i++) {
+      assertTrue(breaker.allowRequest());
+      breaker.success(slow);
+    }
+    assertFalse(breaker.isOpen());
+    assertTrue(breaker.allowRequest());
+    breaker.success(slow);
+    assertTrue(breaker.isOpen());
+  }
+
+  @Test
+  public void oneSlowRequestInAHundredKeepsItClosed() {
+    CircuitBreaker breaker = new CircuitBreaker(budgetMillis, longOpenMillis);
+    for (int i = 0; i < 500; i++) {
+      assertTrue(breaker.allowRequest());
+      breaker.success((i % 100 == 50) ? slow : fast);
+    }
+    assertFalse(breaker.isOpen());
+  }
+
+  @Test
+  public void twoSlowRequestsInAHundredTrip() {
+    CircuitBreaker breaker = new CircuitBreaker(budgetMillis, longOpenMillis);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(breaker.allowRequest());
+      breaker.success(((i == 10) || (i == 90)) ? slow : fast);
+    }
+    assertTrue(breaker.isOpen());
+  }
+
+  @Test
+  public void slowRequestsLeaveTheWindow() {
+    CircuitBreaker breaker = new CircuitBreaker(budgetMillis, longOpenMillis);
+    // Two slow requests 100 apart are never in the same window
+    for (int i = 0; i < 300; i++) {
+      assertTrue(breaker.allowRequest());
+      breaker.success((i % 100 == 0) ? slow : fast);
+    }
+    assertFalse(breaker.isOpen());
+  }
+
+  @Test
+  public void trialWithinBudgetCloses() {
+    CircuitBreaker breaker = trippedBreaker(0);
+    assertTrue("trial refused", breaker.allowRequest());
+    // Only one trial at a time
+    assertFalse(breaker.allowRequest());
+    breaker.success(fast);
+    assertFalse(breaker.isOpen());
+
+    // Closed with a fresh window and failure count
+    for (int i = 0; i < 2; i++) {
+      assertTrue(breaker.allowRequest());
+      breaker.failure();
+    }
+    assertFalse(breaker.isOpen());
+  }
+
+  @Test
+  public void slowTrialReopens() {
+    CircuitBreaker breaker = trippedBreaker(0);
+    assertTrue(breaker.allowRequest());
+    breaker.success(slow);
+    assertTrue(breaker.isOpen());
+    assertEquals(2, breaker.trips);
+  }
+
+  @Test
+  public void failedTrialReopens() {
+    CircuitBreaker breaker = trippedBreaker(0);
+    assertTrue(breaker.allowRequest());
+    breaker.failure();
+    assertTrue(breaker.isOpen());
+    assertEquals(2, breaker.trips);
+  }
+
+  @Test
+  public void noTrialBeforeTheOpenTime() {
+    CircuitBreaker breaker = trippedBreaker(longOpenMillis);
+    assertFalse(breaker.allowRequest());
+    assertTrue(breaker.isOpen());
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // A breaker opened by three failures in a row
+  private static CircuitBreaker trippedBreaker(long openMillis) {
+    CircuitBreaker breaker = new CircuitBreaker(budgetMillis, openMillis);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(breaker.allowRequest());
+      breaker.failure();
+    }
+    assertTrue(breaker.isOpen());
+    return breaker;
+  }
+}
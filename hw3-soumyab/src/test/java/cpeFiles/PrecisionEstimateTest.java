@@ -0,0 +1,65 @@
+/**
+ * Checks the running precision estimate of sampling runs
+ */
+package cpeFiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Precisions are added directly, as PrecisionEstimate.onNext would for each ranked question.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class PrecisionEstimateTest {
+
+  @Test
+  public void questionsWithoutPrecisionAreLeftOut() {
+    PrecisionEstimate estimate = new PrecisionEstimate(100, 0.95, 0.05, 2);
+    estimate.add(0.5);
+    estimate.add(0.0 / 0.0);
+    estimate.add(1.0);
+    assertEquals(2, estimate.getDocuments());
+    assertEquals(1, estimate.getSkipped());
+    assertEquals(0.75, estimate.getMean(), 1e-12);
+    assertFalse(Double.isNaN(estimate.halfWidth()));
+  }
+
+  @Test
+  public void equalPrecisionsStillGiveAnInterval() {
+    PrecisionEstimate estimate = new PrecisionEstimate(10000, 0.95, 0.05, 30);
+    for (int i = 0; i < 30; i++) {
+      estimate.add(1.0);
+    }
+    assertTrue("zero width interval", estimate.halfWidth() > 0.0);
+    assertFalse("converged on 30 equal precisions", estimate.isConverged());
+  }
+
+  @Test
+  public void equalPrecisionsConvergeOnceTheFloorIsNarrowEnough() {
+    PrecisionEstimate estimate = new PrecisionEstimate(10000, 0.95, 0.05, 30);
+    int added = 0;
+    while (!estimate.isConverged() && (added < 10000)) {
+      estimate.add(1.0);
+      added++;
+    }
+    assertTrue(estimate.isConverged());
+    assertTrue("converged after " + added, added > 30);
+    assertEquals(1.0, estimate.getMean(), 0.0);
+  }
+
+  @Test
+  public void intervalIsEmptyOnceEveryDocumentIsScored() {
+    PrecisionEstimate estimate = new PrecisionEstimate(4, 0.95, 0.05, 2);
+    estimate.add(0.0);
+    estimate.add(1.0);
+    estimate.add(0.5);
+    assertTrue(estimate.halfWidth() > 0.0);
+    estimate.add(0.25);
+    assertEquals(0.0, estimate.halfWidth(), 0.0);
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * Checks that a blocked submit of RankingStream returns when its subscriber stops taking items
+ */
+package cpeFiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Each test fills the one item buffer of a subscriber that has requested nothing, so that the
+ * next submit blocks as a CPE thread would, and then ends the subscription.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class RankingStreamTest {
+
+  // Longest wait for a submitter to block or to return
+  private static final long waitMillis = 10000;
+
+  @Test(timeout = 30000)
+  public void nonPositiveRequestReleasesBlockedSubmit() throws Exception {
+    RankingStream stream = new RankingStream("test", 1);
+    Recorder subscriber = new Recorder();
+    stream.subscribe(subscriber);
+    Submitter submitter = blockedSubmitter(stream);
+
+    subscriber.subscription.request(0);
+    submitter.join(waitMillis);
+
+    assertFalse("submit still blocked after request(0)", submitter.isAlive());
+    assertNull(submitter.failure);
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertEquals(0, subscriber.items.size());
+  }
+
+  @Test(timeout = 30000)
+  public void cancelReleasesBlockedSubmit() throws Exception {
+    RankingStream stream = new RankingStream("test", 1);
+    Recorder subscriber = new Recorder();
+    stream.subscribe(subscriber);
+    Submitter submitter = blockedSubmitter(stream);
+
+    subscriber.subscription.cancel();
+    submitter.join(waitMillis);
+
+    assertFalse("submit still blocked after cancel()", submitter.isAlive());
+    assertNull(submitter.failure);
+    assertNull(subscriber.error);
+  }
+
+  @Test(timeout = 30000)
+  public void requestDeliversBufferedItemsAndUnblocksSubmit() throws Exception {
+    RankingStream stream = new RankingStream("test", 1);
+    Recorder subscriber = new Recorder();
+    stream.subscribe(subscriber);
+    Submitter submitter = blockedSubmitter(stream);
+
+    subscriber.subscription.request(2);
+    submitter.join(waitMillis);
+
+    assertFalse("submit still blocked after request(2)", submitter.isAlive());
+    assertEquals(2, subscriber.items.size());
+    assertEquals("q0", subscriber.items.get(0).getQuestion());
+    assertEquals("q1", subscriber.items.get(1).getQuestion());
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // Starts a thread submitting two items and waits until it blocks on the second one
+  private static Submitter blockedSubmitter(RankingStream stream) throws InterruptedException {
+    Submitter submitter = new Submitter(stream);
+    submitter.start();
+    long until = System.currentTimeMillis() + waitMillis;
+    while ((submitter.getState() != Thread.State.WAITING) && submitter.isAlive()
+            && (System.currentTimeMillis() < until)) {
+      Thread.sleep(5);
+    }
+    assertEquals(Thread.State.WAITING, submitter.getState());
+    return submitter;
+  }
+
+  private static RankedQuestion item(int i) {
+    return new RankedQuestion("doc" + i, "q" + i, new ArrayList<RankedQuestion.Answer>(), 0.0,
+            false);
+  }
+
+  // A CPE thread submitting items
+  private static class Submitter extends Thread {
+    private final RankingStream stream;
+
+    volatile Exception failure;
+
+    Submitter(RankingStream stream) {
+      this.stream = stream;
+    }
+
+    @Override
+    public void run() {
+      try {
+        stream.submit(item(0));
+        stream.submit(item(1));
+      } catch (Exception e) {
+        failure = e;
+      }
+    }
+  }
+
+  // Keeps its subscription and what it received; requests nothing by itself
+  private static class Recorder implements Flow.Subscriber<RankedQuestion> {
+    volatile Flow.Subscription subscription;
+
+    final List<RankedQuestion> items = new ArrayList<RankedQuestion>();
+
+    volatile Throwable error;
+
+    public void onSubscribe(Flow.Subscription s) {
+      subscription = s;
+    }
+
+    public synchronized void onNext(RankedQuestion item) {
+      items.add(item);
+    }
+
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    public void onComplete() {
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Checks what the configuration hash of the result store covers
+ */
+package cpeFiles;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The configuration files are written to a temporary directory: a descriptor that declares a file
+ * resource, the way an aggregate binds a GoldNGramIndex, and the resource file itself.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ResultStoreTest {
+
+  private File dir;
+
+  private File descriptor;
+
+  private File index;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = File.createTempFile("resultStore", "");
+    dir.delete();
+    dir.mkdirs();
+    index = new File(dir, "gold.idx");
+    write(index, "first build");
+    descriptor = new File(dir, "aae.xml");
+    write(descriptor, "<resourceManagerConfiguration><externalResources><externalResource>"
+            + "<name>GoldNGramIndexFile</name><fileResourceSpecifier>\n  <fileUrl>file:"
+            + index.getPath() + "</fileUrl>\n</fileResourceSpecifier></externalResource>"
+            + "</externalResources></resourceManagerConfiguration>");
+  }
+
+  @After
+  public void tearDown() {
+    index.delete();
+    descriptor.delete();
+    dir.delete();
+  }
+
+  @Test
+  public void sameFilesGiveTheSameHash() throws IOException {
+    assertEquals(hash(), hash());
+  }
+
+  @Test
+  public void rebuiltResourceChangesTheHash() throws IOException {
+    String before = hash();
+    write(index, "second build");
+    assertFalse(before.equals(hash()));
+  }
+
+  @Test
+  public void missingResourceStillHashes() throws IOException {
+    String before = hash();
+    index.delete();
+    assertFalse(before.equals(hash()));
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  private String hash() throws IOException {
+    return ResultStore.configurationHash(new String[] { descriptor.getPath() });
+  }
+
+  private static void write(File file, String text) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(text.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,240 @@
+/**
+ * Runs the scoring daemon in process against local clients
+ */
+package tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.util.XMLInputSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Each test scores requests through ScoringDaemon.serve, as a connection or --stdin would, and
+ * checks the replies: one <code>+|- score answer</code> line per answer in ranking order, an empty
+ * line after each reply, every client's replies in the order it sent its requests, and a shutdown
+ * that stops every worker.
+ *
+ * @author Soumya Batra
+ *
+ */
+public class ScoringDaemonTest {
+
+  private static final String aaeDescriptor = "src/main/resources/hw2-soumyab-aae.xml";
+
+  private static final int threads = 4;
+
+  private static final Pattern replyLine = Pattern.compile("([+-]) (\\S+) (.+)");
+
+  private static final Pattern overhead = Pattern.compile(
+          "(\\d+) requests .* overhead p50 (\\S+) us p99 (\\S+) us");
+
+  private static final String booth = "Q Booth shot Lincoln?\nA 1 Booth shot Lincoln.\n"
+          + "A 0 Lincoln shot Booth.\nA 1 Lincoln was shot by Booth.\n";
+
+  private static final String hamlet = "Q Who wrote Hamlet?\nA 1 Shakespeare wrote Hamlet.\n"
+          + "A 0 Hamlet wrote Shakespeare.\nA 0 Nobody did.\n";
+
+  private AnalysisEngine aae;
+
+  @Before
+  public void setUp() throws Exception {
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put(AnalysisEngine.PARAM_NUM_SIMULTANEOUS_REQUESTS, threads);
+    aae = UIMAFramework.produceAnalysisEngine(UIMAFramework.getXMLParser()
+            .parseResourceSpecifier(new XMLInputSource(new File(aaeDescriptor))), params);
+  }
+
+  @After
+  public void tearDown() {
+    aae.destroy();
+  }
+
+  @Test
+  public void repliesOneLinePerAnswerInRankingOrder() throws Exception {
+    ScoringDaemon daemon = new ScoringDaemon(aae, 16, 200);
+    List<Thread> workers = daemon.start(threads);
+    List<List<String>> replies = replies(serve(daemon, booth + "\n" + hamlet + "\n"));
+    daemon.stop(workers);
+
+    assertEquals(2, replies.size());
+    assertReply(booth, replies.get(0));
+    assertReply(hamlet, replies.get(1));
+  }
+
+  @Test
+  public void keepsEveryClientsRepliesInRequestOrder() throws Exception {
+    ScoringDaemon daemon = new ScoringDaemon(aae, 4, 1000);
+    List<Thread> workers = daemon.start(threads);
+    int clients = 3, requests = 25;
+    String[] outputs = serveConcurrently(daemon, clients, requests);
+    daemon.stop(workers);
+
+    for (int c = 0; c < clients; c++) {
+      List<List<String>> replies = replies(outputs[c]);
+      assertEquals(requests, replies.size());
+      for (int i = 0; i < requests; i++) {
+        assertReply(numbered(c, i), replies.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void countsEveryReplyOnceItIsSent() throws Exception {
+    ScoringDaemon daemon = new ScoringDaemon(aae, 4, 1000);
+    List<Thread> workers = daemon.start(threads);
+    serveConcurrently(daemon, 3, 25);
+    daemon.stop(workers);
+
+    String report = daemon.report();
+    Matcher m = overhead.matcher(report);
+    assertTrue(report, m.find());
+    assertEquals(report, 75, Integer.parseInt(m.group(1)));
+    // A reply stamped before it was written would show as a negative overhead
+    assertTrue(report, Double.parseDouble(m.group(2)) >= 0.0);
+    assertTrue(report, Double.parseDouble(m.group(3)) >= 0.0);
+  }
+
+  @Test
+  public void listsAnswersPastTheBudgetAfterTheRanking() throws Exception {
+    // Far more answers than a millisecond scores
+    StringBuilder request = new StringBuilder(
+            "Q Who wrote Hamlet?\nA 1 Shakespeare wrote Hamlet.\n");
+    int answers = 3000;
+    for (int i = 1; i < answers; i++) {
+      request.append("A 0 Hamlet was written by writer number ").append(i).append(".\n");
+    }
+    ScoringDaemon daemon = new ScoringDaemon(aae, 16, 200, 1);
+    List<Thread> workers = daemon.start(threads);
+    List<List<String>> replies = replies(serve(daemon, request + "\n"));
+    daemon.stop(workers);
+
+    assertEquals(1, replies.size());
+    List<String> reply = replies.get(0);
+    assertEquals(answers, reply.size());
+    int unscored = 0;
+    for (String line : reply) {
+      if (line.startsWith("? "))
+        unscored++;
+      else
+        assertEquals(line + " after an unscored answer", 0, unscored);
+    }
+    assertTrue("every answer scored within 1 ms", unscored > 0);
+    assertTrue(daemon.report(), daemon.report().endsWith("1 partially scored within 1 ms"));
+  }
+
+  @Test(timeout = 60000)
+  public void stopsEveryWorkerWhenOneBatchCouldHoldAllStopRequests() throws Exception {
+    // A long window lets the first worker to wake up poll every other stop request
+    ScoringDaemon daemon = new ScoringDaemon(aae, 16, 500000);
+    List<Thread> workers = daemon.start(threads);
+    replies(serve(daemon, booth + "\n"));
+    daemon.stop(workers);
+    for (Thread worker : workers) {
+      assertFalse(worker.getName(), worker.isAlive());
+    }
+  }
+
+  // *************************************************************
+  // * Helper Methods *
+  // *************************************************************
+
+  // A request whose answers name the client and the request number
+  private static String numbered(int client, int i) {
+    String play = "play " + client + "-" + i;
+    return "Q Who wrote " + play + "?\nA 1 Shakespeare wrote " + play + ".\nA 0 " + play
+            + " was lost.\n";
+  }
+
+  // Outputs of clients that each send the given number of numbered requests at the same time
+  private static String[] serveConcurrently(final ScoringDaemon daemon, int clients,
+          final int requests) throws Exception {
+    final String[] outputs = new String[clients];
+    final Exception[] failures = new Exception[clients];
+    List<Thread> senders = new ArrayList<Thread>();
+    for (int c = 0; c < clients; c++) {
+      final int client = c;
+      Thread sender = new Thread() {
+        @Override
+        public void run() {
+          StringBuilder input = new StringBuilder();
+          for (int i = 0; i < requests; i++) {
+            input.append(numbered(client, i)).append('\n');
+          }
+          try {
+            outputs[client] = serve(daemon, input.toString());
+          } catch (Exception e) {
+            failures[client] = e;
+          }
+        }
+      };
+      sender.start();
+      senders.add(sender);
+    }
+    for (Thread sender : senders) {
+      sender.join();
+    }
+    for (Exception failure : failures) {
+      if (failure != null)
+        throw failure;
+    }
+    return outputs;
+  }
+
+  private static String serve(ScoringDaemon daemon, String input) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    daemon.serve(new ByteArrayInputStream(input.getBytes("UTF-8")), out);
+    return out.toString("UTF-8");
+  }
+
+  // Reply lines, split at the empty line that ends each reply
+  private static List<List<String>> replies(String output) {
+    List<List<String>> replies = new ArrayList<List<String>>();
+    List<String> reply = new ArrayList<String>();
+    for (String line : output.split("\n", -1)) {
+      if (line.length() > 0) {
+        reply.add(line);
+      } else if (!reply.isEmpty()) {
+        replies.add(reply);
+        reply = new ArrayList<String>();
+      }
+    }
+    assertTrue("Unterminated reply " + reply, reply.isEmpty());
+    return replies;
+  }
+
+  // Every answer of the request once, with its label, by non increasing score
+  private static void assertReply(String request, List<String> reply) {
+    Map<String, Character> labels = new HashMap<String, Character>();
+    for (String line : request.split("\n")) {
+      if (line.startsWith("A "))
+        labels.put(line.substring(4), (line.charAt(2) == '1') ? '+' : '-');
+    }
+    assertEquals(reply.toString(), labels.size(), reply.size());
+    double previous = Double.POSITIVE_INFINITY;
+    for (String line : reply) {
+      Matcher m = replyLine.matcher(line);
+      assertTrue(line, m.matches());
+      Character label = labels.remove(m.group(3));
+      assertEquals(line, label, Character.valueOf(m.group(1).charAt(0)));
+      double score = Double.parseDouble(m.group(2));
+      assertTrue(line, score <= previous);
+      previous = score;
+    }
+  }
+}